@@ -0,0 +1,110 @@
+package bench;
+
+import parser.Parser;
+import parser.SyntaxErrorException;
+import parser.pst.Node;
+import parser.pst.NodeArena;
+
+import java.util.ArrayList;
+
+/**         ArenaBench.java
+ *  Compares an AST held as Node objects with the same AST packed into a NodeArena: the heap each one keeps alive,
+ *  and how long a full depth-first walk over each takes. Last comes a walk through the Node API's views of the
+ *  arena, which are made as the walk goes and dropped after it, so the heap after it should be the arena's.
+ *
+ *  Usage: java bench.ArenaBench [number of statements]
+ */
+public class ArenaBench {
+
+    /** Times each walk is run; the first half is warm-up */
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws SyntaxErrorException {
+        int statements = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        StringBuilder text = new StringBuilder("prog {\n");
+        for (int i = 0; i < statements; i++)
+            text.append("    x").append(i % 100).append(" = (x").append(i % 7).append(" + ").append(i)
+                    .append(") * 2;\n");
+        text.append("}\n");
+
+        long base = usedHeap();
+        Node root = Parser.parse(text);
+        long nodeHeap = usedHeap() - base;
+
+        NodeArena arena = NodeArena.of(root);
+        long bothHeap = usedHeap() - base;
+        long nodeWalk = time(root, null);
+        root = null;
+        long arenaHeap = usedHeap() - base;
+        long arenaWalk = time(null, arena);
+        // walking the views makes one for every node, but none of them is kept
+        long viewWalk = time(arena.getRoot(), null);
+        long viewHeap = usedHeap() - base;
+
+        System.out.println(arena.size() + " nodes");
+        System.out.printf("Node tree:  %8d KB, walk %.3f ms%n", nodeHeap / 1024, nodeWalk / 1e6);
+        System.out.printf("NodeArena:  %8d KB, walk %.3f ms%n", arenaHeap / 1024, arenaWalk / 1e6);
+        System.out.printf("via views: %8d KB, walk %.3f ms%n", viewHeap / 1024, viewWalk / 1e6);
+        if (bothHeap < nodeHeap)
+            System.out.println("(heap numbers are unreliable, the GC didn't settle)");
+    }
+
+    /**
+     * Times a depth-first walk over a Node tree or a NodeArena.
+     * @return average time of one walk, in ns
+     */
+    private static long time(Node root, NodeArena arena) {
+        long total = 0;
+        long check = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long time = System.nanoTime();
+            check += root != null ? walk(root) : walk(arena);
+            if (round >= ROUNDS / 2)
+                total += System.nanoTime() - time;
+        }
+
+        if (check == 42)
+            System.out.println();
+        return total / (ROUNDS - ROUNDS / 2);
+    }
+
+    private static long walk(Node root) {
+        long sum = 0;
+        ArrayList<Node> pending = new ArrayList<Node>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            sum += node.getSymbol().ordinal() + node.getValue().length();
+            ArrayList<Node> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--)
+                pending.add(children.get(i));
+        }
+
+        return sum;
+    }
+
+    private static long walk(NodeArena arena) {
+        long sum = 0;
+        int[] pending = new int[arena.size()];
+        int count = 0;
+        pending[count++] = 0;
+        while (count > 0) {
+            int node = pending[--count];
+            sum += arena.getKind(node) + arena.getValue(node).length();
+            // siblings are pushed in order, so the walk visits them last to first; the sum doesn't care
+            for (int child = arena.getFirstChild(node); child != -1; child = arena.getNextSibling(child))
+                pending[count++] = child;
+        }
+
+        return sum;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,79 @@
+package bench;
+
+import parser.Parser;
+import parser.SyntaxErrorException;
+import parser.pst.Node;
+import runner.Engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+/**         EngineBench.java
+ *  Runs a loop-heavy program with every Engine and prints the time of one run with each, and how much faster than
+ *  the tree walker it is. Compiling is part of the run. The output of every engine is checked against the tree
+ *  walker's.
+ *
+ *  Usage: java bench.EngineBench [outer loop rounds]
+ */
+public class EngineBench {
+
+    /** Times each engine is run; the first half is warm-up */
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws SyntaxErrorException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        String source = "prog {\n" +
+                "    i = 0;\n" +
+                "    s = 0;\n" +
+                "    while (i < " + rounds + ") {\n" +
+                "        j = 0;\n" +
+                "        while (j < 100) {\n" +
+                "            s = s + i * j - j / 3;\n" +
+                "            p = 2 ^ (j / 50);\n" +
+                "            j = j + 1;\n" +
+                "        };\n" +
+                "        i = i + 1;\n" +
+                "    };\n" +
+                "    print(\"s= \", s, \" p= \", p);\n" +
+                "}\n";
+        Node astRoot = Parser.parse(source);
+
+        String expected = output(Engine.TREE, astRoot);
+        long treeTime = 0;
+        System.out.println(rounds * 100 + " inner loop rounds");
+        for (Engine engine : Engine.values()) {
+            if (!output(engine, astRoot).equals(expected))
+                throw new IllegalStateException(engine + " printed something else than " + expected);
+
+            long time = time(engine, astRoot);
+            if (engine == Engine.TREE)
+                treeTime = time;
+            System.out.printf("%-10s %10.3f ms  %6.1fx%n", engine.name().toLowerCase(), time / 1e6,
+                    (double) treeTime / time);
+        }
+    }
+
+    private static String output(Engine engine, Node astRoot) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes);
+        engine.run(astRoot, out);
+        out.flush();
+        return bytes.toString();
+    }
+
+    /**
+     * Times an engine.
+     * @return average time of one run, in ns
+     */
+    private static long time(Engine engine, Node astRoot) {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream());
+        long total = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long time = System.nanoTime();
+            engine.run(astRoot, out);
+            if (round >= ROUNDS / 2)
+                total += System.nanoTime() - time;
+        }
+        return total / (ROUNDS - ROUNDS / 2);
+    }
+}
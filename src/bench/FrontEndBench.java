@@ -0,0 +1,43 @@
+package bench;
+
+import parser.Parser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**         FrontEndBench.java
+ *  Measures lexing + parsing throughput without the filesystem in the loop. The program is read into memory once,
+ *  and then parsed many times over through Parser.parseAll().
+ *
+ *  Usage: java bench.FrontEndBench [program file] [number of copies]
+ */
+public class FrontEndBench {
+
+    /** Times the batch is parsed; the first half is warm-up */
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args.length > 0 ? args[0] : "program.txt";
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        String text = new String(Files.readAllBytes(Paths.get(fileName)));
+        ArrayList<String> batch = new ArrayList<String>(copies);
+        for (int i = 0; i < copies; i++)
+            batch.add(text);
+
+        long total = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long time = System.nanoTime();
+            Parser.parseAll(batch);
+            if (round >= ROUNDS / 2)
+                total += System.nanoTime() - time;
+        }
+
+        int timed = ROUNDS - ROUNDS / 2;
+        double seconds = total / 1e9 / timed;
+        System.out.printf("%d sources (%d chars each): %.3f ms per batch, %.0f sources/s, %.1f MB/s%n", copies,
+                text.length(), seconds * 1000, copies / seconds, (double) copies * text.length() / seconds / 1e6);
+    }
+}
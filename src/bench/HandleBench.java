@@ -0,0 +1,103 @@
+package bench;
+
+import lexer.DFATokenizer;
+import lexer.Source;
+import lexer.TokenBuffer;
+import parser.Parser;
+import parser.SyntaxErrorException;
+import parser.pst.Node;
+import runner.ASTRunner;
+import runner.handle.HandleCompiler;
+import runner.handle.HandleProgram;
+import runner.ir.Lowering;
+import runner.ir.Stmt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**         HandleBench.java
+ *  Runs every prog unit with a while in it (from modified.txt by default) with ASTRunner and with HandleCompiler,
+ *  and prints the time of one run of each unit. The handles are timed twice: compiled for every run, like the
+ *  handle Engine does, and compiled once and run again and again, which is where the JIT gets to inline them.
+ *
+ *  Usage: java bench.HandleBench [source file] [runs]
+ */
+public class HandleBench {
+
+    /** Times the runs are timed; the first half is warm-up */
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException, SyntaxErrorException {
+        String fileName = args.length > 0 ? args[0] : "modified.txt";
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        List<TokenBuffer> units = Parser.splitUnits(new DFATokenizer(Source.map(fileName)).tokenizePacked());
+        int number = 0;
+        for (TokenBuffer unit : units) {
+            number++;
+            final Node astRoot = Parser.getASTRoot(unit, false);
+            if (!hasWhile(Lowering.lower(astRoot).getBody()))
+                continue;
+
+            final PrintStream out = new PrintStream(new ByteArrayOutputStream());
+            final HandleProgram compiled = HandleCompiler.compile(astRoot);
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new ASTRunner(astRoot, new PrintStream(expected)).run();
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            compiled.run(new PrintStream(actual));
+            if (!actual.toString().equals(expected.toString()))
+                throw new IllegalStateException("unit " + number + " printed something else with the handles");
+
+            long tree = time(runs, new Runnable() {
+                @Override
+                public void run() {
+                    new ASTRunner(astRoot, out).run();
+                }
+            });
+            long handles = time(runs, new Runnable() {
+                @Override
+                public void run() {
+                    HandleCompiler.compile(astRoot).run(out);
+                }
+            });
+            long precompiled = time(runs, new Runnable() {
+                @Override
+                public void run() {
+                    compiled.run(out);
+                }
+            });
+
+            System.out.printf("unit %d: tree %8.3f us, handles %8.3f us (%4.1fx), compiled once %8.3f us (%4.1fx)%n",
+                    number, tree / 1e3, handles / 1e3, (double) tree / handles, precompiled / 1e3,
+                    (double) tree / precompiled);
+        }
+    }
+
+    private static boolean hasWhile(Stmt[] statements) {
+        for (Stmt statement : statements)
+            if (statement instanceof Stmt.While)
+                return true;
+        return false;
+    }
+
+    /**
+     * Times a run.
+     * @param runs  runs per round
+     * @param run   what to time
+     * @return average time of one run, in ns
+     */
+    private static long time(int runs, Runnable run) {
+        long total = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long time = System.nanoTime();
+            for (int i = 0; i < runs; i++)
+                run.run();
+            if (round >= ROUNDS / 2)
+                total += System.nanoTime() - time;
+        }
+        return total / (ROUNDS - ROUNDS / 2) / runs;
+    }
+}
@@ -0,0 +1,101 @@
+package bench;
+
+import parser.IncrementalParser;
+import parser.Parser;
+import parser.SyntaxErrorException;
+import parser.pst.Node;
+import runner.ASTRunner;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**         IncrementalParseBench.java
+ *  Edits one number at a time in a large program and compares keeping the AST and scope tree up to date with the
+ *  IncrementalParser (plus ASTRunner.update) against parsing the whole text and building the whole scope tree
+ *  again. Prints the time per edit of each, and how much of the program the incremental side reused.
+ *
+ *  Usage: java bench.IncrementalParseBench [number of blocks] [number of edits]
+ */
+public class IncrementalParseBench {
+
+    /** Statements in each while block of the generated program */
+    private static final int BLOCK_STATEMENTS = 50;
+
+    public static void main(final String[] args) throws Exception {
+        final int blocks = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        final int edits = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        // the scope tree builder recurses once per statement of a block
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    bench(blocks, edits);
+                } catch (SyntaxErrorException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, "bench", 1L << 28);
+        thread.start();
+        thread.join();
+    }
+
+    private static void bench(int blocks, int edits) throws SyntaxErrorException {
+        StringBuilder text = new StringBuilder("prog {\n");
+        for (int b = 0; b < blocks; b++) {
+            text.append("    w").append(b).append(" = 0;\n");
+            text.append("    while (w").append(b).append(" < 1) {\n");
+            for (int i = 0; i < BLOCK_STATEMENTS; i++)
+                text.append("        x").append(i % 10).append(" = (x").append(i % 7).append(" + ").append(i)
+                        .append(") * 2;\n");
+            text.append("        w").append(b).append(" = w").append(b).append(" + 1;\n    };\n");
+        }
+        text.append("}\n");
+
+        // every number literal is a place to edit
+        ArrayList<Integer> numbers = new ArrayList<Integer>();
+        Matcher matcher = Pattern.compile("\\d+").matcher(text);
+        while (matcher.find())
+            if (text.charAt(matcher.start() - 1) == ' ')
+                numbers.add(matcher.start());
+
+        IncrementalParser incremental = new IncrementalParser(text);
+        ASTRunner runner = new ASTRunner(incremental.getRoot());
+        Random random = new Random(42);
+
+        long incrementalTime = 0;
+        long fullTime = 0;
+        long check = 0;
+        for (int e = 0; e < edits; e++) {
+            // swap a number for another one with as many digits, so the offsets of the others stay right
+            int offset = numbers.get(random.nextInt(numbers.size()));
+            int length = 0;
+            while (Character.isDigit(incremental.getText().charAt(offset + length)))
+                length++;
+            String replacement = String.valueOf(random.nextInt(9) + 1);
+            while (replacement.length() < length)
+                replacement += random.nextInt(10);
+
+            long time = System.nanoTime();
+            Node reparsed = incremental.edit(offset, length, replacement);
+            runner.update(reparsed);
+            incrementalTime += System.nanoTime() - time;
+
+            time = System.nanoTime();
+            Node root = Parser.parse(incremental.getText());
+            check += new ASTRunner(root).hashCode();
+            fullTime += System.nanoTime() - time;
+        }
+
+        if (check == 42)
+            System.out.println();
+        System.out.println(incremental.getTokens().size() + " tokens, " + edits + " edits");
+        System.out.printf("Incremental:  %8.3f ms per edit%n", incrementalTime / 1e6 / edits);
+        System.out.printf("Full reparse: %8.3f ms per edit%n", fullTime / 1e6 / edits);
+        System.out.println("Subtree reparses: " + incremental.getSubtreeReparses() + ", full reparses: " +
+                incremental.getFullReparses());
+        System.out.printf("Tokens reused: %.2f%%%n", incremental.getReuseRatio() * 100);
+    }
+}
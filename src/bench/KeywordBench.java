@@ -0,0 +1,87 @@
+package bench;
+
+import lexer.Grammar;
+import lexer.KeywordTable;
+import lexer.Tokenizer;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**         KeywordBench.java
+ *  Microbenchmark for classifying identifiers as keywords or ids. Compares the old way (cut a String out of the
+ *  source, check for int/float/string, "k" + value lookups in the lexcon HashMap) with one pass of the KeywordTable
+ *  trie over the source chars.
+ *
+ *  Usage: java bench.KeywordBench [number of identifiers]
+ */
+public class KeywordBench {
+
+    /** Times each way is run; the first half is warm-up */
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        // identifier-heavy input: keywords, near misses and plain ids, separated by spaces
+        String[] words = {"prog", "main", "fcn", "class", "float", "int", "string", "if", "elseif", "else",
+                "while", "input", "print", "new", "return", "x", "counter", "printer", "whiles", "i", "_tmp",
+                "value1", "inty", "pro", "floaty", "ret"};
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        ArrayList<int[]> spans = new ArrayList<int[]>();
+        for (int i = 0; i < count; i++) {
+            String word = words[random.nextInt(words.length)];
+            spans.add(new int[]{text.length(), text.length() + word.length()});
+            text.append(word).append(' ');
+        }
+        String source = text.toString();
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        for (int i = 0; i < count; i++) {
+            starts[i] = spans.get(i)[0];
+            ends[i] = spans.get(i)[1];
+        }
+
+        KeywordTable table = KeywordTable.lexcon();
+        long mapTime = 0;
+        long trieTime = 0;
+        int check = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long time = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                check += lookup(source.substring(starts[i], ends[i])).getId();
+            long mapRound = System.nanoTime() - time;
+
+            time = System.nanoTime();
+            for (int i = 0; i < count; i++)
+                check -= table.classify(source, starts[i], ends[i]).getId();
+            long trieRound = System.nanoTime() - time;
+
+            if (round >= ROUNDS / 2) {
+                mapTime += mapRound;
+                trieTime += trieRound;
+            }
+        }
+
+        if (check != 0)
+            System.out.println("Lookups disagree!");
+
+        int timed = ROUNDS - ROUNDS / 2;
+        System.out.println(count + " identifiers, " + table.size() + " trie states");
+        System.out.println("substring + HashMap: " + mapTime / timed / 1000000 + " ms");
+        System.out.println("KeywordTable trie:   " + trieTime / timed / 1000000 + " ms");
+    }
+
+    /**
+     * The lookup the Tokenizer used to do for every identifier.
+     * @param tokenValue text of the identifier
+     * @return Grammar of the keyword, or the id grammar
+     */
+    private static Grammar lookup(String tokenValue) {
+        if (tokenValue.equals("int") || tokenValue.equals("float") || tokenValue.equals("string"))
+            return Tokenizer.lexconEntry("k" + tokenValue);
+
+        Grammar grammar = Tokenizer.lexconEntry(tokenValue);
+        return grammar != null ? grammar : Tokenizer.lexconEntry("id");
+    }
+}
@@ -0,0 +1,199 @@
+package bench;
+
+import parser.Parser;
+import parser.pst.ASTSerializer;
+import parser.pst.Node;
+import parser.pst.TreeNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**         SerializationBench.java
+ *  Compares three ways of getting an AST into another process: ASTSerializer's varint stream, Java serialization of
+ *  the tree, and shipping the source text to parse it again. Prints the size of what would be sent and the time to
+ *  write and to read it back.
+ *
+ *  Node isn't Serializable, so Java serialization writes a copy of the tree made of SerialNodes, which hold what a
+ *  Node does, parent link included, and reads it back into Nodes. Making and undoing the copy is part of the time.
+ *
+ *  Java serialization recurses once per tree level, so everything runs on a thread with a big stack.
+ *
+ *  Usage: java bench.SerializationBench [number of statements]
+ */
+public class SerializationBench {
+
+    /** Times each way is run; the first half is warm-up */
+    private static final int ROUNDS = 10;
+
+    public static void main(final String[] args) throws Exception {
+        Thread thread = new Thread(null, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    bench(args.length > 0 ? Integer.parseInt(args[0]) : 20000);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, "bench", 1L << 30);
+        thread.start();
+        thread.join();
+    }
+
+    private static void bench(int statements) throws Exception {
+        StringBuilder text = new StringBuilder("prog {\n");
+        for (int i = 0; i < statements; i++)
+            text.append("    x").append(i % 100).append(" = (x").append(i % 7).append(" + ").append(i)
+                    .append(") * 2.5;\n");
+        text.append("    print(\"done\");\n}\n");
+        final String source = text.toString();
+        final Node root = Parser.parse(source);
+
+        byte[] packed = ASTSerializer.serialize(root);
+        byte[] java = javaSerialize(root);
+        Node unpacked = ASTSerializer.deserialize(ByteBuffer.wrap(packed));
+        if (!unpacked.equalsTree(root) || !sameSpans(unpacked, root) || !javaDeserialize(java).equalsTree(root))
+            throw new IllegalStateException("tree didn't round-trip");
+
+        long packedWrite = time(new Task() {
+            public Object run() {
+                return ASTSerializer.serialize(root);
+            }
+        });
+        final ByteBuffer packedBuffer = ByteBuffer.allocateDirect(packed.length);
+        packedBuffer.put(packed).flip();
+        long packedRead = time(new Task() {
+            public Object run() throws IOException {
+                return ASTSerializer.deserialize(packedBuffer.duplicate());
+            }
+        });
+
+        long javaWrite = time(new Task() {
+            public Object run() throws IOException {
+                return javaSerialize(root);
+            }
+        });
+        final byte[] javaBytes = java;
+        long javaRead = time(new Task() {
+            public Object run() throws Exception {
+                return javaDeserialize(javaBytes);
+            }
+        });
+
+        long parseRead = time(new Task() {
+            public Object run() throws Exception {
+                return Parser.parse(source);
+            }
+        });
+
+        System.out.println(statements + " statements");
+        System.out.printf("ASTSerializer:  %9d bytes, write %8.3f ms, read %8.3f ms%n",
+                packed.length, packedWrite / 1e6, packedRead / 1e6);
+        System.out.printf("Java:           %9d bytes, write %8.3f ms, read %8.3f ms%n",
+                java.length, javaWrite / 1e6, javaRead / 1e6);
+        System.out.printf("Re-parse:       %9d bytes, write %8s ms, read %8.3f ms%n",
+                source.getBytes().length, "-", parseRead / 1e6);
+    }
+
+    /**
+     * Checks that two trees of the same shape have the same token ranges and productions.
+     */
+    private static boolean sameSpans(Node a, Node b) {
+        ArrayList<Node> pendingA = new ArrayList<Node>();
+        ArrayList<Node> pendingB = new ArrayList<Node>();
+        pendingA.add(a);
+        pendingB.add(b);
+        while (!pendingA.isEmpty()) {
+            Node nodeA = pendingA.remove(pendingA.size() - 1);
+            Node nodeB = pendingB.remove(pendingB.size() - 1);
+            if (nodeA.getTokenStart() != nodeB.getTokenStart() || nodeA.getTokenEnd() != nodeB.getTokenEnd() ||
+                    nodeA.getProduction() != nodeB.getProduction())
+                return false;
+            pendingA.addAll(nodeA.getChildren());
+            pendingB.addAll(nodeB.getChildren());
+        }
+
+        return true;
+    }
+
+    private static byte[] javaSerialize(Node root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new SerialNode(root, null));
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static Node javaDeserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return ((SerialNode) in.readObject()).toNode();
+        }
+    }
+
+    /**
+     * Serializable copy of a Node.
+     */
+    private static class SerialNode implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String keyword;
+        private final String value;
+        private final boolean hasNumber;
+        private final long integer;
+        private final double number;
+        private final SerialNode parent;
+        private final ArrayList<SerialNode> children;
+
+        SerialNode(Node node, SerialNode parent) {
+            this.keyword = node.getKeyword();
+            this.value = node.getValue();
+            this.hasNumber = node.hasNumber();
+            this.integer = hasNumber ? node.getInteger() : 0;
+            this.number = hasNumber ? node.getNumber() : 0;
+            this.parent = parent;
+            this.children = new ArrayList<SerialNode>(node.getChildren().size());
+            for (Node child : node.getChildren())
+                children.add(new SerialNode(child, this));
+        }
+
+        Node toNode() {
+            Node node = new TreeNode(keyword, value);
+            if (hasNumber)
+                node.setNumber(integer, number);
+            for (SerialNode child : children)
+                node.addChild(child.toNode());
+            return node;
+        }
+    }
+
+    private interface Task {
+        Object run() throws Exception;
+    }
+
+    /**
+     * Times a task.
+     * @return average time of one run, in ns
+     */
+    private static long time(Task task) throws Exception {
+        long total = 0;
+        int check = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long time = System.nanoTime();
+            check += task.run().hashCode();
+            if (round >= ROUNDS / 2)
+                total += System.nanoTime() - time;
+        }
+
+        if (check == 42)
+            System.out.println();
+        return total / (ROUNDS - ROUNDS / 2);
+    }
+}
@@ -0,0 +1,96 @@
+package bench;
+
+import lexer.DFATokenizer;
+import lexer.Source;
+import lexer.Token;
+import lexer.Tokenizer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**         TokenizerCompare.java
+ *  Lexes a set of sources with both the legacy Tokenizer and the DFATokenizer and reports every token where the two
+ *  disagree on the line, the value or the grammar. The built-in cases are always run; any files given on the command
+ *  line are compared as well.
+ *
+ *  Usage: java bench.TokenizerCompare [program files...]
+ */
+public class TokenizerCompare {
+
+    /** Sources both tokenizers have to agree on */
+    private static final String[] CASES = {
+            "prog main { a = 1; b = 2.5; c = \"text\"; }",
+            "fcn f ( int x , float y ) -> int { return x ^ 2 ; }",
+            "if ( a <= b ) { print ( a ) ; } elseif ( a != b ) { } else { a = -3 ; }",
+            "a = b << 2 ; c = d >> 1 ; e = f >= g ; h = i == j ; // comment\nk = +4 ;",
+            "string s = \"two\nlines\" ;\nwhile ( x < 10 ) { x = x + 1 ; }",
+            // ids that start with a keyword are single ids, not the keyword and the rest
+            "floats = 2 ; printx = 1 ; integer = 3 ; iff = ifx ; whiles = returned ; strings = mainly ;",
+            "prog_1 = new_x ; elseiff = classy ; fcns = input2 ; elsewhere = if_ ;",
+            "int float string if elseif else while input print new return prog main fcn class",
+            // a dot is a number only with a digit in it
+            "a = . ; d = .5 ; e = 5. ;",
+            // digits other than ASCII ones make an id, not an int
+            "a = \u0663 ; b = x\u0663 ;",
+            // a string the input runs out in is an error token, not a string
+            "a = \"",
+            "a = \"never closed ;",
+    };
+
+    public static void main(String[] args) throws IOException {
+        ArrayList<String> sources = new ArrayList<String>();
+        for (String text : CASES)
+            sources.add(text);
+        for (String fileName : args)
+            sources.add(new String(Files.readAllBytes(Paths.get(fileName))));
+
+        int mismatches = 0;
+        for (String text : sources)
+            mismatches += compare(text);
+
+        System.out.println(sources.size() + " sources, " + mismatches + " mismatches");
+    }
+
+    /**
+     * Lexes a source with both tokenizers and prints the tokens they disagree on.
+     * @param text source to lex
+     * @return number of tokens that differ (or 1 if the token counts differ)
+     */
+    private static int compare(String text) {
+        Tokenizer legacy = new Tokenizer(Source.of(text));
+        ArrayList<Token> expected = new ArrayList<Token>(legacy.tokenize());
+        legacy.close();
+
+        DFATokenizer dfa = new DFATokenizer(Source.of(text));
+        ArrayList<Token> actual = new ArrayList<Token>(dfa.tokenize());
+        dfa.close();
+
+        int mismatches = 0;
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            Token a = expected.get(i);
+            Token b = actual.get(i);
+            if (a.getLineNum() != b.getLineNum() || !a.getValue().equals(b.getValue()) ||
+                    a.getGrammar().getId() != b.getGrammar().getId()) {
+                System.out.println("Mismatch in " + quote(text) + " at token " + i + ":");
+                System.out.println("  Tokenizer:    " + a);
+                System.out.println("  DFATokenizer: " + b);
+                mismatches++;
+            }
+        }
+
+        if (expected.size() != actual.size()) {
+            System.out.println("Token counts differ in " + quote(text) + ": " + expected.size() + " vs " +
+                    actual.size());
+            mismatches++;
+        }
+
+        return mismatches;
+    }
+
+    private static String quote(String text) {
+        String line = text.replace("\n", "\\n");
+        return "\"" + (line.length() > 40 ? line.substring(0, 40) + "..." : line) + "\"";
+    }
+}
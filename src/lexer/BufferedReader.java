@@ -8,7 +8,7 @@ import java.io.Reader;
  *
  * @author Alex Diep
  */
-public class BufferedReader extends java.io.BufferedReader{
+public class BufferedReader extends java.io.BufferedReader implements CharInput {
 
     /** Buffersize used for .mark() */
     private final int readAhead = 1000;
@@ -27,6 +27,7 @@ public class BufferedReader extends java.io.BufferedReader{
      * @return next character
      * @throws IOException
      */
+    @Override
     public int peek() throws IOException {
         mark(readAhead);
         int input = read();
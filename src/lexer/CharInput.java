@@ -0,0 +1,37 @@
+package lexer;
+
+import java.io.IOException;
+
+/**         CharInput.java
+ *  A stream of characters the Tokenizer can read from, with one character of lookahead.
+ *  Implemented by the mark/reset based BufferedReader and by the index based Source.
+ */
+public interface CharInput {
+
+    /**
+     * Reads and consumes the next character.
+     * @return next character, or -1 at the end of input
+     * @throws IOException
+     */
+    int read() throws IOException;
+
+    /**
+     * Returns the next character without consuming it.
+     * @return next character, or -1 at the end of input
+     * @throws IOException
+     */
+    int peek() throws IOException;
+
+    /**
+     * Returns if there are characters left to read.
+     * @return TRUE if read() will not return -1, FALSE if not (or if it can't be known without blocking).
+     * @throws IOException
+     */
+    boolean ready() throws IOException;
+
+    /**
+     * Releases anything held by the input.
+     * @throws IOException
+     */
+    void close() throws IOException;
+}
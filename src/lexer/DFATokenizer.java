@@ -0,0 +1,453 @@
+package lexer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**         DFATokenizer.java
+ *  Table driven version of the Tokenizer. Every character is mapped to a character class through a precomputed
+ *  ASCII table, and the next state is looked up in a transition table, so no regex is ever built or run while
+ *  lexing. Produces the same token kinds as the lexcon used by the Tokenizer.
+ */
+public class DFATokenizer implements TokenStream {
+
+    // ------------------------------------------- CHARACTER CLASSES --------------------------------------------------
+    /** Punctuation that is not part of the lexcon (and anything else we skip) */
+    private static final int C_OTHER = 0;
+    /** Whitespace (other than the end of line) */
+    private static final int C_SPACE = 1;
+    /** End of line */
+    private static final int C_EOL = 2;
+    private static final int C_LETTER = 3;
+    private static final int C_DIGIT = 4;
+    private static final int C_UNDERSCORE = 5;
+    private static final int C_DOT = 6;
+    private static final int C_QUOTE = 7;
+    private static final int C_SLASH = 8;
+    private static final int C_MINUS = 9;
+    private static final int C_PLUS = 10;
+    private static final int C_LESS = 11;
+    private static final int C_GREATER = 12;
+    private static final int C_EQUAL = 13;
+    private static final int C_BANG = 14;
+    /** Punctuation that is always a token on its own: ;,[](){}:*^ */
+    private static final int C_SINGLE = 15;
+    /** End of input */
+    private static final int C_EOF = 16;
+    private static final int NUM_CLASSES = 17;
+
+    // ------------------------------------------------ STATES ---------------------------------------------------------
+    private static final int S_START = 0;
+    private static final int S_IDENT = 1;
+    private static final int S_NUMBER = 2;
+    private static final int S_STRING = 3;
+    private static final int S_STRING_END = 4;
+    private static final int S_SLASH = 5;
+    private static final int S_COMMENT = 6;
+    private static final int S_MINUS = 7;
+    private static final int S_PLUS = 8;
+    private static final int S_LESS = 9;
+    private static final int S_GREATER = 10;
+    private static final int S_EQUAL = 11;
+    private static final int S_BANG = 12;
+    /** Two character operator that has been fully read */
+    private static final int S_OP2 = 13;
+    /** Single character token that has been fully read */
+    private static final int S_SINGLE = 14;
+    private static final int NUM_STATES = 15;
+
+    /** Transition that ends the current token without consuming the character */
+    private static final int STOP = -1;
+    /** Flag on a transition: the consumed character starts the token (used to drop a leading '+' sign) */
+    private static final int RESTART = 0x100;
+    /** Mask to get the next state out of a transition */
+    private static final int STATE_MASK = 0xFF;
+
+    /** ASCII char -> character class */
+    private static final byte[] charClass = buildCharClasses();
+    /** [state][character class] -> next state (with flags), or STOP */
+    private static final int[][] transitions = buildTransitions();
+    /** Grammar of single character tokens, indexed by the ASCII char */
+    private static final Grammar[] singles = new Grammar[128];
+    /** Grammar of two character operators, indexed by [first char][second char] */
+    private static final Grammar[][] pairs = new Grammar[128][];
+    /** Grammars of the tokens that aren't spelled the same every time */
+    private static final Grammar idGrammar = Tokenizer.lexconEntry("id");
+    private static final Grammar intGrammar = Tokenizer.lexconEntry("int");
+    private static final Grammar floatGrammar = Tokenizer.lexconEntry("float");
+    private static final Grammar stringGrammar = Tokenizer.lexconEntry("string");
+    private static final Grammar errorGrammar = Tokenizer.lexconEntry("");
+    /** Trie of the keywords in the lexcon */
+    private static final KeywordTable keywords = KeywordTable.lexcon();
+
+    static {
+        String singleChars = ";,[](){}:.*^<>=-+/";
+        for (int i = 0; i < singleChars.length(); i++) {
+            char c = singleChars.charAt(i);
+            singles[c] = Tokenizer.lexconEntry(Character.toString(c));
+        }
+
+        String[] operators = {"->", "==", "!=", "<=", ">=", "<<", ">>"};
+        for (String op : operators) {
+            char first = op.charAt(0);
+            if (pairs[first] == null)
+                pairs[first] = new Grammar[128];
+            pairs[first][op.charAt(1)] = Tokenizer.lexconEntry(op);
+        }
+    }
+
+    /** Text being lexed */
+    private CharSequence source;
+    /** Index of the next char to lex */
+    private int position;
+    /** Index after the last char to lex */
+    private int limit;
+    /** Counts number of lines */
+    private int lineCount;
+    /** End of input token, once we've reached it */
+    private Token eofToken;
+    /** Index of the first char of the token last found by scan() */
+    private int tokenStart;
+    /** Holds created tokens */
+    private ArrayList<Token> tokens;
+
+    /**
+     * Constructor -- creates a tokenizer to read from a specific file. The file is memory-mapped.
+     * @param fileName File to read from.
+     */
+    public DFATokenizer(String fileName) {
+        this((Source) null);
+
+        try {
+            source = Source.map(fileName).getText();
+            limit = source.length();
+        } catch (IOException e) {
+            System.out.println("FILE NOT FOUND");
+
+            Token t = new Token(lineCount, "");
+            t.setGrammar(Tokenizer.lexconEntry(""));
+            tokens.add(t);
+        }
+    }
+
+    /**
+     * Constructor -- creates a tokenizer to read the text of an in-memory or memory-mapped source.
+     * @param source Source to read from.
+     */
+    public DFATokenizer(Source source) {
+        tokens = new ArrayList<Token>();
+        position = 0;
+        lineCount = 1;
+
+        if (source != null) {
+            this.source = source.getText();
+            limit = this.source.length();
+        }
+    }
+
+    /**
+     * Constructor -- creates a tokenizer for part of a text, used to lex a source in chunks. The chunk must start
+     * outside of any string or comment (i.e. at the start of the text or right after a newline).
+     * @param source    text to read from
+     * @param from      index of the first char of the chunk
+     * @param to        index after the last char of the chunk
+     * @param firstLine line number the chunk starts on
+     */
+    DFATokenizer(CharSequence source, int from, int to, int firstLine) {
+        this.source = source;
+        tokens = new ArrayList<Token>();
+        position = from;
+        limit = to;
+        lineCount = firstLine;
+    }
+
+    // TOKENIZER FUNCTIONS -------------------------------------------------------------------------------------------
+
+    /**
+     * Returns if the Tokenizer is ready to produce tokens.
+     * @return TRUE if the source was read and is not empty, FALSE if not.
+     */
+    public boolean isReady() {
+        return source != null && source.length() > 0;
+    }
+
+    /**
+     * Processes all the tokens in the given file.
+     * @return ArrayList of the created tokens, ending with the eol token.
+     */
+    public ArrayList<Token> tokenize() {
+        Token t;
+        do {
+            t = nextToken();
+            tokens.add(t);
+        } while (t != eofToken);
+
+        return tokens;
+    }
+
+    /**
+     * Runs the DFA over the whole source and packs the tokens into a TokenBuffer, without creating a Token or a
+     * String for any of them. The last token is the eol token.
+     * @return TokenBuffer of all the tokens
+     */
+    public TokenBuffer tokenizePacked() {
+        TokenBuffer buffer = new TokenBuffer(source, (limit - position) / 4);
+
+        final CharSequence src = source;
+        int state;
+        while ((state = scan()) != S_START) {
+            int kind = grammarOf(state, src, tokenStart, position).getSymbol().ordinal();
+            buffer.add(kind, tokenStart, position - tokenStart, lineCount);
+        }
+        buffer.add(Symbol.EOL.ordinal(), position, 0, lineCount);
+
+        return buffer;
+    }
+
+    /**
+     * Runs the DFA until the next token has been read and adds it to a TokenBuffer.
+     * @param buffer TokenBuffer to add the token to
+     * @return FALSE if the source has been used up (and nothing was added), TRUE if not.
+     */
+    boolean scanPacked(TokenBuffer buffer) {
+        int state = scan();
+        if (state == S_START)
+            return false;
+
+        int kind = grammarOf(state, source, tokenStart, position).getSymbol().ordinal();
+        buffer.add(kind, tokenStart, position - tokenStart, lineCount);
+        return true;
+    }
+
+    /**
+     * Returns the line the DFA is on, i.e. the line the next token (or the eol token) will get.
+     * @return current line number
+     */
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Runs the DFA over just enough of the source to create the next token.
+     * @return the next Token, or the eol token once the source has been used up.
+     */
+    @Override
+    public Token nextToken() {
+        int state = scan();
+        if (state != S_START)
+            return createToken(state, tokenStart, position);
+
+        // make the eof token
+        if (eofToken == null) {
+            eofToken = new Token(lineCount, "");
+            eofToken.setGrammar(Tokenizer.lexconEntry(" "));
+        }
+        return eofToken;
+    }
+
+    /**
+     * Runs the DFA until the next token has been read. The token is [tokenStart, position) of the source.
+     * @return state the DFA accepted the token in, or S_START if the source has been used up.
+     */
+    private int scan() {
+        final CharSequence src = source;
+        final int length = limit;
+        int pos = position;
+
+        while (pos < length) {
+            int state = S_START;
+            int start = pos;
+
+            // run the automaton until the current token stops
+            while (true) {
+                int cls = pos < length ? classOf(src.charAt(pos)) : C_EOF;
+                int next = transitions[state][cls];
+                if (next == STOP)
+                    break;
+
+                if (state == S_START && next == S_START) {
+                    // skipped whitespace / unknown punctuation between tokens
+                    if (cls == C_EOL)
+                        lineCount++;
+                    start = pos + 1;
+                } else if ((next & RESTART) != 0) {
+                    start = pos;
+                }
+
+                state = next & STATE_MASK;
+                pos++;
+            }
+
+            if (state != S_START && state != S_COMMENT) {
+                position = pos;
+                tokenStart = start;
+                return state;
+            }
+        }
+
+        position = pos;
+        return S_START;
+    }
+
+    /**
+     * Closes the Tokenizer.
+     */
+    public void close() {
+        tokens.clear();
+        source = null;
+    }
+
+    /**
+     * Creates a token out of the characters [start, end) of the source, using the state the DFA stopped in.
+     * @param state final state of the DFA
+     * @param start index of the first char of the token
+     * @param end   index after the last char of the token
+     * @return created Token
+     */
+    private Token createToken(int state, int start, int end) {
+        Token t = new Token(lineCount, source.subSequence(start, end).toString());
+        t.setGrammar(grammarOf(state, source, start, end));
+        t.decodeNumber();
+        return t;
+    }
+
+    /**
+     * Finds the grammar of a token based on the state the DFA accepted it in, straight from the chars of the source.
+     * @param state final state of the DFA
+     * @param src   source text
+     * @param start index of the first char of the token
+     * @param end   index after the last char of the token
+     * @return Grammar of the token
+     */
+    private static Grammar grammarOf(int state, CharSequence src, int start, int end) {
+        switch (state) {
+            case S_IDENT:
+                return keywords.classify(src, start, end);
+            case S_NUMBER:
+                for (int i = start; i < end; i++) {
+                    if (src.charAt(i) == '.')
+                        return floatGrammar;
+                }
+                return intGrammar;
+            case S_STRING_END:
+                return stringGrammar;
+            case S_STRING:
+                // the input ran out before the closing quote
+                return errorGrammar;
+            case S_OP2:
+                return pairs[src.charAt(start)][src.charAt(start + 1)];
+            case S_BANG:
+                // not in the lexcon, so it falls back to an id just like the Tokenizer
+                return idGrammar;
+            default:
+                return singles[src.charAt(start)];
+        }
+    }
+
+    /**
+     * Returns the character class of the given char.
+     * @param c char to classify
+     * @return one of the C_ constants
+     */
+    private static int classOf(char c) {
+        if (c < 128)
+            return charClass[c];
+        // only ASCII digits make numbers (the runner can't decode any others), the rest are part of ids
+        if (Character.isLetterOrDigit(c))
+            return C_LETTER;
+        if (Character.isWhitespace(c))
+            return C_SPACE;
+
+        return C_OTHER;
+    }
+
+    // ------------------------------------------------ TABLES --------------------------------------------------------
+
+    private static byte[] buildCharClasses() {
+        byte[] classes = new byte[128];
+
+        for (char c = 0; c < 128; c++) {
+            if (Character.isLetter(c))
+                classes[c] = C_LETTER;
+            else if (Character.isDigit(c))
+                classes[c] = C_DIGIT;
+            else if (Character.isWhitespace(c))
+                classes[c] = C_SPACE;
+            else
+                classes[c] = C_OTHER;
+        }
+
+        classes['\n'] = C_EOL;
+        classes['_'] = C_UNDERSCORE;
+        classes['.'] = C_DOT;
+        classes['"'] = C_QUOTE;
+        classes['/'] = C_SLASH;
+        classes['-'] = C_MINUS;
+        classes['+'] = C_PLUS;
+        classes['<'] = C_LESS;
+        classes['>'] = C_GREATER;
+        classes['='] = C_EQUAL;
+        classes['!'] = C_BANG;
+        for (char c : ";,[](){}:*^".toCharArray())
+            classes[c] = C_SINGLE;
+
+        return classes;
+    }
+
+    private static int[][] buildTransitions() {
+        int[][] table = new int[NUM_STATES][NUM_CLASSES];
+        for (int[] row : table)
+            Arrays.fill(row, STOP);
+
+        // START: skip whitespace and unknown punctuation, otherwise decide what kind of token we're in
+        int[] start = table[S_START];
+        start[C_OTHER] = S_START;
+        start[C_SPACE] = S_START;
+        start[C_EOL] = S_START;
+        start[C_LETTER] = S_IDENT;
+        start[C_UNDERSCORE] = S_IDENT;
+        start[C_DIGIT] = S_NUMBER;
+        start[C_DOT] = S_SINGLE;
+        start[C_SINGLE] = S_SINGLE;
+        start[C_QUOTE] = S_STRING;
+        start[C_SLASH] = S_SLASH;
+        start[C_MINUS] = S_MINUS;
+        start[C_PLUS] = S_PLUS;
+        start[C_LESS] = S_LESS;
+        start[C_GREATER] = S_GREATER;
+        start[C_EQUAL] = S_EQUAL;
+        start[C_BANG] = S_BANG;
+
+        table[S_IDENT][C_LETTER] = S_IDENT;
+        table[S_IDENT][C_DIGIT] = S_IDENT;
+        table[S_IDENT][C_UNDERSCORE] = S_IDENT;
+
+        table[S_NUMBER][C_DIGIT] = S_NUMBER;
+        table[S_NUMBER][C_DOT] = S_NUMBER;
+
+        // strings run until the closing quote (or the end of input, which makes them an error token)
+        for (int c = 0; c < C_EOF; c++)
+            table[S_STRING][c] = S_STRING;
+        table[S_STRING][C_QUOTE] = S_STRING_END;
+
+        // comments run until the end of the line, which is left for START to count
+        table[S_SLASH][C_SLASH] = S_COMMENT;
+        for (int c = 0; c < C_EOF; c++)
+            table[S_COMMENT][c] = S_COMMENT;
+        table[S_COMMENT][C_EOL] = STOP;
+
+        // signs: -digits is a negative number, +digits drops the sign
+        table[S_MINUS][C_DIGIT] = S_NUMBER;
+        table[S_MINUS][C_GREATER] = S_OP2;
+        table[S_PLUS][C_DIGIT] = S_NUMBER | RESTART;
+
+        table[S_LESS][C_LESS] = S_OP2;
+        table[S_LESS][C_EQUAL] = S_OP2;
+        table[S_GREATER][C_GREATER] = S_OP2;
+        table[S_GREATER][C_EQUAL] = S_OP2;
+        table[S_EQUAL][C_EQUAL] = S_OP2;
+        table[S_BANG][C_EQUAL] = S_OP2;
+
+        return table;
+    }
+}
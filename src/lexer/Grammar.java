@@ -11,12 +11,14 @@ public class Grammar {
     private int id;
     /** Keyword for A2 lexcon */
     private String keyword;
+    /** Symbol of the keyword (null if the keyword isn't a grammar symbol) */
+    private Symbol symbol;
 
     public Grammar(int id, String keyword)
     {
         this.id = id;
         this.keyword = keyword;
-
+        this.symbol = Symbol.of(keyword);
     }
 
     // -----------------------------------------------FUNCTIONS -------------------------------------------------------
@@ -35,5 +37,10 @@ public class Grammar {
 
     public void setKeyword(String keyword) {
         this.keyword = keyword;
+        this.symbol = Symbol.of(keyword);
+    }
+
+    public Symbol getSymbol() {
+        return symbol;
     }
 }
@@ -0,0 +1,162 @@
+package lexer;
+
+/**         IncrementalLexer.java
+ *  Keeps the tokens of a text up to date while it is being edited, without lexing the whole text again.
+ *  After an edit, lexing restarts at the end of the last token before the edit (where the DFA is known to be in its
+ *  start state) and goes on until it makes a token, past the edit, that the old tokens had too: the same kind and
+ *  the same chars. From there on the DFA would do exactly what it did before, so the rest of the old tokens are kept
+ *  and only moved by the change in length and lines.
+ *
+ *  The lexing work is proportional to the edit (plus whatever the edit changed, e.g. an opened string). Moving the
+ *  tokens after it is a plain array copy.
+ */
+public class IncrementalLexer {
+
+    /** Text being edited. The tokens point into it. */
+    private final StringBuilder text;
+    /** Tokens of the text, ending with the eol token */
+    private final TokenBuffer tokens;
+    /** Number of tokens lexed for the last edit */
+    private int relexed;
+    /**
+     * Tokens the last edit changed: old tokens [changedFrom, changedOldTo) were replaced by the tokens now at
+     * [changedFrom, changedNewTo). The tokens before and after them are the same as before the edit.
+     */
+    private int changedFrom;
+    private int changedOldTo;
+    private int changedNewTo;
+
+    /**
+     * Lexes a text to start editing it.
+     * @param source text to edit
+     */
+    public IncrementalLexer(CharSequence source) {
+        text = new StringBuilder(source);
+        tokens = new DFATokenizer(text, 0, text.length(), 1).tokenizePacked();
+        relexed = tokens.size();
+        changedFrom = 0;
+        changedOldTo = 0;
+        changedNewTo = tokens.size() - 1;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Applies an edit to the text and patches the tokens.
+     * @param offset   index of the first char replaced
+     * @param removed  number of chars removed at the offset
+     * @param inserted text inserted at the offset
+     * @return tokens of the edited text (the same buffer, updated)
+     */
+    public TokenBuffer edit(int offset, int removed, CharSequence inserted) {
+        text.replace(offset, offset + removed, inserted.toString());
+
+        final int editEnd = offset + inserted.length();
+        final int shift = inserted.length() - removed;
+        final int eol = tokens.size() - 1;
+
+        // the last token that ends before the offset can't be touched by the edit (its lookahead char is before the
+        // offset too), and the DFA is back in its start state right after it
+        int first = firstEndingAtOrAfter(offset);
+        int restart = first == 0 ? 0 : tokens.getStart(first - 1) + tokens.getLength(first - 1);
+        int line = first == 0 ? 1 : tokens.getLine(first - 1);
+
+        DFATokenizer lexer = new DFATokenizer(text, restart, text.length(), line);
+        TokenBuffer fresh = new TokenBuffer(text, 0);
+        int old = first;
+        while (lexer.scanPacked(fresh)) {
+            int last = fresh.size() - 1;
+            int start = fresh.getStart(last);
+            if (start < editEnd)
+                continue;
+
+            // find the old token that would start at the same place
+            int oldStart = start - shift;
+            while (old < eol && tokens.getStart(old) < oldStart)
+                old++;
+
+            if (old < eol && tokens.getStart(old) == oldStart && tokens.getLength(old) == fresh.getLength(last) &&
+                    tokens.getKind(old) == fresh.getKind(last)) {
+                // back in sync: keep the rest of the old tokens
+                relexed = fresh.size();
+                setChanged(first, old, first + last);
+                tokens.splice(first, old + 1, fresh, shift, fresh.getLine(last) - tokens.getLine(old));
+                return tokens;
+            }
+        }
+
+        // never got back in sync, so everything up to the end was lexed again
+        fresh.add(Symbol.EOL.ordinal(), text.length(), 0, lexer.getLineCount());
+        relexed = fresh.size();
+        setChanged(first, eol, first + fresh.size() - 1);
+        tokens.splice(first, eol + 1, fresh, 0, 0);
+        return tokens;
+    }
+
+    private void setChanged(int from, int oldTo, int newTo) {
+        changedFrom = from;
+        changedOldTo = oldTo;
+        changedNewTo = newTo;
+    }
+
+    /**
+     * Binary searches for the first token that ends at or after an index of the text.
+     * @param index index into the text
+     * @return index of the token (the eol token if no other token does)
+     */
+    private int firstEndingAtOrAfter(int index) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.getStart(mid) + tokens.getLength(mid) < index)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * Returns how many tokens had to be lexed for the last edit (or for the whole text, before any edit).
+     * @return number of tokens lexed
+     */
+    public int getRelexedCount() {
+        return relexed;
+    }
+
+    /**
+     * Returns the index of the first token the last edit changed.
+     * @return index of the token
+     */
+    public int getChangedFrom() {
+        return changedFrom;
+    }
+
+    /**
+     * Returns the index (before the edit) after the last old token the last edit replaced.
+     * @return index of the token
+     */
+    public int getChangedOldTo() {
+        return changedOldTo;
+    }
+
+    /**
+     * Returns the index (after the edit) after the last new token the last edit put in.
+     * @return index of the token
+     */
+    public int getChangedNewTo() {
+        return changedNewTo;
+    }
+}
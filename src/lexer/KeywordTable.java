@@ -0,0 +1,133 @@
+package lexer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**         KeywordTable.java
+ *  Compact trie of every lexcon entry that is spelled like an identifier (prog, while, int, ...). Classifying an
+ *  identifier walks the trie once over its chars, straight out of the source, so no String is created and no
+ *  HashMap is hashed. Only the chars that appear in keywords get a column in the transition table, which keeps
+ *  the trie down to a few hundred ints.
+ */
+public class KeywordTable {
+
+    /** Shared table built from the lexcon */
+    private static final KeywordTable lexconTable = new KeywordTable();
+
+    /** State meaning "not a keyword" (the root is never a target, so 0 can be used for it) */
+    private static final int NONE = 0;
+
+    /** ASCII char -> column in the transition table, or -1 if no keyword uses the char */
+    private final int[] column = new int[128];
+    /** Number of columns (distinct chars used by the keywords) */
+    private int width;
+    /** [state * width + column] -> next state, or NONE */
+    private int[] next;
+    /** Grammar of the keyword that ends in each state, or null */
+    private Grammar[] accept;
+    /** Grammar given to identifiers that aren't keywords */
+    private final Grammar idGrammar;
+
+    /**
+     * Builds the table out of the lexcon.
+     */
+    private KeywordTable() {
+        idGrammar = Tokenizer.lexconEntry("id");
+
+        ArrayList<String> words = new ArrayList<String>();
+        for (String key : Tokenizer.lexconKeys()) {
+            if (isIdentifier(key))
+                words.add(key);
+        }
+
+        // give every char used by a keyword a column
+        Arrays.fill(column, -1);
+        width = 0;
+        int maxStates = 1;
+        for (String word : words) {
+            maxStates += word.length();
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (column[c] == -1)
+                    column[c] = width++;
+            }
+        }
+
+        // insert every keyword into the trie
+        next = new int[maxStates * width];
+        accept = new Grammar[maxStates];
+        int states = 1;
+        for (String word : words) {
+            int state = 0;
+            for (int i = 0; i < word.length(); i++) {
+                int slot = state * width + column[word.charAt(i)];
+                if (next[slot] == NONE)
+                    next[slot] = states++;
+                state = next[slot];
+            }
+            accept[state] = Tokenizer.keywordGrammar(word);
+        }
+
+        next = Arrays.copyOf(next, states * width);
+        accept = Arrays.copyOf(accept, states);
+    }
+
+    /**
+     * Returns the table built from the lexcon.
+     * @return shared KeywordTable
+     */
+    public static KeywordTable lexcon() {
+        return lexconTable;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Classifies an identifier as one of the lexcon keywords, or an id.
+     * @param text  text holding the identifier
+     * @param start index of the first char of the identifier
+     * @param end   index after the last char of the identifier
+     * @return Grammar of the keyword, or the id grammar
+     */
+    public Grammar classify(CharSequence text, int start, int end) {
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            int col = c < 128 ? column[c] : -1;
+            if (col < 0)
+                return idGrammar;
+
+            state = next[state * width + col];
+            if (state == NONE)
+                return idGrammar;
+        }
+
+        Grammar grammar = accept[state];
+        return grammar != null ? grammar : idGrammar;
+    }
+
+    /**
+     * Returns the number of states in the trie.
+     * @return number of states
+     */
+    public int size() {
+        return accept.length;
+    }
+
+    /**
+     * Returns if the given text is spelled like an identifier.
+     * @param text text to test
+     * @return TRUE if it starts with a letter or underscore and only has letters, digits and underscores
+     */
+    static boolean isIdentifier(String text) {
+        if (text.isEmpty() || !(Character.isLetter(text.charAt(0)) || text.charAt(0) == '_'))
+            return false;
+
+        for (int i = 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_'))
+                return false;
+        }
+        return true;
+    }
+}
@@ -1,32 +1,90 @@
 package lexer;
 
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**         Lexer.java
  *  Main runnable class that displays all the tokens proccessed by the Tokenizer.
+ *  Pass "-dfa" to use the table driven DFATokenizer instead, "-mmap" to read the file through a memory-mapped
+ *  Source, "-packed" to have the DFATokenizer pack the tokens into a TokenBuffer, "-parallel" to lex the memory-mapped
+ *  file in chunks on every core with the ParallelTokenizer, and "-time" to only report how long lexing took.
  *
  *  @author Alex Diep
  */
 public class Lexer {
     public static void main(String args[]) {
-        Tokenizer tokenizer = null;
+        String fileName = "program.txt";
+        boolean useDFA = false;
+        boolean useMapped = false;
+        boolean usePacked = false;
+        boolean useParallel = false;
+        boolean timeOnly = false;
 
-        if (args.length > 0)
-            tokenizer = new Tokenizer(args[0]);
-        else
-            tokenizer = new Tokenizer("program.txt");
+        for (String arg : args) {
+            if (arg.equals("-dfa"))
+                useDFA = true;
+            else if (arg.equals("-mmap"))
+                useMapped = true;
+            else if (arg.equals("-packed"))
+                usePacked = useDFA = true;
+            else if (arg.equals("-parallel"))
+                useParallel = usePacked = useDFA = useMapped = true;
+            else if (arg.equals("-time"))
+                timeOnly = true;
+            else
+                fileName = arg;
+        }
+
+        long startTime = System.nanoTime();
+        Source source = null;
+        if (useMapped) {
+            try {
+                source = Source.map(fileName);
+            } catch (IOException e) {
+                System.out.println("FILE NOT FOUND");
+                return;
+            }
+        }
 
         ArrayList<Token> tokens = null;
-        if (tokenizer.isReady())
-            tokens = tokenizer.tokenize();
+        TokenBuffer packed = null;
+        if (useParallel) {
+            packed = new ParallelTokenizer(source).tokenize();
+        } else if (usePacked) {
+            DFATokenizer tokenizer = source != null ? new DFATokenizer(source) : new DFATokenizer(fileName);
+            if (tokenizer.isReady())
+                packed = tokenizer.tokenizePacked();
+            tokenizer.close();
+        } else if (useDFA) {
+            DFATokenizer tokenizer = source != null ? new DFATokenizer(source) : new DFATokenizer(fileName);
+            if (tokenizer.isReady())
+                tokens = new ArrayList<Token>(tokenizer.tokenize());
+            tokenizer.close();
+        } else {
+            Tokenizer tokenizer = source != null ? new Tokenizer(source) : new Tokenizer(fileName);
+            if (tokenizer.isReady())
+                tokens = new ArrayList<Token>(tokenizer.tokenize());
+            tokenizer.close();
+        }
+        long elapsed = System.nanoTime() - startTime;
 
-        if (tokens != null && tokens.size() > 0) {
+        if (timeOnly) {
+            int count = packed != null ? packed.size() : tokens == null ? 0 : tokens.size();
+            System.out.printf("%s%s%s: %d tokens in %.3f ms%n",
+                    useDFA ? "DFATokenizer" : "Tokenizer",
+                    useMapped ? " (mmap)" : "",
+                    useParallel ? " (parallel)" : usePacked ? " (packed)" : "",
+                    count,
+                    elapsed / 1e6);
+        } else if (packed != null && packed.size() > 0) {
+            for (int i = 0; i < packed.size(); i++) {
+                System.out.println(packed.get(i));
+            }
+        } else if (tokens != null && tokens.size() > 0) {
             for (Token t : tokens) {
                 System.out.println(t);
             }
         } else
             System.out.println("No tokens");
-
-        tokenizer.close();
     }
 }
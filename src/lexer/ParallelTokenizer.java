@@ -0,0 +1,242 @@
+package lexer;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**         ParallelTokenizer.java
+ *  Lexes a large source on several cores. The source is cut into chunks at newlines that are outside of any string
+ *  or comment, each chunk is run through the DFATokenizer on its own fork-join task, and the packed tokens are
+ *  stitched back together. Every chunk starts in the DFA's start state on a known line, so the result is exactly
+ *  the TokenBuffer DFATokenizer.tokenizePacked() would make.
+ *
+ *  Where the safe newlines are depends on every quote and "//" before them, which is found in two passes:
+ *  1) every slice of the text is run (in parallel) through a tiny 4-state machine that only tracks strings and
+ *     comments, from each of the 4 states it could start in. This gives the state it ends in and the lines it
+ *     counts for each of them.
+ *  2) the summaries are chained from the start of the text, which gives the real state and line at the start of
+ *     every slice. Each chunk then runs from the first safe newline of its slice to the first one of the next.
+ */
+public class ParallelTokenizer {
+
+    /** Sources shorter than this many chars per chunk aren't worth splitting */
+    private static final int MIN_CHUNK = 1 << 16;
+    /** Chunks made per worker thread, so an uneven chunk doesn't hold up the rest */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    // --------------------------------------------- SCANNER STATES ---------------------------------------------------
+    /** Between tokens, or in any token other than a string or comment */
+    private static final int NORMAL = 0;
+    /** Right after a '/' that may start a comment */
+    private static final int SLASH = 1;
+    private static final int STRING = 2;
+    private static final int COMMENT = 3;
+    private static final int NUM_STATES = 4;
+
+    // ---------------------------------------------- CHAR CLASSES ----------------------------------------------------
+    private static final int OTHER = 0;
+    private static final int SLASH_CHAR = 1;
+    private static final int QUOTE = 2;
+    private static final int EOL = 3;
+
+    /** [state * 4 + char class] -> next state, following how the DFATokenizer treats strings and comments */
+    private static final int[] scanTable = {
+            // OTHER   '/'      '"'      '\n'
+            NORMAL,  SLASH,   STRING,  NORMAL,    // NORMAL
+            NORMAL,  COMMENT, STRING,  NORMAL,    // SLASH
+            STRING,  STRING,  NORMAL,  STRING,    // STRING
+            COMMENT, COMMENT, COMMENT, NORMAL     // COMMENT
+    };
+
+    /** Text being lexed */
+    private final CharSequence source;
+    /** Pool the chunks are lexed on */
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a tokenizer that lexes on the common fork-join pool.
+     * @param source Source to read from
+     */
+    public ParallelTokenizer(Source source) {
+        this(source, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a tokenizer that lexes on the given pool.
+     * @param source Source to read from
+     * @param pool   pool to run the chunks on
+     */
+    public ParallelTokenizer(Source source, ForkJoinPool pool) {
+        this.source = source.getText();
+        this.pool = pool;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Lexes the whole source. Small sources (or machines with a single core) are just lexed on the calling thread.
+     * @return TokenBuffer of all the tokens, ending with the eol token
+     */
+    public TokenBuffer tokenize() {
+        final int length = source.length();
+        int slices = Math.min(length / MIN_CHUNK, pool.getParallelism() * CHUNKS_PER_THREAD);
+        if (slices < 2 || Runtime.getRuntime().availableProcessors() < 2)
+            return new DFATokenizer(source, 0, length, 1).tokenizePacked();
+
+        final int[] bounds = new int[slices + 1];
+        for (int i = 0; i <= slices; i++)
+            bounds[i] = (int) ((long) length * i / slices);
+
+        // 1) summarize every slice, then chain the summaries to find the state and line each slice starts in
+        final int[][] summaries = new int[slices][];
+        runAll(slices, new IndexedAction() {
+            public void run(int i) {
+                summaries[i] = summarize(bounds[i], bounds[i + 1]);
+            }
+        });
+
+        final int[] entryState = new int[slices];
+        final int[] entryLine = new int[slices];
+        int state = NORMAL;
+        int line = 1;
+        for (int i = 0; i < slices; i++) {
+            entryState[i] = state;
+            entryLine[i] = line;
+            line += summaries[i][NUM_STATES + state];
+            state = summaries[i][state];
+        }
+
+        // 2) lex each chunk, from the first safe newline of its slice to the first safe newline of the next one
+        final TokenBuffer[] chunks = new TokenBuffer[slices];
+        runAll(slices, new IndexedAction() {
+            public void run(int i) {
+                int[] from = i == 0 ? new int[]{0, 1} : safeSplit(bounds[i], entryState[i], entryLine[i]);
+                int to = i == bounds.length - 2 ? length : safeSplit(bounds[i + 1], entryState[i + 1], 0)[0];
+                if (from[0] < to)
+                    chunks[i] = new DFATokenizer(source, from[0], to, from[1]).tokenizePacked();
+            }
+        });
+
+        return stitch(chunks);
+    }
+
+    /**
+     * Runs the string/comment scanner over [from, to) from each of the states it could start in.
+     * @param from index of the first char of the slice
+     * @param to   index after the last char of the slice
+     * @return the state it ends in for each start state, followed by the lines counted for each start state
+     */
+    private int[] summarize(int from, int to) {
+        final CharSequence src = source;
+        int s0 = NORMAL, s1 = SLASH, s2 = STRING, s3 = COMMENT;
+        int l0 = 0, l1 = 0, l2 = 0, l3 = 0;
+
+        for (int pos = from; pos < to; pos++) {
+            int cls = classOf(src.charAt(pos));
+            if (cls == EOL) {
+                // a newline is only counted as a line outside of strings, like the DFATokenizer does
+                if (s0 != STRING) l0++;
+                if (s1 != STRING) l1++;
+                if (s2 != STRING) l2++;
+                if (s3 != STRING) l3++;
+            }
+            s0 = scanTable[s0 * NUM_STATES + cls];
+            s1 = scanTable[s1 * NUM_STATES + cls];
+            s2 = scanTable[s2 * NUM_STATES + cls];
+            s3 = scanTable[s3 * NUM_STATES + cls];
+        }
+
+        return new int[]{s0, s1, s2, s3, l0, l1, l2, l3};
+    }
+
+    /**
+     * Finds the first newline at or after an index that is outside of any string, so a chunk can start right
+     * after it in the DFA's start state.
+     * @param from  index to start looking from
+     * @param state scanner state at that index
+     * @param line  line number at that index
+     * @return index right after the newline (or the end of the text if there is none), and the line it is on
+     */
+    private int[] safeSplit(int from, int state, int line) {
+        final CharSequence src = source;
+        final int length = src.length();
+
+        for (int pos = from; pos < length; pos++) {
+            int cls = classOf(src.charAt(pos));
+            if (cls == EOL && state != STRING)
+                return new int[]{pos + 1, line + 1};
+
+            state = scanTable[state * NUM_STATES + cls];
+        }
+
+        return new int[]{length, line};
+    }
+
+    /**
+     * Joins the chunks into one buffer, dropping the eol token at the end of every chunk but the last.
+     * @param chunks TokenBuffer of every chunk, or null for chunks that turned out empty
+     * @return TokenBuffer of all the tokens
+     */
+    private TokenBuffer stitch(TokenBuffer[] chunks) {
+        ArrayList<TokenBuffer> parts = new ArrayList<TokenBuffer>();
+        int total = 0;
+        for (TokenBuffer chunk : chunks) {
+            if (chunk != null) {
+                parts.add(chunk);
+                total += chunk.size();
+            }
+        }
+
+        TokenBuffer buffer = new TokenBuffer(source, total);
+        for (int i = 0; i < parts.size(); i++) {
+            TokenBuffer part = parts.get(i);
+            buffer.append(part, 0, i == parts.size() - 1 ? part.size() : part.size() - 1);
+        }
+
+        return buffer;
+    }
+
+    private static int classOf(char c) {
+        switch (c) {
+            case '/':
+                return SLASH_CHAR;
+            case '"':
+                return QUOTE;
+            case '\n':
+                return EOL;
+            default:
+                return OTHER;
+        }
+    }
+
+    /**
+     * Runs an action for every index 0..count-1 on the pool and waits for all of them.
+     * @param count  number of indexes
+     * @param action action to run
+     */
+    private void runAll(final int count, final IndexedAction action) {
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>(count);
+                for (int i = 0; i < count; i++) {
+                    final int index = i;
+                    tasks.add(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            action.run(index);
+                        }
+                    });
+                }
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Work done for one slice / chunk.
+     */
+    private interface IndexedAction {
+        void run(int index);
+    }
+}
@@ -0,0 +1,211 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**         Source.java
+ *  Source code held entirely in memory as a CharSequence, either a plain in-memory one (String, StringBuilder, ...)
+ *  or a memory-mapped file. Reading and peeking are just index reads, so there's no mark()/reset() bookkeeping or
+ *  locking per character like there is with the BufferedReader.
+ */
+public class Source implements CharInput {
+
+    /** Text of the source */
+    private CharSequence text;
+    /** Index of the next char to read */
+    private int position;
+
+    /**
+     * Creates a Source reading from the given text.
+     * @param text text to read
+     */
+    public Source(CharSequence text) {
+        this.text = text;
+        this.position = 0;
+    }
+
+    /**
+     * Creates a Source over in-memory text.
+     * @param text text to read
+     * @return new Source
+     */
+    public static Source of(CharSequence text) {
+        return new Source(text);
+    }
+
+    /**
+     * Creates a Source over encoded bytes, decoded with the platform charset (the same one the FileReader would use).
+     * @param bytes bytes of the source, from their position to their limit
+     * @return new Source
+     */
+    public static Source of(ByteBuffer bytes) {
+        return of(bytes, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a Source over encoded bytes. The bytes are used in place if they are all ASCII.
+     * @param bytes   bytes of the source, from their position to their limit
+     * @param charset charset the bytes are encoded with
+     * @return new Source
+     */
+    public static Source of(ByteBuffer bytes, Charset charset) {
+        return new Source(decode(bytes, charset));
+    }
+
+    /**
+     * Creates a Source by reading everything out of a Reader. The Reader is not closed.
+     * @param reader Reader to read from
+     * @return new Source
+     * @throws IOException if the Reader fails
+     */
+    public static Source read(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] chunk = new char[8192];
+        int count;
+        while ((count = reader.read(chunk)) != -1)
+            text.append(chunk, 0, count);
+
+        return new Source(text);
+    }
+
+    /**
+     * Creates a Source by memory-mapping a file.
+     * @param fileName file to map
+     * @return new Source
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public static Source map(String fileName) throws IOException {
+        return map(Paths.get(fileName));
+    }
+
+    /**
+     * Creates a Source by memory-mapping a file. Pure ASCII files are read straight out of the mapped bytes;
+     * anything else is decoded once with the platform charset (the same one the FileReader would use).
+     * @param path file to map
+     * @return new Source
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public static Source map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Source(decode(buffer, Charset.defaultCharset()));
+        }
+    }
+
+    /**
+     * Turns bytes into text, without copying them if every byte is ASCII and the charset is ASCII compatible.
+     * @param buffer  bytes of the source (from its position to its limit)
+     * @param charset charset the bytes are encoded with
+     * @return text of the bytes
+     */
+    static CharSequence decode(ByteBuffer buffer, Charset charset) {
+        if (isAsciiCompatible(charset) && isAscii(buffer))
+            return new AsciiSequence(buffer.slice());
+
+        return charset.decode(buffer.duplicate());
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII) ||
+                charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isAscii(ByteBuffer buffer) {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (buffer.get(i) < 0)
+                return false;
+        }
+
+        return true;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    public int read() {
+        return position < text.length() ? text.charAt(position++) : -1;
+    }
+
+    @Override
+    public int peek() {
+        return position < text.length() ? text.charAt(position) : -1;
+    }
+
+    @Override
+    public boolean ready() {
+        return text != null && position < text.length();
+    }
+
+    @Override
+    public void close() {
+        text = null;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    /**
+     * Returns the whole text of this source, no matter how much has been read.
+     * @return text of the source
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    /**
+     * CharSequence view over ASCII bytes, so a mapped file can be lexed without decoding it into a char[] first.
+     */
+    private static class AsciiSequence implements CharSequence {
+
+        /** Bytes of the text. Absolute gets only, so the view can be shared. */
+        private final ByteBuffer bytes;
+
+        AsciiSequence(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int length() {
+            return bytes.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) bytes.get(index);
+        }
+
+        /**
+         * Copies the chars out into a String right away, since the lexer only ever asks for a token's text.
+         */
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            byte[] chars = new byte[end - start];
+            ByteBuffer view = bytes.duplicate();
+            view.position(start);
+            view.get(chars);
+            return new String(chars, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            byte[] chars = new byte[bytes.limit()];
+            bytes.duplicate().get(chars);
+            return new String(chars, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package lexer;
+
+import java.util.HashMap;
+
+/**         Symbol.java
+ *  Every grammar symbol of the compiler in one int id space: the terminals of the A2 lexcon (plus the terminals
+ *  only the A6 grammar uses) followed by the non-terminals of the A6 grammar. The lexer tags tokens with these,
+ *  and the parser indexes its tables with their ordinal(), so nothing has to hash or compare keyword Strings.
+ */
+public enum Symbol {
+
+    // ------------------------------------------------ TERMINALS -----------------------------------------------------
+    // End of input / error
+    EOL(0, "eol"),
+    ERROR(99, "error"),
+
+    // Declarations
+    ID(2, "id"),
+    INT(3, "int"),
+    FLOAT(4, "float"),
+    STRING(5, "string"),
+
+    // Unpaired delimiters
+    COMMA(6, "comma"),
+    SEMI(7, "semi"),
+
+    // Keywords
+    KPROG(10, "kprog"),
+    KMAIN(11, "kmain"),
+    KFCN(12, "kfcn"),
+    KCLASS(13, "kclass"),
+    KFLOAT(15, "kfloat"),
+    KINT(16, "kint"),
+    KSTRING(17, "kstring"),
+    KIF(18, "kif"),
+    KELSEIF(19, "kelseif"),
+    KELSE(20, "kelse"),
+    KWHILE(21, "kwhile"),
+    KINPUT(22, "kinput"),
+    KPRINT(23, "kprint"),
+    KNEW(24, "knew"),
+    KRETURN(25, "kreturn"),
+
+    // Paired delimiters
+    ANGLE1(31, "angle1"),
+    ANGLE2(32, "angle2"),
+    BRACE1(33, "brace1"),
+    BRACE2(34, "brace2"),
+    BRACKET1(35, "bracket1"),
+    BRACKET2(36, "bracket2"),
+    PARENS1(37, "parens1"),
+    PARENS2(38, "parens2"),
+
+    // Other punctuation
+    ASTER(41, "aster"),
+    CARET(42, "caret"),
+    COLON(43, "colon"),
+    DOT(44, "dot"),
+    EQUAL(45, "equal"),
+    MINUS(46, "minus"),
+    PLUS(47, "plus"),
+    SLASH(48, "slash"),
+
+    // Multi-char ops
+    OPARROW(51, "oparrow"),
+    OPEQ(52, "opeq"),
+    OPNE(53, "opne"),
+    OPLE(54, "ople"),
+    OPGE(55, "opge"),
+    OPSHL(56, "opshl"),
+    OPSHR(57, "opshr"),
+
+    // Terminals of the A6 grammar that the lexer never produces
+    KWDVARS(-1, "kwdvars"),
+    EPS(-1, "eps"),
+
+    // ---------------------------------------------- NON-TERMINALS ---------------------------------------------------
+    PGM("Pgm"),
+    BBLOCK("BBlock"),
+    VARGROUP("Vargroup"),
+    PPVARLIST("PPvarlist"),
+    VARLIST("Varlist"),
+    VARDECL("Vardecl"),
+    BASEKIND("Basekind"),
+    VARID("Varid"),
+    STMTS("Stmts"),
+    STMT("Stmt"),
+    STASGN("Stasgn"),
+    STPRINT("Stprint"),
+    STWHILE("Stwhile"),
+    PPEXPRS("PPexprs"),
+    PPEXPR1("PPexpr1"),
+    EXPRLIST("Exprlist"),
+    MOREEXPRS("Moreexprs"),
+    EXPR("Expr"),
+    S("S"),
+    RTERM("Rterm"),
+    R("R"),
+    TERM("Term"),
+    Q("Q"),
+    FACT("Fact"),
+    OPREL("Oprel"),
+    LTHAN("Lthan"),
+    GTHAN("Gthan"),
+    OPADD("Opadd"),
+    OPMUL("Opmul");
+
+    /** Number of symbols */
+    public static final int COUNT = values().length;
+
+    /** All symbols, indexed by ordinal() (values() makes a copy every call) */
+    private static final Symbol[] byOrdinal = values();
+    /** Keyword -> symbol */
+    private static final HashMap<String, Symbol> byKeyword = new HashMap<String, Symbol>();
+
+    static {
+        for (Symbol symbol : byOrdinal)
+            byKeyword.put(symbol.keyword, symbol);
+    }
+
+    /** ID in the A2 lexcon, or -1 if it isn't in the lexcon */
+    private final int lexconId;
+    /** Keyword of the symbol, as written in the lexcon and grammar */
+    private final String keyword;
+    /** TRUE for terminals, FALSE for non-terminals */
+    private final boolean terminal;
+
+    Symbol(int lexconId, String keyword) {
+        this.lexconId = lexconId;
+        this.keyword = keyword;
+        this.terminal = true;
+    }
+
+    Symbol(String keyword) {
+        this.lexconId = -1;
+        this.keyword = keyword;
+        this.terminal = false;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Finds the symbol with the given keyword.
+     * @param keyword keyword to look up (e.g. "semi", "Stmts")
+     * @return matching Symbol, or null if there is none
+     */
+    public static Symbol of(String keyword) {
+        return byKeyword.get(keyword);
+    }
+
+    /**
+     * Returns the symbol with the given ordinal().
+     * @param ordinal id of the symbol
+     * @return matching Symbol
+     */
+    public static Symbol byOrdinal(int ordinal) {
+        return byOrdinal[ordinal];
+    }
+
+    public int getLexconId() {
+        return lexconId;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public boolean isTerminal() {
+        return terminal;
+    }
+}
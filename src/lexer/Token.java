@@ -7,20 +7,112 @@ package lexer;
  */
 public class Token {
 
+    /** Grammar given to tokens that haven't been classified yet */
+    private static final Grammar UNKNOWN = new Grammar(0, "");
+
     /** Line number the token is at */
     private int lineNum;
-    /** Actual value of the token */
+    /** Actual value of the token (null until read from the buffer, for views) */
     private String value;
     /** Grammar that holds ID + keyword */
     private Grammar grammar;
+    /** Packed buffer this token is a view of, if any */
+    private TokenBuffer buffer;
+    /** Index of this token in the buffer */
+    private int index;
+    /** Value of an int/float token as a number, decoded once by the lexer */
+    private double number;
+    /** Value of an int token as an integer (the float value truncated, for floats) */
+    private long integer;
+    /** TRUE once number/integer hold the decoded value */
+    private boolean hasNumber;
 
     public Token(int lineNum, String value) {
         this.lineNum = lineNum;
         this.value = value;
-        this.grammar = new Grammar(0, "");
+        this.grammar = UNKNOWN;
+    }
+
+    /**
+     * Creates a view of a token in a TokenBuffer. The value is only read out of the buffer when it's asked for.
+     * @param buffer buffer holding the token
+     * @param index  index of the token in the buffer
+     */
+    Token(TokenBuffer buffer, int index) {
+        this.lineNum = buffer.getLine(index);
+        this.grammar = buffer.getGrammar(index);
+        this.buffer = buffer;
+        this.index = index;
     }
 
     // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Decodes the value of an int or float token into its number payload. Called by the lexers right after the
+     * grammar is set, so nothing downstream has to parse the text again. Values that don't parse (like 1.2.3) are
+     * left without a payload.
+     */
+    void decodeNumber() {
+        Symbol symbol = getSymbol();
+        if (symbol != Symbol.INT && symbol != Symbol.FLOAT)
+            return;
+
+        try {
+            number = Double.parseDouble(value);
+            integer = symbol == Symbol.INT ? parseInteger(value, 0, value.length(), number) : (long) number;
+            hasNumber = true;
+        } catch (NumberFormatException e) {
+            hasNumber = false;
+        }
+    }
+
+    /**
+     * Parses an int literal (optional '-' followed by digits) straight out of a range of chars.
+     * @param text      text holding the literal
+     * @param start     index of the first char
+     * @param end       index after the last char
+     * @param asDouble  the literal as a double, used if it doesn't fit in a long
+     * @return value of the literal
+     */
+    static long parseInteger(CharSequence text, int start, int end, double asDouble) {
+        boolean negative = start < end && text.charAt(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end)
+            throw new NumberFormatException(text.subSequence(start, end).toString());
+
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9)
+                throw new NumberFormatException(text.subSequence(start, end).toString());
+            if (result > (Long.MAX_VALUE - digit) / 10)
+                return (long) asDouble; // too big for a long
+            result = result * 10 + digit;
+        }
+
+        return negative ? -result : result;
+    }
+
+    /**
+     * Returns if a range of chars is an int literal parseInteger() can read: an optional '-' followed by digits.
+     * @param text  text holding the literal
+     * @param start index of the first char
+     * @param end   index after the last char
+     * @return TRUE if the literal can be decoded
+     */
+    static boolean isInteger(CharSequence text, int start, int end) {
+        int i = start < end && text.charAt(start) == '-' ? start + 1 : start;
+        if (i == end)
+            return false;
+
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         String val = getValue();
@@ -28,7 +120,7 @@ public class Token {
         if (grammar.getId() == 3 || grammar.getId() == 4)
             number = " " + grammar.getKeyword() + "= " + val;
         else if (grammar.getKeyword().equals("string"))
-            val = value.substring(1, value.length() - 1); // chop off the quotes
+            val = val.substring(1, val.length() - 1); // chop off the quotes
 
         return String.format("(Tok:%3d line=%3d str= \"%s\"%s)", grammar.getId(), lineNum, val, number);
     }
@@ -38,14 +130,41 @@ public class Token {
         return grammar;
     }
 
+    /**
+     * Returns the grammar symbol (kind) of this token.
+     * @return Symbol of the token, or null if it hasn't been classified
+     */
+    public Symbol getSymbol() {
+        return grammar.getSymbol();
+    }
+
     public void setGrammar(Grammar grammar) {
         this.grammar = grammar;
     }
 
     public String getValue() {
+        if (value == null && buffer != null)
+            value = buffer.getValue(index);
+
         return value;
     }
 
+    /**
+     * Returns if this is an int/float token whose value has been decoded.
+     * @return TRUE if getNumber() and getInteger() hold the value
+     */
+    public boolean hasNumber() {
+        return buffer != null ? buffer.hasNumber(index) : hasNumber;
+    }
+
+    public double getNumber() {
+        return buffer != null ? buffer.getNumber(index) : number;
+    }
+
+    public long getInteger() {
+        return buffer != null ? buffer.getInteger(index) : integer;
+    }
+
     public void setValue(String value) {
         this.value = value;
     }
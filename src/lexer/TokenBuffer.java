@@ -0,0 +1,236 @@
+package lexer;
+
+import java.util.Arrays;
+
+/**         TokenBuffer.java
+ *  Packed list of tokens kept as parallel int arrays (kind, start, length, line) over the source text, instead of
+ *  one Token object (plus its String) per token. The text of a token is only turned into a String when someone
+ *  asks for it, and Token objects are only created as views when someone asks for one.
+ */
+public class TokenBuffer {
+
+    /** Smallest capacity the arrays start out with */
+    private static final int MIN_CAPACITY = 16;
+
+    /** Text the tokens were lexed from */
+    private final CharSequence text;
+    /** Symbol (ordinal) of each token */
+    private int[] kind;
+    /** Index into the text of the first char of each token */
+    private int[] start;
+    /** Number of chars of each token */
+    private int[] length;
+    /** Line number of each token */
+    private int[] line;
+    /** Number of tokens held */
+    private int size;
+
+    /**
+     * Creates an empty buffer for tokens of the given text.
+     * @param text     text the tokens are lexed from
+     * @param capacity number of tokens to make room for up front
+     */
+    public TokenBuffer(CharSequence text, int capacity) {
+        this.text = text;
+        capacity = Math.max(capacity, MIN_CAPACITY);
+        kind = new int[capacity];
+        start = new int[capacity];
+        length = new int[capacity];
+        line = new int[capacity];
+        size = 0;
+    }
+
+    /**
+     * Adds a token to the end of the buffer.
+     * @param kindId    Symbol ordinal of the token
+     * @param startPos  index into the text of the first char of the token
+     * @param len       number of chars in the token
+     * @param lineNum   line number of the token
+     */
+    public void add(int kindId, int startPos, int len, int lineNum) {
+        if (size == kind.length)
+            grow();
+
+        kind[size] = kindId;
+        start[size] = startPos;
+        length[size] = len;
+        line[size] = lineNum;
+        size++;
+    }
+
+    /**
+     * Adds tokens [from, to) of another buffer over the same text to the end of this one.
+     * @param other buffer to copy the tokens from
+     * @param from  index of the first token to copy
+     * @param to    index after the last token to copy
+     */
+    public void append(TokenBuffer other, int from, int to) {
+        int count = to - from;
+        while (size + count > kind.length)
+            grow();
+
+        System.arraycopy(other.kind, from, kind, size, count);
+        System.arraycopy(other.start, from, start, size, count);
+        System.arraycopy(other.length, from, length, size, count);
+        System.arraycopy(other.line, from, line, size, count);
+        size += count;
+    }
+
+    /**
+     * Replaces tokens [from, to) with the tokens of another buffer, and moves every token after them by the given
+     * number of chars and lines. Used to patch in the tokens of an edited region of the text.
+     * @param from        index of the first token to replace
+     * @param to          index after the last token to replace
+     * @param replacement tokens to put in their place
+     * @param startShift  chars to add to the start of every token after the replaced ones
+     * @param lineShift   lines to add to the line of every token after the replaced ones
+     */
+    public void splice(int from, int to, TokenBuffer replacement, int startShift, int lineShift) {
+        int count = replacement.size;
+        int tail = size - to;
+        int newSize = from + count + tail;
+        while (newSize > kind.length)
+            grow();
+
+        // move the tail to its new place first, so the replacement can't overwrite it
+        System.arraycopy(kind, to, kind, from + count, tail);
+        System.arraycopy(start, to, start, from + count, tail);
+        System.arraycopy(length, to, length, from + count, tail);
+        System.arraycopy(line, to, line, from + count, tail);
+        for (int i = from + count; i < newSize; i++) {
+            start[i] += startShift;
+            line[i] += lineShift;
+        }
+
+        System.arraycopy(replacement.kind, 0, kind, from, count);
+        System.arraycopy(replacement.start, 0, start, from, count);
+        System.arraycopy(replacement.length, 0, length, from, count);
+        System.arraycopy(replacement.line, 0, line, from, count);
+        size = newSize;
+    }
+
+    private void grow() {
+        int capacity = kind.length * 2;
+        kind = Arrays.copyOf(kind, capacity);
+        start = Arrays.copyOf(start, capacity);
+        length = Arrays.copyOf(length, capacity);
+        line = Arrays.copyOf(line, capacity);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Returns the number of tokens in the buffer.
+     * @return number of tokens
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the text of a token, creating the String for it.
+     * @param index index of the token
+     * @return text of the token
+     */
+    public String getValue(int index) {
+        int from = start[index];
+        return text.subSequence(from, from + length[index]).toString();
+    }
+
+    /**
+     * Returns if a token is an int or float whose value can be decoded.
+     * @param index index of the token
+     * @return TRUE if getNumber() and getInteger() can be called on it
+     */
+    public boolean hasNumber(int index) {
+        int k = kind[index];
+        if (k == Symbol.INT.ordinal()) {
+            int from = start[index];
+            return Token.isInteger(text, from, from + length[index]);
+        }
+        if (k != Symbol.FLOAT.ordinal())
+            return false;
+
+        try {
+            Double.parseDouble(getValue(index));
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Decodes the value of an int or float token. Ints are read straight from the chars without making a String.
+     * @param index index of the token
+     * @return value of the token as a double
+     */
+    public double getNumber(int index) {
+        if (kind[index] == Symbol.INT.ordinal() && length[index] < 19) // always fits in a long
+            return getInteger(index);
+
+        return Double.parseDouble(getValue(index));
+    }
+
+    /**
+     * Decodes the value of an int token (floats are truncated).
+     * @param index index of the token
+     * @return value of the token as a long
+     */
+    public long getInteger(int index) {
+        if (kind[index] != Symbol.INT.ordinal())
+            return (long) getNumber(index);
+
+        int from = start[index];
+        double asDouble = length[index] < 19 ? 0 : Double.parseDouble(getValue(index));
+        return Token.parseInteger(text, from, from + length[index], asDouble);
+    }
+
+    /**
+     * Returns the grammar (id + keyword) of a token.
+     * @param index index of the token
+     * @return Grammar of the token
+     */
+    public Grammar getGrammar(int index) {
+        return Tokenizer.grammarById(getSymbol(index).getLexconId());
+    }
+
+    /**
+     * Returns the grammar symbol of a token.
+     * @param index index of the token
+     * @return Symbol of the token
+     */
+    public Symbol getSymbol(int index) {
+        return Symbol.byOrdinal(kind[index]);
+    }
+
+    /**
+     * Returns a Token view of the token at the given index. Its value is only read from the text if asked for.
+     * @param index index of the token
+     * @return Token view
+     */
+    public Token get(int index) {
+        return new Token(this, index);
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    public int getKind(int index) {
+        return kind[index];
+    }
+
+    public int getStart(int index) {
+        return start[index];
+    }
+
+    public int getLength(int index) {
+        return length[index];
+    }
+
+    public int getLine(int index) {
+        return line[index];
+    }
+}
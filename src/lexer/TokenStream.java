@@ -0,0 +1,15 @@
+package lexer;
+
+/**         TokenStream.java
+ *  Pull based source of tokens. Tokens are lexed on demand, one call at a time, so the whole token list never
+ *  has to be held in memory.
+ */
+public interface TokenStream {
+
+    /**
+     * Lexes and returns the next token. Once the input is used up, this keeps returning the eol (end of input)
+     * token.
+     * @return next Token
+     */
+    Token nextToken();
+}
@@ -3,8 +3,14 @@ package lexer;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 /**         Tokenizer.java
@@ -13,18 +19,24 @@ import java.util.regex.Pattern;
  *
  *  @author Alex Diep
  */
-public class Tokenizer {
+public class Tokenizer implements TokenStream {
 
     /** Platform specific end of line character */
     private static final char eol = System.lineSeparator().charAt(0);
     /** HashMap to hold lexcon id + definitions. */
     private static final HashMap<String, Grammar> lexcon = populateLexcon();
-    /** BufferedReader to parse the file */
-    private BufferedReader file;
+    /** Lexcon grammars indexed by their ID */
+    private static final Grammar[] grammarIds = indexLexcon();
+    /** Input to parse, either a BufferedReader over the file or an in-memory/mapped Source */
+    private CharInput file;
     /** Counts number of lines */
     private int lineCount;
     /** Holds created tokens */
     private ArrayList<Token> tokens;
+    /** Tokens that have been created but not handed out by nextToken() yet */
+    private ArrayDeque<Token> pending;
+    /** End of input token, once we've reached it */
+    private Token eofToken;
     /** String added to in order to create tokens */
     private String token;
 
@@ -33,9 +45,7 @@ public class Tokenizer {
      * @param fileName File to read from.
      */
     public Tokenizer(String fileName) {
-        tokens = new ArrayList<Token>();
-        token = "";
-        lineCount = 1;
+        this((Source) null);
 
         try {
             file = new BufferedReader(new FileReader(fileName));
@@ -48,6 +58,54 @@ public class Tokenizer {
         }
     }
 
+    /**
+     * Constructor -- creates a tokenizer to read from a memory-mapped file.
+     * @param path File to read from.
+     */
+    public Tokenizer(Path path) {
+        this((Source) null);
+
+        try {
+            file = Source.map(path);
+        } catch (IOException e) {
+            System.out.println("FILE NOT FOUND");
+
+            Token t = new Token(lineCount, "");
+            t.setGrammar(new Grammar(99, "error"));
+            tokens.add(t);
+        }
+    }
+
+    /**
+     * Constructor -- creates a tokenizer to read from any Reader (wrapped so it can be peeked).
+     * @param reader Reader to read from.
+     */
+    public Tokenizer(Reader reader) {
+        this((Source) null);
+        file = new BufferedReader(reader);
+    }
+
+    /**
+     * Constructor -- creates a tokenizer to read from encoded bytes in memory.
+     * @param bytes Bytes to read, decoded with the platform charset.
+     */
+    public Tokenizer(ByteBuffer bytes) {
+        this(Source.of(bytes));
+    }
+
+    /**
+     * Constructor -- creates a tokenizer to read from an in-memory or memory-mapped source. Use Source.of() to lex a
+     * String or other CharSequence (the String constructor takes a file name).
+     * @param source Source to read from.
+     */
+    public Tokenizer(Source source) {
+        tokens = new ArrayList<Token>();
+        pending = new ArrayDeque<Token>();
+        token = "";
+        lineCount = 1;
+        file = source;
+    }
+
     // TOKENIZER FUNCTIONS -------------------------------------------------------------------------------------------
 
     /**
@@ -72,9 +130,31 @@ public class Tokenizer {
      * @return ArrayList of Strings containing potential tokens.
      */
     public ArrayList<Token> tokenize() {
+        Token t;
+        do {
+            t = nextToken();
+            tokens.add(t);
+        } while (t != eofToken);
+
+        return tokens;
+    }
+
+    /**
+     * Reads just enough of the file to create the next token.
+     * @return the next Token, or the eof token once the file has been used up.
+     */
+    @Override
+    public Token nextToken() {
         int value = 0;
         try {
-            while ((value = file.read()) != -1) {
+            while (pending.isEmpty() && eofToken == null) {
+                if (file == null || (value = file.read()) == -1) {
+                    // make the eof token
+                    eofToken = new Token(lineCount, "");
+                    eofToken.setGrammar(new Grammar(0, "eol"));
+                    break;
+                }
+
                 char input = (char) value;
 
                 if (isPunctuation(input))
@@ -84,20 +164,18 @@ public class Tokenizer {
                 else if (Character.isDigit(input))
                     handleDigit(input);
             }
-
-            // make the eof token
-            Token t= new Token(lineCount, "");
-            t.setGrammar(new Grammar(0, "eol"));
-            tokens.add(t);
         } catch (IOException e) {
             e.printStackTrace();
+
+            eofToken = new Token(lineCount, "");
+            eofToken.setGrammar(new Grammar(0, "eol"));
         }
 
-        return tokens;
+        return pending.isEmpty() ? eofToken : pending.poll();
     }
 
     /**
-     * Closes the Tokenizer (mainly the buffered reader)
+     * Closes the Tokenizer (mainly the buffered reader or source)
      */
     public void close() {
         if (file != null) {
@@ -117,8 +195,9 @@ public class Tokenizer {
         if (token.length() != 0) {
             Token t = new Token(lineCount, token);
             addGrammarToToken(t);
+            t.decodeNumber();
 
-            tokens.add(t);
+            pending.add(t);
             token = "";
         }
     }
@@ -128,31 +207,68 @@ public class Tokenizer {
      * @param token
      */
     private void addGrammarToToken(Token token) {
-        String tokenValue = token.getValue();
+        token.setGrammar(grammarOf(token.getValue()));
+    }
+
+    /**
+     * Finds the grammar of a complete token value, with some processing.
+     * Shared with the DFATokenizer so both lexers agree on the token kinds.
+     *
+     * @param tokenValue non-empty value of the token
+     * @return Grammar from the lexcon that the value belongs to
+     */
+    static Grammar grammarOf(String tokenValue) {
+        char first = tokenValue.charAt(0);
 
         // we have to manage special cases for strings, numbers, and ids
-        if (tokenValue.charAt(0) == '"') {
-            // we've found a string
-            token.setGrammar(lexcon.get("string"));
-        } else if (tokenValue.equals("int") || tokenValue.equals("float") || tokenValue.equals("string")) {
-            // these are keywords for int/float/string, so they should get the keyword grammar
-            token.setGrammar(lexcon.get("k" + tokenValue));
-        } else if (tokenValue.length() == 1 && tokenValue.charAt(0) == '-') {
-            token.setGrammar(lexcon.get("-"));
-        } else if (tokenValue.matches("[-.0-9]+")) {
-            // found int/float digits
+        if (Character.isLetter(first) || first == '_') {
+            // keywords and ids are classified in one pass by the keyword trie
+            return KeywordTable.lexcon().classify(tokenValue, 0, tokenValue.length());
+        } else if (first == '"') {
+            // we've found a string, or one the input ran out in before the closing quote
+            if (tokenValue.length() > 1 && tokenValue.charAt(tokenValue.length() - 1) == '"')
+                return lexcon.get("string");
+            return lexcon.get("");
+        } else if (tokenValue.length() == 1 && first == '-') {
+            return lexcon.get("-");
+        } else if (tokenValue.matches("[-.0-9]*[0-9][-.0-9]*")) {
+            // found int/float digits (a dot on its own is the dot token)
             if (tokenValue.contains(".")) // if it has a dot, it's a float
-                token.setGrammar(lexcon.get("float"));
+                return lexcon.get("float");
             else
-                token.setGrammar(lexcon.get("int"));
+                return lexcon.get("int");
         } else {
             // if we've gotten this far, it's a symbol, actual keyword, or an ID, so just get it.
             Grammar grammar = lexcon.get(tokenValue);
             if (grammar == null)
-                token.setGrammar(lexcon.get("id"));
+                return lexcon.get("id");
             else
-                token.setGrammar(grammar);
+                return grammar;
+        }
+    }
+
+    /**
+     * Finds the grammar of a keyword or id straight from the lexcon. Used to build the KeywordTable.
+     * @param word identifier to look up
+     * @return Grammar of the keyword, or the id grammar
+     */
+    static Grammar keywordGrammar(String word) {
+        if (word.equals("int") || word.equals("float") || word.equals("string")) {
+            // these are keywords for int/float/string, so they should get the keyword grammar
+            return lexcon.get("k" + word);
         }
+
+        Grammar grammar = lexcon.get(word);
+        return grammar != null ? grammar : lexcon.get("id");
+    }
+
+    /**
+     * Returns the grammar stored in the lexcon under the given key (e.g. "int", "string", "eol").
+     * @param key lexcon key
+     * @return matching Grammar, or null if there is none
+     */
+    public static Grammar lexconEntry(String key) {
+        return lexcon.get(key);
     }
 
     /* ===============================================================================================================
@@ -227,8 +343,9 @@ public class Tokenizer {
                 token += (char) file.read();
                 value = file.peek();
             }
-            // the loop won't consume the quote, which we want, so do it...
-            token += (char) file.read();
+            // the loop won't consume the quote, which we want, so do it (unless the string was never closed)
+            if (value != -1)
+                token += (char) file.read();
 
             createToken();
         } else if (input == '/') {
@@ -293,8 +410,8 @@ public class Tokenizer {
     // ---------------------------------------------- KEYWORDS ---------------------------------------------------------
 
     /**
-     * Mainly used in one of the handleKeyword functions, but it will grab all numbers/digits/underscores until
-     * we hit the next whitespace.
+     * Used by handleKeyword and for ids starting with an underscore. It will grab all numbers/digits/underscores
+     * until we hit the next whitespace.
      *
      * @param input
      * @throws IOException
@@ -316,98 +433,40 @@ public class Tokenizer {
     }
 
     /**
-     * Initial starter for handling potential keywords.
-     * Keywords that terminate here:
+     * Handles potential keywords. The whole identifier is read first, and then createToken() classifies it as a
+     * keyword or an id through the KeywordTable trie.
      *
      * @param input first character of potential token
      * @throws IOException
      */
     private void handleKeyword(char input) throws IOException {
-        if (Pattern.matches("[ceifmnprsw]", Character.toString(input))) {
-            token += input;
-            handleKeyword2((char) file.read());
-        } else
-            getIdentifier(input);
-
+        getIdentifier(input);
         createToken();
     }
 
     /**
-     * Level 2 of finite automata for handling potential keywords.
-     * Keywords that terminate here: if
-     *
-     * @param input second character of potential token
-     * @throws IOException
-     */
-    private void handleKeyword2(char input) throws IOException {
-        if (input == 'f' && Character.isWhitespace((char) file.peek())) {
-            // terminating if
-            token += input;
-        } else if (Pattern.matches("[acelnrth]", Character.toString(input))) {
-            token += input;
-            handleKeyword3((char) file.read());
-        } else
-            getIdentifier(input);
-    }
-
-    /**
-     * Level 3 of finite automata for handling potential keywords.
-     * Keywords that terminate here: int, new, fcn
-     * @param input
-     * @throws IOException
+     * Returns all the keys of the lexcon.
+     * @return read only set of lexcon keys
      */
-    private void handleKeyword3(char input) throws IOException {
-        if (Pattern.matches("[nw]", Character.toString(input))) {
-            token += input;
-        } else if (Pattern.matches("[aoirsp]", Character.toString(input))) {
-            token += input;
-            handleKeyword4((char) file.read());
-        } else if (input == 't') {
-            token += input;
-            // handle terminating int, but continuing return
-            if ((char) file.peek() == 'u')
-                handleKeyword4((char) file.read());
-        } else
-            getIdentifier(input);
+    static Set<String> lexconKeys() {
+        return Collections.unmodifiableSet(lexcon.keySet());
     }
 
     /**
-     * Level 4 of finite automata for handling potential keywords.
-     * Keywords that terminate here: prog
-     * @param input
-     * @throws IOException
+     * Returns the grammar in the lexcon with the given ID.
+     * @param id ID in the A2 lexcon
+     * @return matching Grammar, or null if there is none
      */
-    private void handleKeyword4(char input) throws IOException {
-        if (Pattern.matches("[g]", Character.toString(input))) {
-            token += input;
-        } else if (Pattern.matches("[alisneu]", Character.toString(input))) {
-            token += input;
-            // we have to handle main/else here.
-            if (!Character.isWhitespace((char) file.peek()))
-                handleKeyword5((char) file.read());
-        } else
-            getIdentifier(input);
+    static Grammar grammarById(int id) {
+        return id >= 0 && id < grammarIds.length ? grammarIds[id] : null;
     }
 
-    /**
-     * Level 5 of finite automata for handling potential keywords.
-     * Keywords that terminate here: string, elseif, while, input, class, float, print, return
-     * @param input
-     * @throws IOException
-     */
-    private void handleKeyword5(char input) throws IOException {
-        if (Pattern.matches("[est]", Character.toString(input))) {
-            token += input;
-        } else if (Pattern.matches("[inr]", Character.toString(input))) {
-            // we'll just handle the case of string, elseif, and return here.
-            token += input;
+    private static Grammar[] indexLexcon() {
+        Grammar[] ids = new Grammar[100];
+        for (Grammar grammar : lexcon.values())
+            ids[grammar.getId()] = grammar;
 
-            char value = (char) file.peek();
-            if (Pattern.matches("[gfn]", Character.toString(value))) {
-                token += (char) file.read();
-            }
-        } else
-            getIdentifier(input);
+        return ids;
     }
 
     private static HashMap<String, Grammar> populateLexcon()
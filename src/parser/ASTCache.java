@@ -0,0 +1,347 @@
+package parser;
+
+import lexer.DFATokenizer;
+import lexer.Source;
+import parser.pst.ASTSerializer;
+import parser.pst.Node;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**         ASTCache.java
+ *  On-disk cache of converted ASTs, keyed by the SHA-256 of the source bytes. A hit reads the serialized AST back
+ *  and skips lexing, LL parsing and the ASTConverter entirely. A miss parses as usual and stores the AST.
+ *
+ *  Every entry starts with a header: magic, serializer version, a fingerprint of the grammar and a CRC32 of the
+ *  payload. An entry that is cut short, corrupt, or was written for another format or grammar is ignored, and the
+ *  source is just parsed again and the entry overwritten. The cache is kept under a size cap by deleting the least
+ *  recently used entries (a hit touches the entry's modified time, which orders the index the next time it's read).
+ *
+ *  One cache can be used by many threads at once. Only the bookkeeping (the statistics, and the index of the entries
+ *  with their sizes, which replaces an entry and evicts) is done under the lock; reading, parsing, serializing and
+ *  writing the temporary file aren't. The index is read from the directory once, when the cache is made (which also
+ *  deletes temporary files left behind by a write that never finished), so other processes shouldn't write to the
+ *  same directory.
+ *
+ *  A program with syntax errors throws a SyntaxErrorException and is never cached.
+ */
+public class ASTCache {
+
+    /** Marks a file as a cache entry ("AST!") */
+    private static final int MAGIC = 0x41535421;
+    /** File extension of the entries */
+    private static final String EXTENSION = ".ast";
+    /** Changes whenever the rules of the grammar change, so ASTs of an older grammar aren't used */
+    private static final int GRAMMAR_FINGERPRINT = fingerprintGrammar();
+
+    /** Directory the entries are kept in */
+    private final Path directory;
+    /** Most bytes the entries may take up all together */
+    private final long maxBytes;
+    /** Entry -> its size, least recently used first */
+    private final LinkedHashMap<Path, Long> sizes = new LinkedHashMap<Path, Long>(16, 0.75f, true);
+    /** Bytes the entries in sizes take up all together */
+    private long totalBytes;
+    /** Statistics */
+    private int hits;
+    private int misses;
+    private int rejected;
+
+    /**
+     * Creates a cache in a directory, making the directory if needed.
+     * @param directory directory to keep the entries in
+     * @param maxBytes  most bytes the entries may take up all together
+     * @throws IOException if the directory can't be made or listed
+     */
+    public ASTCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        loadIndex();
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Returns the AST of a program file, from the cache if it has been parsed before.
+     * @param file program to parse
+     * @return root of the AST
+     * @throws IOException if the program can't be read
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public Node getASTRoot(Path file) throws IOException, SyntaxErrorException {
+        return getASTRoot(Files.readAllBytes(file));
+    }
+
+    /**
+     * Returns the AST of a program, from the cache if it has been parsed before.
+     * @param source bytes of the program (in the platform charset)
+     * @return root of the AST
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public Node getASTRoot(byte[] source) throws SyntaxErrorException {
+        Path entry = directory.resolve(keyOf(source) + EXTENSION);
+
+        byte[] bytes = readEntry(entry);
+        if (bytes != null) {
+            Node root = decode(bytes);
+            if (root != null) {
+                synchronized (this) {
+                    hits++;
+                    sizes.get(entry);   // makes it the most recently used
+                }
+                touch(entry);
+                return root;
+            }
+
+            // corrupt or stale, so it's parsed again and overwritten
+            synchronized (this) {
+                rejected++;
+            }
+        }
+
+        synchronized (this) {
+            misses++;
+        }
+        ParseResult result = new Parser(new DFATokenizer(Source.of(ByteBuffer.wrap(source))).tokenizePacked())
+                .parseRecovering();
+        if (result.hasErrors())
+            throw new SyntaxErrorException(result.getErrors());
+
+        write(entry, result.getRoot());
+        return result.getRoot();
+    }
+
+    /**
+     * Reads the bytes of an entry.
+     * @param entry file of the entry
+     * @return its bytes, or null if there is no such entry or it can't be read
+     */
+    private static byte[] readEntry(Path entry) {
+        try {
+            return Files.readAllBytes(entry);
+        } catch (IOException e) {
+            // a missing entry is just a miss, like one that can't be read
+            return null;
+        }
+    }
+
+    /**
+     * Decodes an entry, checking its header and CRC.
+     * @param bytes bytes of the entry
+     * @return root of the AST, or null if the entry can't be used
+     */
+    private static Node decode(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (in.getInt() != MAGIC || in.getInt() != ASTSerializer.VERSION || in.getInt() != GRAMMAR_FINGERPRINT)
+                return null;
+
+            long crc = in.getLong();
+            int length = in.getInt();
+            if (length != in.remaining())
+                return null;
+
+            CRC32 check = new CRC32();
+            check.update(in.duplicate());
+            if (check.getValue() != crc)
+                return null;
+
+            return ASTSerializer.deserialize(in);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes an entry, through a temporary file so a crash never leaves half an entry behind, then trims the cache.
+     * Only moving the file into place and the bookkeeping after it are done under the lock. Failing to write only
+     * means the next lookup misses.
+     * @param entry file of the entry
+     * @param root  root of the AST to store
+     */
+    private void write(Path entry, Node root) {
+        byte[] payload = ASTSerializer.serialize(root);
+
+        Path temp = null;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 24);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(ASTSerializer.VERSION);
+            out.writeInt(GRAMMAR_FINGERPRINT);
+            out.writeLong(crcOf(payload));
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.flush();
+
+            temp = Files.createTempFile(directory, "tmp", EXTENSION + ".part");
+            Files.write(temp, bytes.toByteArray());
+            synchronized (this) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                add(entry, bytes.size());
+                evict(entry);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write AST cache entry " + entry + ": " + e.getMessage());
+            if (temp != null)
+                delete(temp);
+        }
+    }
+
+    /**
+     * Reads the index from the directory: every entry with its size, least recently modified first. Temporary files
+     * left behind are deleted.
+     * @throws IOException if the directory can't be listed
+     */
+    private void loadIndex() throws IOException {
+        // temporary files a write was killed or crashed in the middle of would never be counted or evicted
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION + ".part")) {
+            for (Path part : stream)
+                delete(part);
+        }
+
+        final ArrayList<Path> entries = new ArrayList<Path>();
+        final ArrayList<Long> times = new ArrayList<Long>();
+        ArrayList<Long> lengths = new ArrayList<Long>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+                times.add(Files.getLastModifiedTime(entry).toMillis());
+                lengths.add(Files.size(entry));
+            }
+        }
+
+        ArrayList<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < entries.size(); i++)
+            order.add(i);
+        Collections.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Long.compare(times.get(a), times.get(b));
+            }
+        });
+        for (int i : order)
+            add(entries.get(i), lengths.get(i));
+    }
+
+    /**
+     * Puts an entry in the index as the most recently used one, replacing what it had for it.
+     * @param entry  file of the entry
+     * @param length size of the entry
+     */
+    private void add(Path entry, long length) {
+        Long old = sizes.put(entry, length);
+        totalBytes += length - (old != null ? old : 0);
+    }
+
+    /**
+     * Deletes the least recently used entries until the cache fits under its size cap.
+     * @param keep entry that was just written, which is never deleted
+     */
+    private void evict(Path keep) {
+        Iterator<Map.Entry<Path, Long>> entries = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.hasNext()) {
+            Map.Entry<Path, Long> oldest = entries.next();
+            if (oldest.getKey().equals(keep))
+                continue;
+            delete(oldest.getKey());
+            totalBytes -= oldest.getValue();
+            entries.remove();
+        }
+    }
+
+    /**
+     * Marks an entry as just used.
+     * @param entry file of the entry
+     */
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // only makes it look older to the LRU
+        }
+    }
+
+    private static void delete(Path entry) {
+        try {
+            Files.deleteIfExists(entry);
+        } catch (IOException e) {
+            // it'll be overwritten or evicted later
+        }
+    }
+
+    /**
+     * Returns the cache key of a program: the SHA-256 of its bytes, in hex.
+     * @param source bytes of the program
+     * @return key of the program
+     */
+    static String keyOf(byte[] source) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(source);
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash)
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long crcOf(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Hashes the rules of the grammar.
+     * @return fingerprint of the grammar
+     */
+    private static int fingerprintGrammar() {
+        RuleList rules = new RuleList();
+        int hash = 1;
+        for (int id = 1; id <= rules.size(); id++) {
+            Rule rule = rules.get(id);
+            hash = 31 * hash + (rule.getLhs() + " -> " + rule.getRhs()).hashCode();
+        }
+
+        return hash;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns how many entries were found corrupt or stale (and parsed again).
+     * @return number of rejected entries
+     */
+    public synchronized int getRejected() {
+        return rejected;
+    }
+}
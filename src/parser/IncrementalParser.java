@@ -0,0 +1,270 @@
+package parser;
+
+import lexer.IncrementalLexer;
+import lexer.Symbol;
+import lexer.TokenBuffer;
+import parser.pst.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**         IncrementalParser.java
+ *  Keeps the AST of a program up to date while its text is edited, reparsing only the part an edit touched.
+ *
+ *  The IncrementalLexer patches the tokens and says which ones changed. Every AST node knows the tokens it was
+ *  parsed from and the production it stands for, so the smallest Stmt or BBlock whose tokens cover the change is
+ *  found by walking down from the root. That one non-terminal is parsed again over the new tokens and spliced into
+ *  the tree in place of the old subtree, and the token ranges of the rest of the tree are moved by the change in
+ *  token count. If the new tokens don't parse as exactly that non-terminal (say the edit split one statement in
+ *  two), the next Stmt or BBlock up is tried, and in the end the whole program.
+ *
+ *  While the program has syntax errors its AST is only partial, so every edit reparses the whole program until
+ *  it's clean again.
+ */
+public class IncrementalParser {
+
+    /** Lexer keeping the tokens of the text up to date */
+    private final IncrementalLexer lexer;
+    /** Root of the AST */
+    private Node root;
+    /** Syntax errors of the program, from its last full parse */
+    private List<ParseError> errors;
+
+    /** Statistics of the last edit */
+    private int reparsedTokens;
+    private int reusedTokens;
+    /** Statistics of all the edits */
+    private int subtreeReparses;
+    private int fullReparses;
+    private long totalReparsedTokens;
+    private long totalReusedTokens;
+
+    /**
+     * Parses a text to start editing it.
+     * @param text text of the program
+     */
+    public IncrementalParser(CharSequence text) {
+        lexer = new IncrementalLexer(text);
+        parseAll();
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Applies an edit to the text and brings the AST up to date.
+     * @param offset   index of the first char replaced
+     * @param removed  number of chars removed at the offset
+     * @param inserted text inserted at the offset
+     * @return root of the new subtree that was spliced in (the root of the AST if the whole program was parsed
+     *         again), or null if the edit didn't change any token
+     */
+    public Node edit(int offset, int removed, CharSequence inserted) {
+        TokenBuffer tokens = lexer.edit(offset, removed, inserted);
+        int from = lexer.getChangedFrom();
+        int oldTo = lexer.getChangedOldTo();
+        int delta = lexer.getChangedNewTo() - oldTo;
+
+        if (from == oldTo && delta == 0) {
+            // only whitespace or comments changed
+            count(0, tokens.size());
+            return null;
+        }
+
+        if (errors.isEmpty()) {
+            ArrayList<Node> candidates = candidates(from, oldTo);
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                Node old = candidates.get(i);
+                int start = old.getTokenStart();
+                int end = old.getTokenEnd() + delta;
+
+                Node subtree = new Parser(tokens, start).parseSubtree(old.getProduction());
+                if (subtree != null && subtree.getTokenEnd() == end) {
+                    shift(old, delta);
+                    splice(old, subtree);
+                    subtreeReparses++;
+                    count(end - start, tokens.size() - (end - start));
+                    return subtree;
+                }
+            }
+        }
+
+        parseAll();
+        fullReparses++;
+        count(tokens.size(), 0);
+        return root;
+    }
+
+    /**
+     * Parses the whole program (again).
+     */
+    private void parseAll() {
+        ParseResult result = new Parser(lexer.getTokens()).parseRecovering();
+        root = result.getRoot();
+        errors = result.getErrors();
+    }
+
+    /**
+     * Records the statistics of an edit.
+     * @param reparsed number of tokens parsed again
+     * @param reused   number of tokens whose AST was kept
+     */
+    private void count(int reparsed, int reused) {
+        reparsedTokens = reparsed;
+        reusedTokens = reused;
+        totalReparsedTokens += reparsed;
+        totalReusedTokens += reused;
+    }
+
+    /**
+     * Finds every Stmt and BBlock whose tokens cover the changed tokens, from the root down.
+     * @param from  index of the first changed token
+     * @param oldTo index (before the edit) after the last changed token
+     * @return the covering nodes, outermost first
+     */
+    private ArrayList<Node> candidates(int from, int oldTo) {
+        ArrayList<Node> candidates = new ArrayList<Node>();
+        Node node = root;
+        while (node != null) {
+            Symbol production = node.getProduction();
+            if (production == Symbol.STMT || production == Symbol.BBLOCK)
+                candidates.add(node);
+
+            // at most one child can cover the change, since the children's tokens don't overlap
+            Node next = null;
+            for (Node child : node.getChildren()) {
+                if (child.getTokenStart() <= from && oldTo <= child.getTokenEnd() && child.getTokenStart() >= 0) {
+                    next = child;
+                    break;
+                }
+            }
+            node = next;
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Moves the token ranges of the tree to match the tokens after the edit. Ranges nest, so every other node is
+     * either an ancestor of the subtree being replaced (it grows by the change), entirely after it (it moves), or
+     * entirely before it (it stays, and so does its subtree).
+     * @param replaced subtree being replaced
+     * @param delta    change in the number of tokens
+     */
+    private void shift(Node replaced, int delta) {
+        if (delta == 0)
+            return;
+
+        Set<Node> ancestors = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        for (Node node = replaced.getParent(); node != null; node = node.getParent())
+            ancestors.add(node);
+
+        int replacedEnd = replaced.getTokenEnd();
+        ArrayList<Node> pending = new ArrayList<Node>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            if (ancestors.contains(node))
+                node.setTokenRange(node.getTokenStart(), node.getTokenEnd() + delta);
+            else if (node != replaced && node.getTokenStart() >= replacedEnd)
+                node.setTokenRange(node.getTokenStart() + delta, node.getTokenEnd() + delta);
+            else
+                continue;
+
+            pending.addAll(node.getChildren());
+        }
+    }
+
+    /**
+     * Puts a new subtree in the place of an old one in its parent's children. The old subtree's link to the scope
+     * tree is carried over, so a runner can find which scope to rebuild.
+     * @param old     subtree to replace
+     * @param subtree subtree to put in its place
+     */
+    private void splice(Node old, Node subtree) {
+        Node parent = old.getParent();
+        ArrayList<Node> siblings = parent.getChildren();
+        for (int i = 0; i < siblings.size(); i++) {
+            if (siblings.get(i) == old) {
+                siblings.set(i, subtree);
+                break;
+            }
+        }
+
+        subtree.setParent(parent);
+        subtree.setSctNode(old.getSctNode());
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the syntax errors of the program as of the last edit.
+     * @return errors in the order they were found
+     */
+    public List<ParseError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public CharSequence getText() {
+        return lexer.getText();
+    }
+
+    public TokenBuffer getTokens() {
+        return lexer.getTokens();
+    }
+
+    /**
+     * Returns how many tokens the last edit had to lex again.
+     * @return number of tokens lexed
+     */
+    public int getRelexedTokens() {
+        return lexer.getRelexedCount();
+    }
+
+    /**
+     * Returns how many tokens the last edit had to parse again.
+     * @return number of tokens parsed
+     */
+    public int getReparsedTokens() {
+        return reparsedTokens;
+    }
+
+    /**
+     * Returns how many tokens the last edit kept the AST of.
+     * @return number of tokens not parsed again
+     */
+    public int getReusedTokens() {
+        return reusedTokens;
+    }
+
+    /**
+     * Returns how many edits were handled by reparsing a single Stmt or BBlock.
+     * @return number of subtree reparses
+     */
+    public int getSubtreeReparses() {
+        return subtreeReparses;
+    }
+
+    /**
+     * Returns how many edits needed the whole program parsed again.
+     * @return number of full reparses
+     */
+    public int getFullReparses() {
+        return fullReparses;
+    }
+
+    /**
+     * Returns the share of tokens whose AST was kept, over all the edits so far.
+     * @return reused tokens / (reused + reparsed tokens), or 0 before any edit
+     */
+    public double getReuseRatio() {
+        long total = totalReusedTokens + totalReparsedTokens;
+        return total == 0 ? 0 : (double) totalReusedTokens / total;
+    }
+}
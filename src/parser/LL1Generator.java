@@ -0,0 +1,252 @@
+package parser;
+
+import lexer.Symbol;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**         LL1Generator.java
+ *  Derives the LL(1) parse table from the rules in the RuleList, instead of having it written out by hand.
+ *  Works out which non-terminals can derive eps, then the FIRST and FOLLOW sets of every symbol (as BitSets over
+ *  Symbol ordinals), and puts every rule A -> a in the cells [A, t] for every t in FIRST(a), plus every t in
+ *  FOLLOW(A) if a can derive eps. A cell that gets two rules is an LL(1) conflict; it is reported and keeps the
+ *  rule that comes first in the RuleList.
+ *
+ *  Run main() to print the sets, the table and any conflicts after changing the grammar.
+ */
+public class LL1Generator {
+
+    /** Rules of the grammar */
+    private final ArrayList<Rule> rules;
+    /** Start symbol of the grammar */
+    private final Symbol start;
+    /** [Symbol ordinal] -> TRUE if the symbol can derive eps */
+    private final boolean[] nullable;
+    /** [Symbol ordinal] -> FIRST set of the symbol */
+    private final BitSet[] first;
+    /** [Symbol ordinal] -> FOLLOW set of the symbol */
+    private final BitSet[] follow;
+    /** Messages for the conflicts found while building the table */
+    private final ArrayList<String> conflicts;
+
+    /**
+     * Computes the FIRST and FOLLOW sets of a grammar.
+     * @param ruleList rules of the grammar
+     * @param start    start symbol of the grammar
+     */
+    public LL1Generator(RuleList ruleList, Symbol start) {
+        this.rules = new ArrayList<Rule>();
+        for (int id = 1; id <= ruleList.size(); id++)
+            rules.add(ruleList.get(id));
+
+        this.start = start;
+        nullable = new boolean[Symbol.COUNT];
+        first = new BitSet[Symbol.COUNT];
+        follow = new BitSet[Symbol.COUNT];
+        conflicts = new ArrayList<String>();
+        for (int i = 0; i < Symbol.COUNT; i++) {
+            first[i] = new BitSet(Symbol.COUNT);
+            follow[i] = new BitSet(Symbol.COUNT);
+            if (Symbol.byOrdinal(i).isTerminal())
+                first[i].set(i);
+        }
+
+        computeFirst();
+        computeFollow();
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Builds the LL(1) parse table. Conflicts can be read with getConflicts() afterwards.
+     * @return [Symbol ordinal of STACKTOP][Symbol ordinal of FRONTINPUT] -> Rule, or null for an empty cell
+     */
+    public Rule[][] generate() {
+        Rule[][] table = new Rule[Symbol.COUNT][Symbol.COUNT];
+        conflicts.clear();
+
+        for (Rule rule : rules) {
+            int lhs = rule.getLhsSymbol().ordinal();
+            int[] rhs = rhsOf(rule);
+
+            BitSet fronts = firstOf(rhs, 0);
+            if (nullable(rhs, 0))
+                fronts.or(follow[lhs]);
+
+            for (int front = fronts.nextSetBit(0); front >= 0; front = fronts.nextSetBit(front + 1)) {
+                Rule existing = table[lhs][front];
+                if (existing == null) {
+                    table[lhs][front] = rule;
+                } else {
+                    conflicts.add("LL(1) conflict at [" + rule.getLhs() + ", " + Symbol.byOrdinal(front).getKeyword()
+                            + "]: rule " + existing.getId() + " (" + existing.getRhs() + ") and rule " + rule.getId()
+                            + " (" + rule.getRhs() + ")");
+                }
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Works out the nullable symbols and the FIRST sets, going over the rules until nothing changes.
+     */
+    private void computeFirst() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : rules) {
+                int lhs = rule.getLhsSymbol().ordinal();
+                int[] rhs = rhsOf(rule);
+
+                int before = first[lhs].cardinality();
+                first[lhs].or(firstOf(rhs, 0));
+                if (first[lhs].cardinality() != before)
+                    changed = true;
+
+                if (!nullable[lhs] && nullable(rhs, 0)) {
+                    nullable[lhs] = true;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out the FOLLOW sets, going over the rules until nothing changes.
+     */
+    private void computeFollow() {
+        follow[start.ordinal()].set(Symbol.EOL.ordinal());
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Rule rule : rules) {
+                int lhs = rule.getLhsSymbol().ordinal();
+                int[] rhs = rhsOf(rule);
+
+                for (int i = 0; i < rhs.length; i++) {
+                    if (Symbol.byOrdinal(rhs[i]).isTerminal())
+                        continue;
+
+                    // FOLLOW(X) gets FIRST of what comes after X, and FOLLOW(A) if all of that can derive eps
+                    BitSet set = follow[rhs[i]];
+                    int before = set.cardinality();
+                    set.or(firstOf(rhs, i + 1));
+                    if (nullable(rhs, i + 1))
+                        set.or(follow[lhs]);
+                    if (set.cardinality() != before)
+                        changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the FIRST set of a sequence of symbols.
+     * @param symbols symbol ids
+     * @param from    index of the first symbol of the sequence
+     * @return new BitSet holding FIRST(symbols[from..])
+     */
+    private BitSet firstOf(int[] symbols, int from) {
+        BitSet set = new BitSet(Symbol.COUNT);
+        for (int i = from; i < symbols.length; i++) {
+            set.or(first[symbols[i]]);
+            if (!nullable[symbols[i]])
+                break;
+        }
+
+        return set;
+    }
+
+    /**
+     * Returns if a sequence of symbols can derive eps.
+     * @param symbols symbol ids
+     * @param from    index of the first symbol of the sequence
+     * @return TRUE if every symbol of symbols[from..] is nullable (or there are none)
+     */
+    private boolean nullable(int[] symbols, int from) {
+        for (int i = from; i < symbols.length; i++) {
+            if (!nullable[symbols[i]])
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the symbol ids of the RHS of a rule, in order. An eps rule has none.
+     * @param rule rule to read
+     * @return symbol ids of the RHS
+     */
+    private static int[] rhsOf(Rule rule) {
+        if (rule.isEpsilonRule())
+            return new int[0];
+
+        int[] reversed = rule.getReversedRhsIds();
+        int[] rhs = new int[reversed.length];
+        for (int i = 0; i < reversed.length; i++)
+            rhs[i] = reversed[reversed.length - 1 - i];
+
+        return rhs;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public List<String> getConflicts() {
+        return conflicts;
+    }
+
+    public boolean isNullable(Symbol symbol) {
+        return nullable[symbol.ordinal()];
+    }
+
+    public BitSet getFirst(Symbol symbol) {
+        return (BitSet) first[symbol.ordinal()].clone();
+    }
+
+    public BitSet getFollow(Symbol symbol) {
+        return (BitSet) follow[symbol.ordinal()].clone();
+    }
+
+    // ------------------------------------------------ PRINTING ------------------------------------------------------
+
+    /**
+     * Prints the FIRST/FOLLOW sets and the generated table of the A6 grammar, and any conflicts in it.
+     */
+    public static void main(String args[]) {
+        LL1Generator generator = new LL1Generator(new RuleList(), Symbol.PGM);
+        Rule[][] table = generator.generate();
+
+        for (Symbol symbol : Symbol.values()) {
+            if (symbol.isTerminal())
+                continue;
+
+            System.out.println(symbol.getKeyword() + (generator.isNullable(symbol) ? " (nullable)" : ""));
+            System.out.println("  FIRST  = " + keywords(generator.getFirst(symbol)));
+            System.out.println("  FOLLOW = " + keywords(generator.getFollow(symbol)));
+            for (int front = 0; front < Symbol.COUNT; front++) {
+                Rule rule = table[symbol.ordinal()][front];
+                if (rule != null)
+                    System.out.println("  [" + Symbol.byOrdinal(front).getKeyword() + "] -> " + rule.getId() + ": "
+                            + rule.getRhs());
+            }
+        }
+
+        for (String conflict : generator.getConflicts())
+            System.out.println(conflict);
+        System.out.println(generator.getConflicts().size() + " conflicts");
+    }
+
+    private static String keywords(BitSet set) {
+        StringBuilder str = new StringBuilder("{");
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            if (str.length() > 1)
+                str.append(", ");
+            str.append(Symbol.byOrdinal(i).getKeyword());
+        }
+
+        return str.append("}").toString();
+    }
+}
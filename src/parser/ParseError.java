@@ -0,0 +1,65 @@
+package parser;
+
+import lexer.Symbol;
+
+/**         ParseError.java
+ *  A syntax error found by a Parser that recovers from errors: where it happened, what was on top of the stack,
+ *  which token was at the front of the input, and how many tokens were skipped to get going again.
+ */
+public class ParseError {
+
+    /** Move of the parser that failed ("M2" or "M3"; M2 with eol expected for tokens after the program) */
+    private final String kind;
+    /** Line of the token the error was found at */
+    private final int line;
+    /** Symbol on top of the stack */
+    private final Symbol expected;
+    /** Symbol of the front token (null if it isn't a grammar symbol) */
+    private final Symbol found;
+    /** Value of the front token */
+    private final String value;
+    /** Tokens skipped to resynchronize */
+    private final int skipped;
+
+    ParseError(String kind, int line, Symbol expected, Symbol found, String value, int skipped) {
+        this.kind = kind;
+        this.line = line;
+        this.expected = expected;
+        this.found = found;
+        this.value = value;
+        this.skipped = skipped;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " ERROR at line " + line + ": expected " + expected.getKeyword() + ", found " +
+                (found != null ? found.getKeyword() : "token") + " '" + value + "' (skipped " + skipped +
+                (skipped == 1 ? " token)" : " tokens)");
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public String getKind() {
+        return kind;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public Symbol getExpected() {
+        return expected;
+    }
+
+    public Symbol getFound() {
+        return found;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,41 @@
+package parser;
+
+import parser.pst.Node;
+
+import java.util.Collections;
+import java.util.List;
+
+/**         ParseResult.java
+ *  What a recovering parse gives back: the AST and every syntax error found on the way. If there were errors the
+ *  AST is partial: skipped tokens are missing from it, and symbols the parser gave up on are left in as empty nodes.
+ */
+public class ParseResult {
+
+    /** Root of the (possibly partial) AST */
+    private final Node root;
+    /** Errors in the order they were found */
+    private final List<ParseError> errors;
+
+    ParseResult(Node root, List<ParseError> errors) {
+        this.root = root;
+        this.errors = Collections.unmodifiableList(errors);
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Node getRoot() {
+        return root;
+    }
+
+    public List<ParseError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns if the program had syntax errors, in which case the AST is only partial.
+     * @return TRUE if there were errors
+     */
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
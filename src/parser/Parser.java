@@ -1,42 +1,368 @@
 package parser;
 
+import lexer.DFATokenizer;
+import lexer.Source;
+import lexer.Symbol;
 import lexer.Token;
+import lexer.TokenBuffer;
+import lexer.TokenStream;
 import lexer.Tokenizer;
 import parser.pst.Node;
 import parser.pst.ASTConverter;
+import parser.pst.TreeNode;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Stack;
+import java.util.Arrays;
+import java.util.List;
 
 public class Parser {
 
-    private static Stack<Node> inputStack;
-    private static ArrayList<Token> tokens;
-    private static Node root;
+    /** Initial capacity of the symbol stack */
+    private static final int STACK_CAPACITY = 64;
+    /** Initial capacity of the nodes kept to be used again */
+    private static final int SPARES_CAPACITY = 16;
+
+    /** Symbol stack, with the top at stack[stackSize - 1] */
+    private Node[] stack;
+    /**
+     * [i] TRUE if stack[i] is a node whose production is complete once it's popped (only when building the AST
+     * directly)
+     */
+    private boolean[] reduceMarks;
+    /**
+     * Nodes the conversion of a production threw away (the production's own node, its punctuation and its epsilon
+     * children), which new nodes are made from again (only when building the AST directly)
+     */
+    private Node[] spares;
+    /** Number of nodes in spares */
+    private int spareCount;
+    /** Children of the production being converted, as they were before the conversion */
+    private final Node[] rhs = new Node[4];
+    /** TRUE to convert each production into the AST as it completes, instead of converting the whole PST after */
+    private boolean direct;
+    /** Number of nodes on the symbol stack */
+    private int stackSize;
+    /** LL parse table to parse with */
+    private final ParseTable table;
+    /** Tokens still to be parsed, lexed on demand */
+    private TokenStream input;
+    /** Front of the input (the one token of lookahead) */
+    private Token front;
+    /** Packed tokens to parse, when parsing from a TokenBuffer instead of a TokenStream */
+    private TokenBuffer buffer;
+    /** Index of the front of the input in the buffer */
+    private int cursor;
+    private Node root;
+    /** Errors found so far, when recovering from them (null exits on the first error instead) */
+    private ArrayList<ParseError> errors;
+    /** TRUE to give up on the first error instead of recovering (when parsing a subtree) */
+    private boolean abortOnError;
+
+    /**
+     * Creates a parser that pulls its tokens from a TokenStream as the parse goes.
+     * @param input stream of tokens to parse, ending with the eol token
+     */
+    public Parser(TokenStream input) {
+        this.table = new ParseTable();
+        this.input = input;
+        this.front = input.nextToken();
+    }
+
+    /**
+     * Creates a parser over tokens that have already been packed into a TokenBuffer. Their kinds are read straight
+     * out of the buffer, and token values are only materialized for the nodes that get them.
+     * @param tokens packed tokens, ending with the eol token
+     */
+    public Parser(TokenBuffer tokens) {
+        this(tokens, 0);
+    }
+
+    /**
+     * Creates a parser over packed tokens that starts at a given token instead of the first one.
+     * @param tokens packed tokens, ending with the eol token
+     * @param from   index of the token to start at
+     */
+    public Parser(TokenBuffer tokens, int from) {
+        this.table = new ParseTable();
+        this.buffer = tokens;
+        this.cursor = from;
+    }
 
     public static void main(String args[]) {
-        Node astRoot = getASTRoot(true);
+        Node astRoot;
+        String mode = args.length > 0 ? args[0] : "";
+        if (mode.equals("-packed") || mode.equals("-direct")) {
+            DFATokenizer tokenizer = new DFATokenizer("program.txt");
+            if (!tokenizer.isReady()) {
+                System.out.println("The tokenizer really failed...");
+                System.exit(1);
+            }
+            // -direct skips the PST and builds the AST in one pass
+            try {
+                astRoot = getASTRoot(tokenizer.tokenizePacked(), mode.equals("-packed"));
+            } catch (SyntaxErrorException e) {
+                for (ParseError error : e.getErrors())
+                    System.out.println(error);
+                System.exit(1);
+                return;
+            }
+        } else {
+            astRoot = getASTRoot(true);
+        }
         printTree(astRoot, 0);
     }
 
     public static Node getASTRoot(boolean printPST) {
-        ParseTable table = init();
-        if (table == null) {
+        Tokenizer tokenizer = new Tokenizer("program.txt");
+        if (!tokenizer.isReady()) {
             System.out.println("The tokenizer really failed...");
             System.exit(1);
         }
 
-        while(!inputStack.empty()) {
-            String stackTop = inputStack.peek().getKeyword();
-            String inputFront = tokens.get(0).getGrammar().getKeyword();
-            //System.out.println("TOP = " + stackTop + "   FRONT = " + inputFront);
+        return new Parser(tokenizer).parse(printPST);
+    }
+
+    /**
+     * Parses tokens that have already been packed into a TokenBuffer. Unless the PST is printed, the AST is built
+     * directly in the same pass. Syntax errors are recovered from, so every one of them is reported.
+     * @param tokens   packed tokens, ending with the eol token
+     * @param printPST TRUE to print the parse tree (partial, if there are errors) before converting it
+     * @return root of the AST
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public static Node getASTRoot(TokenBuffer tokens, boolean printPST) throws SyntaxErrorException {
+        Parser parser = new Parser(tokens);
+        parser.errors = new ArrayList<ParseError>();
+
+        // the PST only exists as a whole if it has to be printed
+        Node astRoot = printPST ? parser.parse(true) : parser.parseDirect();
+        if (!parser.errors.isEmpty())
+            throw new SyntaxErrorException(parser.errors);
+
+        return astRoot;
+    }
+
+    /**
+     * Lexes (with the DFATokenizer) and parses a source that is already in memory or memory-mapped. Unless the PST
+     * is printed, the AST is built directly in the same pass.
+     * @param source   source to parse
+     * @param printPST TRUE to print the parse tree before converting it
+     * @return root of the AST
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public static Node getASTRoot(Source source, boolean printPST) throws SyntaxErrorException {
+        return getASTRoot(new DFATokenizer(source).tokenizePacked(), printPST);
+    }
+
+    /**
+     * Parses program text held in memory.
+     * @param text text of the program
+     * @return root of the AST
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public static Node parse(CharSequence text) throws SyntaxErrorException {
+        return getASTRoot(Source.of(text), false);
+    }
+
+    /**
+     * Parses everything that can be read from a Reader. The Reader is not closed.
+     * @param reader Reader to read the program from
+     * @return root of the AST
+     * @throws IOException if the Reader fails
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public static Node parse(Reader reader) throws IOException, SyntaxErrorException {
+        return getASTRoot(Source.read(reader), false);
+    }
+
+    /**
+     * Parses a file, memory-mapping it instead of reading it through a stream.
+     * @param path file to parse
+     * @return root of the AST
+     * @throws IOException if the file can't be opened or mapped
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public static Node parse(Path path) throws IOException, SyntaxErrorException {
+        return getASTRoot(Source.map(path), false);
+    }
+
+    /**
+     * Parses encoded program bytes, decoded with the platform charset.
+     * @param bytes bytes of the program, from their position to their limit
+     * @return root of the AST
+     * @throws SyntaxErrorException if the program has syntax errors
+     */
+    public static Node parse(ByteBuffer bytes) throws SyntaxErrorException {
+        return getASTRoot(Source.of(bytes), false);
+    }
 
-            if (stackTop.equals(inputFront) || stackTop.equals("$")) {
+    /**
+     * Parses program text held in memory, recovering from syntax errors instead of exiting.
+     * @param text text of the program
+     * @return the (possibly partial) AST and every syntax error in the program
+     */
+    public static ParseResult parseRecovering(CharSequence text) {
+        return new Parser(new DFATokenizer(Source.of(text)).tokenizePacked()).parseRecovering();
+    }
+
+    /**
+     * Lexes and parses many programs in one call, without going through the filesystem. A program with syntax
+     * errors doesn't stop the batch: its result holds the errors and a partial AST.
+     * @param texts texts of the programs
+     * @return AST and syntax errors of each program, in the same order
+     */
+    public static List<ParseResult> parseAll(List<? extends CharSequence> texts) {
+        ArrayList<ParseResult> results = new ArrayList<ParseResult>(texts.size());
+        for (CharSequence text : texts)
+            results.add(parseRecovering(text));
+
+        return results;
+    }
+
+    /**
+     * Splits tokens holding many programs one after the other (like modified.txt) into one buffer per program.
+     * A program starts at every kprog outside of braces. Anything before the first kprog is kept with the first
+     * program, so the parser still reports it. Every buffer ends with the eol token.
+     * @param tokens packed tokens, ending with the eol token
+     * @return tokens of each program, in source order
+     */
+    public static List<TokenBuffer> splitUnits(TokenBuffer tokens) {
+        int end = tokens.size() - 1;
+        int kprog = Symbol.KPROG.ordinal();
+        int brace1 = Symbol.BRACE1.ordinal();
+        int brace2 = Symbol.BRACE2.ordinal();
+
+        ArrayList<TokenBuffer> units = new ArrayList<TokenBuffer>();
+        int depth = 0;
+        int unitStart = 0;
+        boolean unitHasKprog = false;
+        for (int i = 0; i < end; i++) {
+            int kind = tokens.getKind(i);
+            if (kind == brace1) {
+                depth++;
+            } else if (kind == brace2) {
+                depth = Math.max(depth - 1, 0);
+            } else if (kind == kprog && depth == 0) {
+                if (unitHasKprog) {
+                    units.add(unit(tokens, unitStart, i));
+                    unitStart = i;
+                }
+                unitHasKprog = true;
+            }
+        }
+        units.add(unit(tokens, unitStart, end));
+
+        return units;
+    }
+
+    /**
+     * Copies tokens [from, to) into a buffer of their own, followed by the eol token.
+     */
+    private static TokenBuffer unit(TokenBuffer tokens, int from, int to) {
+        TokenBuffer unit = new TokenBuffer(tokens.getText(), to - from + 1);
+        unit.append(tokens, from, to);
+        unit.append(tokens, tokens.size() - 1, tokens.size());
+        return unit;
+    }
+
+    /**
+     * Runs the LL parse over the input and converts the result into an AST. A Parser can only parse once.
+     * @param printPST TRUE to print the parse tree before converting it
+     * @return root of the AST
+     */
+    public Node parse(boolean printPST) {
+        direct = false;
+        run(Symbol.PGM);
+
+        if (printPST)
+            printTree(root, 0);
+
+        return ASTConverter.convert(root);
+    } // end parse
+
+    /**
+     * Runs the LL parse over the input, building the AST in the same pass. Each production is run through the
+     * ASTConverter as soon as it completes (which happens bottom up), so the whole PST is never walked again.
+     * The AST is the same as the one parse() returns. A Parser can only parse once.
+     * @return root of the AST
+     */
+    public Node parseDirect() {
+        direct = true;
+        run(Symbol.PGM);
+
+        Node astRoot = ASTConverter.reduceRoot(root);
+        tag(astRoot, root);
+        return astRoot;
+    }
+
+    /**
+     * Parses one non-terminal out of packed tokens, from the token the parser was created at, building its AST
+     * directly. Used to reparse part of a program: the subtree comes out the same as it would inside a parse of
+     * the whole program. The tokens after it are only looked at as lookahead.
+     * @param start non-terminal to parse
+     * @return AST of the non-terminal, or null if it has a syntax error
+     */
+    public Node parseSubtree(Symbol start) {
+        direct = true;
+        errors = new ArrayList<ParseError>();
+        abortOnError = true;
+        run(start);
+        if (!errors.isEmpty())
+            return null;
+
+        Node subtree = ASTConverter.reduce(root);
+        tag(subtree, root);
+        return subtree;
+    }
+
+    /**
+     * Runs the LL parse over the input like parseDirect(), but reports syntax errors instead of exiting on the
+     * first one. After an error it skips ahead to a semi, brace2 or a token that can follow the symbol it failed
+     * on, and goes on from there, so one bad statement costs only that statement. Tokens left over after the
+     * program are reported as well. A Parser can only parse once.
+     * @return the (possibly partial) AST and every syntax error found
+     */
+    public ParseResult parseRecovering() {
+        errors = new ArrayList<ParseError>();
+        Node astRoot = parseDirect();
+
+        return new ParseResult(astRoot, errors);
+    }
+
+    /**
+     * Runs the LL parse loop until the stack is empty.
+     * @param start symbol to start the stack with
+     */
+    private void run(Symbol start) {
+        // SETUP : start the parser
+        stack = new Node[STACK_CAPACITY];
+        reduceMarks = new boolean[STACK_CAPACITY];
+        stackSize = 0;
+        if (direct)
+            spares = new Node[SPARES_CAPACITY];
+        root = new TreeNode(start);
+        push(root, false);
+
+        while (stackSize > 0) {
+            if (reduceMarks[stackSize - 1]) {
+                reduce(pop());
+                continue;
+            }
+
+            Symbol stackTop = stack[stackSize - 1].getSymbol();
+            int inputFront = frontKind();
+            //System.out.println("TOP = " + stackTop + "   FRONT = " + Symbol.byOrdinal(inputFront));
+
+            if (stackTop.ordinal() == inputFront) {
                 m1();
             } else if (m2(stackTop)) {
                 error("M2");
             } else {
-                Rule rule = table.get(stackTop, inputFront);
+                Rule rule = table.get(stackTop.ordinal(), inputFront);
                 // M3 : empty cell == ERROR
                 if (m3(rule)) {
                     error("M3");
@@ -46,52 +372,207 @@ public class Parser {
             } // end if/elseif/else
         } // end while
 
-        if (printPST)
-            printTree(root, 0);
+        if (errors != null && !abortOnError && frontKind() != Symbol.EOL.ordinal())
+            trailingInput();
+    }
 
-        return ASTConverter.convert(root);
-    } // end main
+    /**
+     * Records the tokens left over once the whole program has been parsed as an error (the stack's bottom symbol
+     * is eol, which they don't match), and skips them.
+     */
+    private void trailingInput() {
+        int kind = frontKind();
+        int line = frontLine();
+        String value = frontValue();
+        int skipped = 0;
+        while (frontKind() != Symbol.EOL.ordinal()) {
+            advance();
+            skipped++;
+        }
+
+        errors.add(new ParseError("M2", line, Symbol.EOL, kind >= 0 ? Symbol.byOrdinal(kind) : null, value,
+                skipped));
+    }
 
     /**
-     * Initializes the LL Parse table to read from.
-     * @return ParseTable object containing the LL Parse table.
+     * Replaces a node whose production has completed with its converted AST node, in its parent's children, and
+     * keeps the nodes the conversion threw away for newNode() to use again. Most of a PST is such nodes (an id in an
+     * Expr is 9 nodes deep), so this way a direct parse makes little more than the nodes of the AST.
+     * The root is left for parseDirect() to convert.
+     * @param node node whose production has completed
      */
-    private static ParseTable init() {
-        Tokenizer tokenizer = new Tokenizer("program.txt");
+    private void reduce(Node node) {
+        Node parent = node.getParent();
+        if (parent == null)
+            return;
 
-        if (tokenizer.isReady())
-            tokens = tokenizer.tokenize();
+        ArrayList<Node> children = node.getChildren();
+        int size = children.size();
+        for (int i = 0; i < size; i++)
+            rhs[i] = children.get(i);
 
-        if (tokens == null || tokens.isEmpty())
-            return null;
+        ArrayList<Node> siblings = parent.getChildren();
+        for (int i = 0; i < siblings.size(); i++) {
+            if (siblings.get(i) == node) {
+                Node converted = ASTConverter.reduce(node);
+                tag(converted, node);
+                siblings.set(i, converted);
 
-        // SETUP : start the parser
-        inputStack = new Stack<Node>();
-        root = new Node("Pgm");
-        inputStack.push(root);
+                // a child is still in the AST if it was hoisted, or moved under a node that kept it
+                for (int j = 0; j < size; j++) {
+                    Node child = rhs[j];
+                    Node holder = child.getParent();
+                    if (child != converted && (holder == node || !holder.getChildren().contains(child)))
+                        spare(child);
+                }
+                if (converted != node)
+                    spare(node);
+                break;
+            }
+        }
+        Arrays.fill(rhs, 0, size, null);
+    }
+
+    /**
+     * Keeps a node the conversion threw away, to make a new node from.
+     * @param node node that is no longer in the tree
+     */
+    private void spare(Node node) {
+        if (spareCount == spares.length)
+            spares = Arrays.copyOf(spares, spareCount * 2);
+        node.getChildren().clear();
+        spares[spareCount++] = node;
+    }
+
+    /**
+     * Makes a new node of a symbol, out of a node the conversion threw away if there is one.
+     * @param symbol    grammar symbol of the node
+     * @return new childless node
+     */
+    private Node newNode(Symbol symbol) {
+        if (spareCount == 0)
+            return new TreeNode(symbol);
+
+        Node node = spares[--spareCount];
+        spares[spareCount] = null;
+        node.reset(symbol);
+        return node;
+    }
+
+    /**
+     * Gives the AST node a production was converted into the tokens of the production, which ends at the front
+     * of the input.
+     * @param converted AST node the production was converted into
+     * @param node      PST node of the production, holding the index of its first token
+     */
+    private void tag(Node converted, Node node) {
+        if (buffer != null) {
+            converted.setTokenRange(node.getTokenStart(), cursor);
+            converted.setProduction(node.getSymbol());
+        }
+    }
+
+    private void push(Node node, boolean reduceMark) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+            reduceMarks = Arrays.copyOf(reduceMarks, stackSize * 2);
+        }
+        reduceMarks[stackSize] = reduceMark;
+        stack[stackSize++] = node;
+    }
+
+    private Node pop() {
+        Node node = stack[--stackSize];
+        stack[stackSize] = null;
+        return node;
+    }
+
+    /**
+     * Returns the kind (Symbol ordinal) of the token at the front of the input.
+     * @return kind of the front token, or -1 if the token has no grammar symbol
+     */
+    private int frontKind() {
+        if (buffer != null)
+            return buffer.getKind(cursor);
+
+        Symbol symbol = front.getSymbol();
+        return symbol != null ? symbol.ordinal() : -1;
+    }
+
+    /**
+     * Returns the line of the token at the front of the input.
+     * @return line of the front token
+     */
+    private int frontLine() {
+        return buffer != null ? buffer.getLine(cursor) : front.getLineNum();
+    }
 
-        return new ParseTable();
+    /**
+     * Returns the value of the token at the front of the input.
+     * @return value of the front token
+     */
+    private String frontValue() {
+        return buffer != null ? buffer.getValue(cursor) : front.getValue();
+    }
+
+    /**
+     * Moves on to the next token of the input, staying on the eol token once it's reached.
+     */
+    private void advance() {
+        if (buffer != null) {
+            if (cursor < buffer.size() - 1)
+                cursor++;
+        } else if (frontKind() != Symbol.EOL.ordinal()) {
+            front = input.nextToken();
+        }
     }
 
     /**
      * Pops the node at the top of the stack and adds the value of the front of the input stream
-     * only if it is a id, int, string, etc.
+     * only if it is a id, int, string, etc. Then pulls the next token in as the new front.
+     */
+    private void m1() {
+        Node poppedNode = pop();
+
+        if (buffer != null) {
+            poppedNode.setValue(buffer.getValue(cursor));
+            decodeNumber(poppedNode);
+            poppedNode.setTokenRange(cursor, cursor + 1);
+        } else {
+            poppedNode.setValue(front.getValue());
+            if (front.hasNumber())
+                poppedNode.setNumber(front.getInteger(), front.getNumber());
+        }
+        advance();
+    }
+
+    /**
+     * Copies the number payload of the int/float token at the front of the buffer into its node.
+     * Values that don't parse (like 1.2.3) are left without a payload.
+     * @param node node of the front token
      */
-    private static void m1() {
-        Node poppedNode = inputStack.pop();
-        Token poppedToken = tokens.remove(0);
+    private void decodeNumber(Node node) {
+        int kind = buffer.getKind(cursor);
+        if (kind != Symbol.INT.ordinal() && kind != Symbol.FLOAT.ordinal())
+            return;
 
-        poppedNode.setValue(poppedToken.getValue());
+        try {
+            double number = buffer.getNumber(cursor);
+            long integer = kind == Symbol.INT.ordinal() ? buffer.getInteger(cursor) : (long) number;
+            node.setNumber(integer, number);
+        } catch (NumberFormatException e) {
+            // leave it to whoever uses the value
+        }
     }
 
     /**
      * Returns if the top of the stack is a temrinal symbol.
      * @param top       top of the symbol stack
      * @return      TRUE: when the top of the stack is a terminal symbol
-     *              FALSE: when top is an empty string, or it is not terminal
+     *              FALSE: when it is not terminal
      */
-    private static boolean m2(String top) {
-        return !top.isEmpty() && Character.isLowerCase(top.charAt(0));
+    private boolean m2(Symbol top) {
+        return top.isTerminal();
     }
 
     /**
@@ -99,7 +580,7 @@ public class Parser {
      * @param rule  rule to test
      * @return      TRUE if null, FALSE if not.
      */
-    private static boolean m3(Rule rule) {
+    private boolean m3(Rule rule) {
         return rule == null;
     }
 
@@ -108,30 +589,118 @@ public class Parser {
      * Pushes the reversed of the RHS of the rule if it is a matching rule.
      * @param rule      rule to test
      */
-    private static void m4(Rule rule) {
+    private void m4(Rule rule) {
         // if the rule we get from the table is an epsilon rule, just pop it off the stack and move on
         if (rule.isEpsilonRule()) {
-            inputStack.pop();
+            pop();
         } else {
             // M4: pop stack + reversed RHS onto stack
-            Node parent = inputStack.pop();
+            Node parent = pop();
+            if (direct) { // convert the parent once everything in its RHS has been popped
+                push(parent, true);
+                if (buffer != null)
+                    parent.setTokenRange(cursor, -1);
+            }
 
-            String[] reversed = rule.getReversedRhsArray();
-            for (String keyword : reversed) {
-                Node child = new Node(keyword);
+            int[] reversed = rule.getReversedRhsIds();
+            for (int id : reversed) {
+                Node child = newNode(Symbol.byOrdinal(id));
                 parent.addChild(child);
-                inputStack.push(child);
+                push(child, false);
             }
         }
     }
 
     /**
-     * Simple error function.
+     * Simple error function. Exits, unless the parser is recovering from errors (it only isn't when parsing
+     * program.txt for the command line, through getASTRoot(boolean)).
      * @param errorLoc String (usually m1-m4).
      */
-    private static void error(String errorLoc) {
-        System.out.println(errorLoc + " ERROR.");
-        System.exit(1);
+    private void error(String errorLoc) {
+        if (errors == null) {
+            System.out.println(errorLoc + " ERROR.");
+            System.exit(1);
+        }
+
+        if (abortOnError) {
+            errors.add(new ParseError(errorLoc, frontLine(), stack[stackSize - 1].getSymbol(),
+                    frontKind() >= 0 ? Symbol.byOrdinal(frontKind()) : null, frontValue(), 0));
+            Arrays.fill(stack, 0, stackSize, null);
+            stackSize = 0;
+            return;
+        }
+
+        recover(errorLoc);
+    }
+
+    /**
+     * Panic-mode recovery. Records the error, then skips input until the front token is one the top of the stack
+     * can use, a semi, a brace2, eol, or a token in FOLLOW of the top. Then pops the stack (finishing productions
+     * on the way, like the parse loop would) down to the first symbol that can go on from that token. If nothing
+     * on the stack can, that token is skipped too and the search starts over; at eol the whole stack is popped.
+     * @param errorLoc move of the parser that failed
+     */
+    private void recover(String errorLoc) {
+        Symbol expected = stack[stackSize - 1].getSymbol();
+        int kind = frontKind();
+        int line = frontLine();
+        String value = frontValue();
+        int skipped = 0;
+
+        int top = expected.ordinal();
+        while (!canContinue(top, frontKind()) && !isSync(frontKind()) && !table.follows(top, frontKind())) {
+            advance();
+            skipped++;
+        }
+
+        int target;
+        while ((target = findContinuation(frontKind())) < 0 && frontKind() != Symbol.EOL.ordinal()) {
+            advance();
+            skipped++;
+        }
+
+        while (stackSize - 1 > target) {
+            boolean reduceMark = reduceMarks[stackSize - 1];
+            Node node = pop();
+            if (reduceMark)
+                reduce(node);
+        }
+
+        errors.add(new ParseError(errorLoc, line, expected, kind >= 0 ? Symbol.byOrdinal(kind) : null, value,
+                skipped));
+    }
+
+    /**
+     * Finds the symbol nearest the top of the stack that the parse can go on from with the given front token.
+     * @param front kind of the front token
+     * @return index in the stack of that symbol, or -1 if there's none
+     */
+    private int findContinuation(int front) {
+        for (int i = stackSize - 1; i >= 0; i--) {
+            if (!reduceMarks[i] && canContinue(stack[i].getSymbol().ordinal(), front))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns if a symbol on top of the stack can match or be expanded with the given front token.
+     * @param top   Symbol ordinal of the top of the stack
+     * @param front kind of the front token
+     * @return TRUE if the parse can go on
+     */
+    private boolean canContinue(int top, int front) {
+        return top == front || table.get(top, front) != null;
+    }
+
+    /**
+     * Returns if a token ends what recovery skips over: the end of a statement, of a block, or of the input.
+     * @param front kind of the front token
+     * @return TRUE if the token is a synchronizing token
+     */
+    private static boolean isSync(int front) {
+        return front == Symbol.SEMI.ordinal() || front == Symbol.BRACE2.ordinal() || front == Symbol.EOL.ordinal();
     }
 
     /**
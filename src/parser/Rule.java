@@ -1,5 +1,7 @@
 package parser;
 
+import lexer.Symbol;
+
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -9,23 +11,50 @@ public class Rule {
     private int id;
     private String lhs;
     private String rhs;
+    private Symbol lhsSymbol;
+    /** Symbol ids (ordinals) of the RHS in reverse order, worked out once so expanding the rule doesn't split rhs */
+    private int[] reversedRhsIds;
+    private boolean epsilon;
 
     public Rule(int id, String lhs, String rhs) {
         this.id = id;
         this.lhs = lhs;
-        this.rhs = rhs;
+        this.lhsSymbol = Symbol.of(lhs);
+        setRhs(rhs);
+    }
+
+    /**
+     * Turns the RHS into symbol ids, in reverse order (the order they get pushed onto the parse stack).
+     * @param rhs RHS of the rule
+     * @return symbol ids of the RHS, last symbol first
+     */
+    private static int[] compileReversedRhs(String rhs) {
+        String[] keywords = rhs.trim().split(" ");
+        int[] ids = new int[keywords.length];
+        for (int i = 0; i < keywords.length; i++)
+            ids[keywords.length - 1 - i] = Symbol.of(keywords[i]).ordinal();
+
+        return ids;
     }
 
     // ------------------- GETTERS / SETTERS -----------------------
     public boolean isEpsilonRule() {
-        return rhs.equals("eps");
+        return epsilon;
     }
 
     public String[] getReversedRhsArray() {
         List<String> list = Arrays.asList(rhs.trim().split(" "));
         Collections.reverse(list);
 
-        return (String[]) list.toArray();
+        return list.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the symbol ids (ordinals) of the RHS in reverse order. The array is shared, so it must not be changed.
+     * @return symbol ids of the RHS, last symbol first
+     */
+    public int[] getReversedRhsIds() {
+        return reversedRhsIds;
     }
 
     public int getId() {
@@ -42,6 +71,11 @@ public class Rule {
 
     public void setLhs(String lhs) {
         this.lhs = lhs;
+        this.lhsSymbol = Symbol.of(lhs);
+    }
+
+    public Symbol getLhsSymbol() {
+        return lhsSymbol;
     }
 
     public String getRhs() {
@@ -50,5 +84,7 @@ public class Rule {
 
     public void setRhs(String rhs) {
         this.rhs = rhs;
+        this.epsilon = rhs.equals("eps");
+        this.reversedRhsIds = compileReversedRhs(rhs);
     }
 }
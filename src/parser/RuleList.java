@@ -27,6 +27,14 @@ public class RuleList {
         return rules[ruleId - 1];
     }
 
+    /**
+     * Returns the number of rules. Rule ids run from 1 to size().
+     * @return number of rules
+     */
+    public int size() {
+        return rules.length;
+    }
+
     /**
      * Fills the 2D array with rules given by the A6 Grammar.
      */
@@ -37,7 +45,7 @@ public class RuleList {
         rules[1] = new Rule(2, "BBlock", "brace1 Vargroup Stmts brace2");
         rules[2] = new Rule(3, "Vargroup", "kwdvars PPvarlist");
         rules[3] = new Rule(4, "Vargroup", "eps");
-        rules[4] = new Rule(5, "PPvarlist", "parens1 Varlist, parens2");
+        rules[4] = new Rule(5, "PPvarlist", "parens1 Varlist parens2");
         rules[5] = new Rule(6, "Varlist", "Vardecl semi Varlist");
         rules[6] = new Rule(7, "Varlist", "eps");
         rules[7] = new Rule(8, "Vardecl", "Basekind Varid");
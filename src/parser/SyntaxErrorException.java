@@ -0,0 +1,26 @@
+package parser;
+
+import java.util.List;
+
+/**         SyntaxErrorException.java
+ *  Thrown where a program has to parse cleanly but has syntax errors. It carries every error a recovering parse
+ *  (Parser.parseRecovering()) found, in the order they were found.
+ */
+public class SyntaxErrorException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Errors of the program (not serialized, ParseError isn't Serializable) */
+    private final transient List<ParseError> errors;
+
+    public SyntaxErrorException(List<ParseError> errors) {
+        super(errors.size() + (errors.size() == 1 ? " syntax error, " : " syntax errors, first: ") + errors.get(0));
+        this.errors = errors;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public List<ParseError> getErrors() {
+        return errors;
+    }
+}
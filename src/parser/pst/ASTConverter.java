@@ -10,16 +10,46 @@ public class ASTConverter {
      * @return  Node whose self and children have already been fixed/hoisted.
      */
     public static Node convert(Node root) {
+        convertChildren(root);
+        return reduceRoot(root);
+    }
+
+    /**
+     * Helper of convert()
+     *
+     * Recursively converts every child of the given node, bottom up, and puts the converted child in its place.
+     * @param root the node whose children to convert
+     */
+    private static void convertChildren(Node root) {
         if (root != null) {
             ArrayList<Node> children = root.getChildren();
             for (int i = 0; i < children.size(); i++) {
-                Node fixedChild = convert(children.get(i));
-                // remove unnecessary rules that may exist after.
-                fixedChild.getChildren().removeIf(Node::isEpsilonRule);
-                fixedChild = fixExtra(fixedChild);
-                children.set(i, fixedChild);
+                Node child = children.get(i);
+                convertChildren(child);
+                children.set(i, reduce(child));
             }
         }
+    }
+
+    /**
+     * Converts a node whose children have all been converted already, for when it is the child of another node.
+     * The parser calls this as each production completes when it builds the AST directly.
+     * @param node  PST node whose children are converted
+     * @return  Node that takes its place in its parent's children.
+     */
+    public static Node reduce(Node node) {
+        Node fixedChild = fix(node);
+        // remove unnecessary rules that may exist after.
+        fixedChild.getChildren().removeIf(Node::isEpsilonRule);
+        return fixExtra(fixedChild);
+    }
+
+    /**
+     * Converts the root of the tree, once its children have all been converted.
+     * @param root  root of the PST
+     * @return  root of the AST.
+     */
+    public static Node reduceRoot(Node root) {
         return fix(root);
     }
 
@@ -0,0 +1,306 @@
+package parser.pst;
+
+import lexer.Symbol;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**         ASTSerializer.java
+ *  Turns a tree of Nodes into a compact stream of bytes and back. Layout (every number is an unsigned LEB128 varint):
+ *
+ *      version
+ *      pool size, then every pooled String as (UTF-8 length, UTF-8 bytes)
+ *      nodes in pre-order, each as:
+ *          head            (kind << 5) | (has production << 4) | (has token range << 3) | (number kind << 1)
+ *                          | (has value)
+ *                          kind is the Symbol ordinal + 1, or 0 for a keyword that isn't a grammar symbol
+ *          [keyword]       pool index, only for kind 0
+ *          [value]         pool index, only if it has a value
+ *          [number]        number kind 1: the integer (zig-zag), the double being the same value
+ *                          number kind 2: the integer (zig-zag), then the 8 bytes of the double
+ *          [token range]   first token (zig-zag, relative to the parent's first token), then the number of
+ *                          tokens, only if the node has a range
+ *          [production]    Symbol ordinal of the production, only if it has one
+ *          child count
+ *
+ *  Every distinct value and keyword is stored once in the pool, so ids that show up all over a program cost one or
+ *  two bytes per use. Reading works straight off a ByteBuffer (heap or direct, e.g. a mapped file) without copying
+ *  it first, and decodes each pooled String once. Neither direction recurses, since statement lists make trees as
+ *  deep as they are long.
+ */
+public class ASTSerializer {
+
+    /** Version of the format, bumped whenever it changes */
+    public static final int VERSION = 3;
+
+    /** Number kinds */
+    private static final int NO_NUMBER = 0;
+    /** The double is exactly the integer, so only the integer is written */
+    private static final int INTEGER_NUMBER = 1;
+    private static final int FULL_NUMBER = 2;
+
+    /**
+     * Writes a tree into bytes.
+     * @param root root of the tree
+     * @return serialized tree
+     */
+    public static byte[] serialize(Node root) {
+        HashMap<String, Integer> poolIndex = new HashMap<String, Integer>();
+        ArrayList<String> pool = new ArrayList<String>();
+        Output nodes = new Output(256);
+
+        ArrayList<Node> pending = new ArrayList<Node>();
+        // first token of the parent of each pending node, which its own is written relative to
+        int[] pendingBases = new int[16];
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            int base = pendingBases[pending.size()];
+
+            Symbol symbol = node.getSymbol();
+            String value = node.getValue();
+            boolean hasValue = value != null && !value.isEmpty();
+            int numberKind = NO_NUMBER;
+            if (node.hasNumber())
+                numberKind = (double) node.getInteger() == node.getNumber() ? INTEGER_NUMBER : FULL_NUMBER;
+
+            boolean hasRange = node.getTokenStart() != -1;
+            Symbol production = node.getProduction();
+
+            int kind = symbol != null ? symbol.ordinal() + 1 : 0;
+            nodes.writeVarint((kind << 5) | (production != null ? 1 << 4 : 0) | (hasRange ? 1 << 3 : 0) |
+                    (numberKind << 1) | (hasValue ? 1 : 0));
+            if (kind == 0)
+                nodes.writeVarint(pooled(node.getKeyword(), pool, poolIndex));
+            if (hasValue)
+                nodes.writeVarint(pooled(value, pool, poolIndex));
+            if (numberKind != NO_NUMBER)
+                nodes.writeVarlong(zigZag(node.getInteger()));
+            if (numberKind == FULL_NUMBER)
+                nodes.writeLong(Double.doubleToRawLongBits(node.getNumber()));
+            if (hasRange) {
+                nodes.writeVarlong(zigZag(node.getTokenStart() - base));
+                nodes.writeVarint(node.getTokenEnd() - node.getTokenStart());
+                base = node.getTokenStart();
+            }
+            if (production != null)
+                nodes.writeVarint(production.ordinal());
+
+            ArrayList<Node> children = node.getChildren();
+            nodes.writeVarint(children.size());
+            if (pending.size() + children.size() > pendingBases.length)
+                pendingBases = Arrays.copyOf(pendingBases, (pending.size() + children.size()) * 2);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pendingBases[pending.size()] = base;
+                pending.add(children.get(i));
+            }
+        }
+
+        Output out = new Output(nodes.size() + pool.size() * 8 + 8);
+        out.writeVarint(VERSION);
+        out.writeVarint(pool.size());
+        for (String string : pool) {
+            byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            out.writeVarint(utf8.length);
+            out.write(utf8, 0, utf8.length);
+        }
+        out.write(nodes.buffer(), 0, nodes.size());
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a tree back out of bytes made by serialize().
+     * @param bytes serialized tree
+     * @return root of the tree, with every parent set
+     * @throws IOException if the bytes are cut short or aren't a serialized tree
+     */
+    public static Node deserialize(byte[] bytes) throws IOException {
+        return deserialize(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads a tree out of a buffer, from its position to its limit, without copying the buffer. The buffer's
+     * position is moved past the tree.
+     * @param in serialized tree
+     * @return root of the tree, with every parent set
+     * @throws IOException if the bytes are cut short or aren't a serialized tree
+     */
+    public static Node deserialize(ByteBuffer in) throws IOException {
+        try {
+            int version = readVarint(in);
+            if (version != VERSION)
+                throw new IOException("Can't read version " + version + " of the AST format");
+
+            String[] pool = new String[readVarint(in)];
+            for (int i = 0; i < pool.length; i++)
+                pool[i] = readString(in, readVarint(in));
+
+            // nodes still waiting for children, how many children each is still waiting for, and the first token
+            // their children's are relative to
+            Node[] parents = new Node[16];
+            int[] remaining = new int[16];
+            int[] bases = new int[16];
+            int depth = 0;
+            Node root = null;
+            do {
+                int base = depth > 0 ? bases[depth - 1] : 0;
+                Node node = readNode(in, pool, base);
+                int childCount = readVarint(in);
+
+                if (root == null) {
+                    root = node;
+                } else {
+                    parents[depth - 1].addChild(node);
+                    if (--remaining[depth - 1] == 0)
+                        depth--;
+                }
+
+                if (childCount > 0) {
+                    if (depth == parents.length) {
+                        parents = Arrays.copyOf(parents, depth * 2);
+                        remaining = Arrays.copyOf(remaining, depth * 2);
+                        bases = Arrays.copyOf(bases, depth * 2);
+                    }
+                    parents[depth] = node;
+                    remaining[depth] = childCount;
+                    bases[depth] = node.getTokenStart() != -1 ? node.getTokenStart() : base;
+                    depth++;
+                }
+            } while (depth > 0);
+
+            if (in.hasRemaining())
+                throw new IOException("Trailing bytes after the tree");
+            return root;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Serialized tree is cut short or corrupt", e);
+        }
+    }
+
+    private static Node readNode(ByteBuffer in, String[] pool, int base) throws IOException {
+        int head = readVarint(in);
+        int kind = head >>> 5;
+        int numberKind = (head >>> 1) & 3;
+        if (kind > Symbol.COUNT || numberKind > FULL_NUMBER)
+            throw new IOException("Bad node head " + head);
+
+        Node node = kind > 0 ? new TreeNode(Symbol.byOrdinal(kind - 1)) : new TreeNode(pool[readVarint(in)]);
+        if ((head & 1) != 0)
+            node.setValue(pool[readVarint(in)]);
+        if (numberKind != NO_NUMBER) {
+            long integer = unZigZag(readVarlong(in));
+            double number = numberKind == FULL_NUMBER ? Double.longBitsToDouble(in.getLong()) : (double) integer;
+            node.setNumber(integer, number);
+        }
+        if ((head & (1 << 3)) != 0) {
+            int start = base + (int) unZigZag(readVarlong(in));
+            node.setTokenRange(start, start + readVarint(in));
+        }
+        if ((head & (1 << 4)) != 0) {
+            int production = readVarint(in);
+            if (production >= Symbol.COUNT)
+                throw new IOException("Bad production " + production);
+            node.setProduction(Symbol.byOrdinal(production));
+        }
+
+        return node;
+    }
+
+    // ------------------------------------------------ ENCODING ------------------------------------------------------
+
+    private static int pooled(String string, ArrayList<String> pool, HashMap<String, Integer> poolIndex) {
+        Integer index = poolIndex.get(string);
+        if (index == null) {
+            index = pool.size();
+            pool.add(string);
+            poolIndex.put(string, index);
+        }
+
+        return index;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readVarint(ByteBuffer in) throws IOException {
+        long value = readVarlong(in);
+        if (value < 0 || value > Integer.MAX_VALUE)
+            throw new IOException("Varint out of range");
+
+        return (int) value;
+    }
+
+    private static long readVarlong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+
+        throw new IOException("Varint is too long");
+    }
+
+    /**
+     * Decodes a UTF-8 String straight out of the buffer (out of its backing array, if it has one).
+     */
+    private static String readString(ByteBuffer in, int length) {
+        if (length > in.remaining())
+            throw new BufferUnderflowException();
+
+        String string;
+        if (in.hasArray()) {
+            string = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] utf8 = new byte[length];
+            in.get(utf8);
+            string = new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        return string;
+    }
+
+    /**
+     * Growable byte array with varint writes (a ByteArrayOutputStream that lets the bytes be read without a copy).
+     */
+    private static class Output extends ByteArrayOutputStream {
+
+        Output(int capacity) {
+            super(capacity);
+        }
+
+        void writeVarint(int value) {
+            writeVarlong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarlong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8)
+                write((int) (value >>> shift));
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
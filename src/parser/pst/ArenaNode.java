@@ -0,0 +1,184 @@
+package parser.pst;
+
+import lexer.Symbol;
+import runner.sct.SCTNode;
+
+import java.util.ArrayList;
+
+/**         ArenaNode.java
+ *  Read-only Node view of one node of a NodeArena. A view is nothing but the arena and the node's index: everything,
+ *  the SCTNode the runner links it to included, is read out of (or written into) the arena. Views are made as they
+ *  are asked for and not kept, so two views of the same node are equal() but not the same object. Changing the tree
+ *  through a view isn't supported.
+ */
+class ArenaNode extends Node {
+
+    /** Arena the node lives in */
+    private final NodeArena arena;
+    /** Index of the node in the arena */
+    private final int index;
+
+    ArenaNode(NodeArena arena, int index) {
+        this.arena = arena;
+        this.index = index;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    public SCTNode getSctNode() {
+        return arena.getSctNode(index);
+    }
+
+    @Override
+    public void setSctNode(SCTNode sctNode) {
+        arena.setSctNode(index, sctNode);
+    }
+
+    @Override
+    public String getKeyword() {
+        return arena.getKeyword(index);
+    }
+
+    @Override
+    public Symbol getSymbol() {
+        return arena.getSymbol(index);
+    }
+
+    @Override
+    public String getValue() {
+        return arena.getValue(index);
+    }
+
+    @Override
+    public boolean hasNumber() {
+        return arena.hasNumber(index);
+    }
+
+    @Override
+    public double getNumber() {
+        return arena.getNumber(index);
+    }
+
+    @Override
+    public long getInteger() {
+        return arena.getInteger(index);
+    }
+
+    @Override
+    public int getTokenStart() {
+        return arena.getTokenStart(index);
+    }
+
+    @Override
+    public int getTokenEnd() {
+        return arena.getTokenEnd(index);
+    }
+
+    @Override
+    public Symbol getProduction() {
+        return arena.getProduction(index);
+    }
+
+    @Override
+    public Node getParent() {
+        return arena.view(arena.getParent(index));
+    }
+
+    /**
+     * Returns views of this node's children. The list is made for each call, so changing it doesn't change the tree.
+     * @return new list of this node's children.
+     */
+    @Override
+    public ArrayList<Node> getChildren() {
+        ArrayList<Node> children = new ArrayList<Node>(arena.getChildCount(index));
+        for (int child = arena.getFirstChild(index); child != -1; child = arena.getNextSibling(child))
+            children.add(new ArenaNode(arena, child));
+
+        return children;
+    }
+
+    /**
+     * Returns an id that is the same for every view of the node.
+     * @return id of this node
+     */
+    @Override
+    public int getHashId() {
+        return 31 * System.identityHashCode(arena) + index;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ArenaNode))
+            return false;
+
+        ArenaNode view = (ArenaNode) other;
+        return view.arena == arena && view.index == index;
+    }
+
+    @Override
+    public int hashCode() {
+        return getHashId();
+    }
+
+    // ----------------------------------------------- READ ONLY ------------------------------------------------------
+
+    @Override
+    public void setValue(String value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setNumber(long integer, double number) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setTokenRange(int start, int end) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setProduction(Symbol production) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setParent(Node parent) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addChild(Node child) {
+        throw readOnly();
+    }
+
+    @Override
+    public void addChildren(ArrayList<Node> childrenToAdd) {
+        throw readOnly();
+    }
+
+    @Override
+    public void replaceChildren(ArrayList<Node> childrenToAdd) {
+        throw readOnly();
+    }
+
+    @Override
+    public void reset(Symbol symbol) {
+        throw readOnly();
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("nodes of a NodeArena are read only");
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public NodeArena getArena() {
+        return arena;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+}
@@ -1,112 +1,122 @@
 package parser.pst;
 
+import lexer.Symbol;
 import runner.sct.SCTNode;
 
 import java.util.ArrayList;
 
-public class Node {
-    /** Linked SCTNode */
-    private SCTNode sctNode;
-    /** parent of this node */
-    private Node parent;
-    /** children of this node */
-    private ArrayList<Node> children;
-    /** keyword of the rule this node represents */
-    private String keyword;
-    /** value of the rule this node represents */
-    private String value;
-    /** hash of object */
-    private int hashId;
-
-    /**
-     * Constructor
-     *
-     * Set's this Node's keyword and creates the empty list of children.
-     * @param keyword
-     */
-    public Node(String keyword) {
-        this(keyword, "");
-    }
+/**         Node.java
+ *  A node of a parse tree or AST. This is only the API: a TreeNode keeps everything in fields of its own (that's
+ *  what the parsers build), while an ArenaNode is a read-only view of one node of a NodeArena that reads everything
+ *  out of the arena's columns.
+ */
+public abstract class Node {
 
-    /**
-     * Constructor
-     *
-     * Sets this Node's keyword and value and creates the empty list of children.
-     * @param keyword   keyword to set
-     * @param value     value to set
-     */
-    public Node(String keyword, String value) {
-        this.keyword = keyword;
-        this.value = value;
-        children = new ArrayList<Node>();
-        this.hashId = System.identityHashCode(this);
-    }
+    public abstract SCTNode getSctNode();
 
-    public SCTNode getSctNode() {
-        return sctNode;
-    }
-
-    public void setSctNode(SCTNode sctNode) {
-        this.sctNode = sctNode;
-    }
+    public abstract void setSctNode(SCTNode sctNode);
 
     /**
      * Returns the keyword of this Node.
      * @return this Node's keyword.
      */
-    public String getKeyword() {
-        return keyword;
-    }
+    public abstract String getKeyword();
+
+    /**
+     * Returns the grammar symbol of this Node.
+     * @return this Node's symbol, or null if its keyword isn't a grammar symbol.
+     */
+    public abstract Symbol getSymbol();
 
     /**
      * Returns the value of the Node
      * @return  value of the Node
      */
-    public String getValue() {
-        return value;
-    }
+    public abstract String getValue();
 
     /**
      * Sets the value of this node. We realistically only care if the associated 'keyword' of this node is an
      * int, float, string, or id, but we'll keep the value of other values as well.
      * @param value value to set.
      */
-    public void setValue(String value) {
-        this.value = value;
-    }
+    public abstract void setValue(String value);
+
+    /**
+     * Sets the number payload of an int/float node, so the value never has to be parsed again.
+     * @param integer value as an integer
+     * @param number  value as a double
+     */
+    public abstract void setNumber(long integer, double number);
+
+    /**
+     * Returns if the value of this node has been decoded into a number payload.
+     * @return TRUE if this is an int/float node with a payload
+     */
+    public abstract boolean hasNumber();
+
+    /**
+     * Returns the value of this int/float node as a double. Nodes without a payload fall back to parsing the value.
+     * @return value as a double
+     */
+    public abstract double getNumber();
+
+    /**
+     * Returns the value of this int/float node as an integer.
+     * @return value as a long
+     */
+    public abstract long getInteger();
+
+    /**
+     * Returns the index of the first token this node was parsed from.
+     * @return index into the TokenBuffer, or -1 if unknown
+     */
+    public abstract int getTokenStart();
+
+    /**
+     * Returns the index after the last token this node was parsed from.
+     * @return index into the TokenBuffer, or -1 if unknown
+     */
+    public abstract int getTokenEnd();
+
+    /**
+     * Sets the tokens this node was parsed from.
+     * @param start index of the first token
+     * @param end   index after the last token
+     */
+    public abstract void setTokenRange(int start, int end);
+
+    /**
+     * Returns the non-terminal whose production this node stands for. Hoisting moves a token up to take the place
+     * of its production (an equal node stands for a whole Stasgn, or Stmt), so this is the outermost one.
+     * @return Symbol of the production, or null if the node only stands for its own token
+     */
+    public abstract Symbol getProduction();
+
+    public abstract void setProduction(Symbol production);
 
     /**
      * Returns this Node's parent.
      * @return parent of this Node.
      */
-    public Node getParent() {
-        return parent;
-    }
+    public abstract Node getParent();
 
     /**
      * Sets this Node's new parent.
      * @param parent new parent of this Node.
      */
-    public void setParent(Node parent) {
-        this.parent = parent;
-    }
+    public abstract void setParent(Node parent);
 
     /**
-     * Returns this node's children. Note: this list may be empty.
+     * Returns this node's children.
      * @return list of this node's children.
      */
-    public ArrayList<Node> getChildren() {
-        return children;
-    }
+    public abstract ArrayList<Node> getChildren();
 
     /**
      * Adds a new child to this Node's list of children and sets this Node to the new child's parent
      * @param child new child to add.
      */
-    public void addChild(Node child) {
-        children.add(child);
-        child.setParent(this);
-    }
+    public abstract void addChild(Node child);
 
     /**
      * Adds the children in the given list to this Node's list of children
@@ -125,14 +135,20 @@ public class Node {
      *
      * @param childrenToAdd new children to add/replace the hold ones with.
      */
-    public void replaceChildren(ArrayList<Node> childrenToAdd) {
-        if (childrenToAdd == null)
-            return;
+    public abstract void replaceChildren(ArrayList<Node> childrenToAdd);
 
-        children.clear();
-        for (Node child : childrenToAdd)
-            addChild(child);
-    }
+    /**
+     * Makes this node into a new, childless node of the given symbol, so a parser can use it again once the
+     * conversion has thrown it away.
+     * @param symbol    grammar symbol of the new node
+     */
+    public abstract void reset(Symbol symbol);
+
+    /**
+     * Returns the id this node is printed with.
+     * @return id of this node
+     */
+    public abstract int getHashId();
 
     /**
      * Determines if the rule in this node is an epsilon rule.
@@ -140,7 +156,29 @@ public class Node {
      *         FALSE: otherwise
      */
     public boolean isEpsilonRule() {
-        return Character.isUpperCase(this.keyword.charAt(0)) && children.isEmpty();
+        Symbol symbol = getSymbol();
+        boolean nonTerminal = symbol != null ? !symbol.isTerminal() : Character.isUpperCase(getKeyword().charAt(0));
+        return nonTerminal && getChildren().isEmpty();
+    }
+
+    /**
+     * Returns if this tree has the same shape as another: the same keywords and values, with the same children in
+     * the same order. Ids, parents and number payloads aren't compared.
+     * @param other root of the tree to compare with
+     * @return TRUE if both trees are the same
+     */
+    public boolean equalsTree(Node other) {
+        ArrayList<Node> children = getChildren();
+        ArrayList<Node> otherChildren = other == null ? null : other.getChildren();
+        if (other == null || !getKeyword().equals(other.getKeyword()) || !getValue().equals(other.getValue()) ||
+                children.size() != otherChildren.size())
+            return false;
+
+        for (int i = 0; i < children.size(); i++) {
+            if (!children.get(i).equalsTree(otherChildren.get(i)))
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -153,7 +191,8 @@ public class Node {
      */
     private boolean isValueOkayToPrint()
     {
-        return !value.isEmpty() &&
+        String keyword = getKeyword();
+        return !getValue().isEmpty() &&
                 keyword.equals("id") || keyword.equals("int") ||
                 keyword.equals("float") || keyword.equals("string");
     }
@@ -161,11 +200,11 @@ public class Node {
     @Override
     public String toString() {
         String str = "Node: " +
-                "id='" + hashId + '\'' +
-                ", keyword='" + keyword + '\'';
+                "id='" + getHashId() + '\'' +
+                ", keyword='" + getKeyword() + '\'';
 
         if (isValueOkayToPrint()) {
-            str = str + ", value='" + value + '\'';
+            str = str + ", value='" + getValue() + '\'';
         }
 
         str = str + "}";
@@ -0,0 +1,347 @@
+package parser.pst;
+
+import lexer.Symbol;
+import runner.sct.SCTNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**         NodeArena.java
+ *  A whole tree packed into flat int columns instead of one Node object (plus an ArrayList, plus Strings) per node.
+ *  Node i is described by kind[i], parent[i], firstChild[i], nextSibling[i] and valueRef[i]; -1 means "none".
+ *  Nodes are laid out in pre-order, so a node's first child comes right after it and walking the tree goes forward
+ *  through the arrays. Values are pooled: every distinct value (with its number payload) is stored once.
+ *
+ *  Token ranges and productions (which only the direct parse sets) get columns of their own only if some node of
+ *  the tree has them, and the SCTNode links the runner makes only once the first one is made.
+ *
+ *  Code that walks the tree itself can use the index getters directly. Everything else can keep using the Node API
+ *  through getRoot(), which hands out read-only ArenaNode views. A view is only the arena and an index, and the
+ *  arena doesn't keep any of them, so a tree walked through the Node API still costs nothing more than its columns.
+ */
+public class NodeArena {
+
+    /** Symbol ordinal of each node, or -(index + 1) into keywordPool for keywords that aren't grammar symbols */
+    private final int[] kind;
+    private final int[] parent;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    /** Index into the value pool of each node's value, or -1 for an empty value */
+    private final int[] valueRef;
+    /** Number of nodes */
+    private final int size;
+
+    /** Distinct values of the nodes */
+    private String[] values;
+    /** Number payload of each pooled value (only valid where hasNumber is TRUE) */
+    private double[] numbers;
+    private long[] integers;
+    private boolean[] hasNumber;
+    /** Number of pooled values */
+    private int valueCount;
+    /** Distinct keywords of nodes that aren't grammar symbols */
+    private final ArrayList<String> keywordPool;
+    /** Token range of each node, or null if no node has one */
+    private int[] tokenStart;
+    private int[] tokenEnd;
+    /** Symbol ordinal of each node's production (-1 for none), or null if no node has one */
+    private int[] production;
+    /** SCTNode linked to each node, or null until the first one is linked */
+    private SCTNode[] sctNodes;
+
+    private NodeArena(int size) {
+        this.size = size;
+        kind = new int[size];
+        parent = new int[size];
+        firstChild = new int[size];
+        nextSibling = new int[size];
+        valueRef = new int[size];
+        values = new String[16];
+        numbers = new double[16];
+        integers = new long[16];
+        hasNumber = new boolean[16];
+        keywordPool = new ArrayList<String>();
+    }
+
+    /**
+     * Packs a tree of Nodes into an arena. The Nodes aren't changed and can be dropped afterwards.
+     * @param root root of the tree
+     * @return NodeArena holding the tree, with the root at index 0
+     */
+    public static NodeArena of(Node root) {
+        NodeArena arena = new NodeArena(count(root));
+        arena.fill(root);
+        return arena;
+    }
+
+    /**
+     * Counts the nodes of a tree.
+     * @param root root of the tree
+     * @return number of nodes
+     */
+    private static int count(Node root) {
+        int count = 0;
+        ArrayList<Node> pending = new ArrayList<Node>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            count++;
+            pending.addAll(node.getChildren());
+        }
+
+        return count;
+    }
+
+    /**
+     * Lays the tree out in pre-order, without recursing (statement lists make trees as deep as they are long).
+     * @param root root of the tree
+     */
+    private void fill(Node root) {
+        HashMap<String, Integer> pooled = new HashMap<String, Integer>();
+        HashMap<String, Integer> keywords = new HashMap<String, Integer>();
+        int[] lastChild = new int[size];
+        ArrayList<Node> pendingNodes = new ArrayList<Node>();
+        int[] pendingParents = new int[size];
+        int pendingCount = 0;
+
+        pendingNodes.add(root);
+        pendingParents[pendingCount++] = -1;
+        int next = 0;
+        while (pendingCount > 0) {
+            Node node = pendingNodes.remove(--pendingCount);
+            int up = pendingParents[pendingCount];
+            int index = next++;
+
+            Symbol symbol = node.getSymbol();
+            if (symbol != null) {
+                kind[index] = symbol.ordinal();
+            } else {
+                Integer keyword = keywords.get(node.getKeyword());
+                if (keyword == null) {
+                    keywordPool.add(node.getKeyword());
+                    keyword = keywordPool.size() - 1;
+                    keywords.put(node.getKeyword(), keyword);
+                }
+                kind[index] = -(keyword + 1);
+            }
+            valueRef[index] = poolValue(node, pooled);
+            if (node.getTokenStart() != -1 || node.getProduction() != null)
+                setSpan(index, node);
+
+            parent[index] = up;
+            firstChild[index] = -1;
+            nextSibling[index] = -1;
+            lastChild[index] = -1;
+            if (up >= 0) {
+                if (firstChild[up] == -1)
+                    firstChild[up] = index;
+                else
+                    nextSibling[lastChild[up]] = index;
+                lastChild[up] = index;
+            }
+
+            // push the children last to first, so the first child is laid out next
+            ArrayList<Node> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pendingNodes.add(children.get(i));
+                pendingParents[pendingCount++] = index;
+            }
+        }
+    }
+
+    /**
+     * Stores a node's token range and production, making their columns the first time a node has one.
+     * @param index index of the node
+     * @param node  node being laid out
+     */
+    private void setSpan(int index, Node node) {
+        if (tokenStart == null) {
+            tokenStart = new int[size];
+            tokenEnd = new int[size];
+            production = new int[size];
+            Arrays.fill(tokenStart, -1);
+            Arrays.fill(tokenEnd, -1);
+            Arrays.fill(production, -1);
+        }
+
+        tokenStart[index] = node.getTokenStart();
+        tokenEnd[index] = node.getTokenEnd();
+        production[index] = node.getProduction() != null ? node.getProduction().ordinal() : -1;
+    }
+
+    /**
+     * Finds or adds the pool entry of a node's value.
+     * @param node   node whose value to pool
+     * @param pooled value -> pool index of the values pooled so far
+     * @return pool index, or -1 if the value is empty
+     */
+    private int poolValue(Node node, HashMap<String, Integer> pooled) {
+        String value = node.getValue();
+        if (value == null || value.isEmpty())
+            return -1;
+
+        Integer ref = pooled.get(value);
+        if (ref != null)
+            return ref;
+
+        if (valueCount == values.length) {
+            int capacity = valueCount * 2;
+            values = Arrays.copyOf(values, capacity);
+            numbers = Arrays.copyOf(numbers, capacity);
+            integers = Arrays.copyOf(integers, capacity);
+            hasNumber = Arrays.copyOf(hasNumber, capacity);
+        }
+
+        values[valueCount] = value;
+        if (node.hasNumber()) {
+            numbers[valueCount] = node.getNumber();
+            integers[valueCount] = node.getInteger();
+            hasNumber[valueCount] = true;
+        }
+        pooled.put(value, valueCount);
+        return valueCount++;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Returns a Node view of the root of the tree.
+     * @return read-only Node of the root
+     */
+    public Node getRoot() {
+        return view(0);
+    }
+
+    /**
+     * Returns a Node view of a node. Every call makes a new view, but views of the same node are equal().
+     * @param index index of the node
+     * @return read-only Node of the node, or null if the index is -1
+     */
+    public Node view(int index) {
+        return index < 0 ? null : new ArenaNode(this, index);
+    }
+
+    /**
+     * Returns the number of children of a node.
+     * @param index index of the node
+     * @return number of children
+     */
+    public int getChildCount(int index) {
+        int count = 0;
+        for (int child = firstChild[index]; child != -1; child = nextSibling[child])
+            count++;
+
+        return count;
+    }
+
+    /**
+     * Returns the grammar symbol of a node.
+     * @param index index of the node
+     * @return Symbol of the node, or null if its keyword isn't a grammar symbol
+     */
+    public Symbol getSymbol(int index) {
+        return kind[index] >= 0 ? Symbol.byOrdinal(kind[index]) : null;
+    }
+
+    /**
+     * Returns the keyword of a node.
+     * @param index index of the node
+     * @return keyword of the node
+     */
+    public String getKeyword(int index) {
+        int k = kind[index];
+        return k >= 0 ? Symbol.byOrdinal(k).getKeyword() : keywordPool.get(-k - 1);
+    }
+
+    /**
+     * Returns the value of a node.
+     * @param index index of the node
+     * @return value of the node ("" if it has none)
+     */
+    public String getValue(int index) {
+        int ref = valueRef[index];
+        return ref >= 0 ? values[ref] : "";
+    }
+
+    public boolean hasNumber(int index) {
+        int ref = valueRef[index];
+        return ref >= 0 && hasNumber[ref];
+    }
+
+    /**
+     * Returns the value of an int/float node as a double. Nodes without a payload fall back to parsing the value.
+     * @param index index of the node
+     * @return value as a double
+     */
+    public double getNumber(int index) {
+        return hasNumber(index) ? numbers[valueRef[index]] : Double.parseDouble(getValue(index));
+    }
+
+    /**
+     * Returns the value of an int/float node as an integer.
+     * @param index index of the node
+     * @return value as a long
+     */
+    public long getInteger(int index) {
+        return hasNumber(index) ? integers[valueRef[index]] : (long) Double.parseDouble(getValue(index));
+    }
+
+    public int getTokenStart(int index) {
+        return tokenStart != null ? tokenStart[index] : -1;
+    }
+
+    public int getTokenEnd(int index) {
+        return tokenEnd != null ? tokenEnd[index] : -1;
+    }
+
+    /**
+     * Returns the non-terminal whose production a node stands for.
+     * @param index index of the node
+     * @return Symbol of the production, or null if the node only stands for its own token
+     */
+    public Symbol getProduction(int index) {
+        return production != null && production[index] >= 0 ? Symbol.byOrdinal(production[index]) : null;
+    }
+
+    public SCTNode getSctNode(int index) {
+        return sctNodes != null ? sctNodes[index] : null;
+    }
+
+    /**
+     * Links a node to its SCTNode. The links are kept by the arena, so every view of the node sees them.
+     * @param index   index of the node
+     * @param sctNode SCTNode to link
+     */
+    public void setSctNode(int index, SCTNode sctNode) {
+        if (sctNodes == null)
+            sctNodes = new SCTNode[size];
+        sctNodes[index] = sctNode;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public int size() {
+        return size;
+    }
+
+    public int getKind(int index) {
+        return kind[index];
+    }
+
+    public int getParent(int index) {
+        return parent[index];
+    }
+
+    public int getFirstChild(int index) {
+        return firstChild[index];
+    }
+
+    public int getNextSibling(int index) {
+        return nextSibling[index];
+    }
+
+    public int getValueRef(int index) {
+        return valueRef[index];
+    }
+}
@@ -0,0 +1,220 @@
+package parser.pst;
+
+import lexer.Symbol;
+import runner.sct.SCTNode;
+
+import java.util.ArrayList;
+
+/**         TreeNode.java
+ *  Node that keeps everything in fields of its own, with a list of child nodes. This is what the parsers build and
+ *  what every change to a tree goes through.
+ */
+public class TreeNode extends Node {
+
+    /** Linked SCTNode */
+    private SCTNode sctNode;
+    /** parent of this node */
+    private Node parent;
+    /** children of this node */
+    private ArrayList<Node> children;
+    /** keyword of the rule this node represents */
+    private String keyword;
+    /** grammar symbol of the keyword (null if the keyword isn't a grammar symbol) */
+    private Symbol symbol;
+    /** value of the rule this node represents */
+    private String value;
+    /** value of an int/float node as a number, decoded by the lexer */
+    private double number;
+    /** value of an int node as an integer (the float value truncated, for floats) */
+    private long integer;
+    /** TRUE if number/integer hold the decoded value */
+    private boolean hasNumber;
+    /** hash of object, worked out the first time it's printed */
+    private int hashId;
+    /** Tokens [tokenStart, tokenEnd) this node was parsed from, or -1 if unknown (only the direct parse sets them) */
+    private int tokenStart = -1;
+    private int tokenEnd = -1;
+    /** Non-terminal whose production this node stands for after hoisting (null for a plain token) */
+    private Symbol production;
+
+    /**
+     * Constructor
+     *
+     * Set's this Node's keyword and creates the empty list of children.
+     * @param keyword
+     */
+    public TreeNode(String keyword) {
+        this(keyword, "");
+    }
+
+    /**
+     * Constructor
+     *
+     * Sets this Node's keyword and value and creates the empty list of children.
+     * @param keyword   keyword to set
+     * @param value     value to set
+     */
+    public TreeNode(String keyword, String value) {
+        this(Symbol.of(keyword), keyword, value);
+    }
+
+    /**
+     * Constructor
+     *
+     * Set's this Node's symbol (and its keyword) and creates the empty list of children.
+     * @param symbol    grammar symbol to set
+     */
+    public TreeNode(Symbol symbol) {
+        this(symbol, symbol.getKeyword(), "");
+    }
+
+    private TreeNode(Symbol symbol, String keyword, String value) {
+        this.symbol = symbol;
+        this.keyword = keyword;
+        this.value = value;
+        children = new ArrayList<Node>();
+    }
+
+    @Override
+    public SCTNode getSctNode() {
+        return sctNode;
+    }
+
+    @Override
+    public void setSctNode(SCTNode sctNode) {
+        this.sctNode = sctNode;
+    }
+
+    @Override
+    public String getKeyword() {
+        return keyword;
+    }
+
+    @Override
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    @Override
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    @Override
+    public void setNumber(long integer, double number) {
+        this.integer = integer;
+        this.number = number;
+        this.hasNumber = true;
+    }
+
+    @Override
+    public boolean hasNumber() {
+        return hasNumber;
+    }
+
+    @Override
+    public double getNumber() {
+        return hasNumber ? number : Double.parseDouble(value);
+    }
+
+    @Override
+    public long getInteger() {
+        return hasNumber ? integer : (long) Double.parseDouble(value);
+    }
+
+    @Override
+    public int getTokenStart() {
+        return tokenStart;
+    }
+
+    @Override
+    public int getTokenEnd() {
+        return tokenEnd;
+    }
+
+    @Override
+    public void setTokenRange(int start, int end) {
+        this.tokenStart = start;
+        this.tokenEnd = end;
+    }
+
+    @Override
+    public Symbol getProduction() {
+        return production;
+    }
+
+    @Override
+    public void setProduction(Symbol production) {
+        this.production = production;
+    }
+
+    @Override
+    public Node getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(Node parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public ArrayList<Node> getChildren() {
+        return children;
+    }
+
+    @Override
+    public void addChild(Node child) {
+        children.add(child);
+        child.setParent(this);
+    }
+
+    @Override
+    public void replaceChildren(ArrayList<Node> childrenToAdd) {
+        if (childrenToAdd == null)
+            return;
+
+        children.clear();
+        for (Node child : childrenToAdd)
+            addChild(child);
+    }
+
+    /**
+     * Makes this node into a new, childless node of the given symbol. It keeps its (emptied) list of children, so
+     * that isn't allocated again either.
+     * @param symbol    grammar symbol of the new node
+     */
+    @Override
+    public void reset(Symbol symbol) {
+        this.symbol = symbol;
+        keyword = symbol.getKeyword();
+        value = "";
+        number = 0;
+        integer = 0;
+        hasNumber = false;
+        hashId = 0;
+        tokenStart = -1;
+        tokenEnd = -1;
+        production = null;
+        sctNode = null;
+        parent = null;
+        children.clear();
+    }
+
+    /**
+     * Returns the id this node is printed with (its identity hash), working it out the first time.
+     * @return id of this node
+     */
+    @Override
+    public int getHashId() {
+        if (hashId == 0)
+            hashId = System.identityHashCode(this);
+
+        return hashId;
+    }
+}
@@ -4,6 +4,7 @@ import parser.pst.Node;
 import runner.sct.SCTBuilder;
 import runner.sct.SCTNode;
 
+import java.io.PrintStream;
 import java.util.ArrayList;
 
 public class ASTRunner extends SCTBuilder {
@@ -12,16 +13,50 @@ public class ASTRunner extends SCTBuilder {
     private Node astRoot;
     /** Root of the Scope tree */
     private SCTNode sctRoot;
+    /** Where the program's prints (and the printed scope tree) go */
+    private final PrintStream out;
 
     /**
      *  Creates an ASTRunner for an AST tree and builds a scope tree from the given AST tree.
      * @param astRoot Root of the AST to run
      */
     public ASTRunner(Node astRoot) {
+        this(astRoot, System.out);
+    }
+
+    /**
+     *  Creates an ASTRunner for an AST tree that prints to the given stream, and builds a scope tree from the AST.
+     * @param astRoot Root of the AST to run
+     * @param out     stream to print to
+     */
+    public ASTRunner(Node astRoot, PrintStream out) {
         this.astRoot = astRoot;
+        this.out = out;
         sctRoot = buildScopeTree(astRoot);
     }
 
+    /**
+     * Brings the scope tree up to date after part of the AST was reparsed (see parser.IncrementalParser). Only the
+     * scope of the nearest block around the reparsed subtree is built again; if the whole AST was replaced, the
+     * whole scope tree is.
+     * @param reparsed  root of the subtree that was spliced in, or the new root of the AST
+     */
+    public void update(Node reparsed) {
+        if (reparsed == null)
+            return;
+
+        Node block = reparsed;
+        while (block != null && !isBlock(block))
+            block = block.getParent();
+
+        if (reparsed.getParent() == null || block == null || block.getSctNode() == null) {
+            astRoot = reparsed.getParent() == null ? reparsed : astRoot;
+            sctRoot = buildScopeTree(astRoot);
+        } else {
+            rebuildBlock(block, block.getSctNode());
+        }
+    }
+
     /**
      * Main function to call to run the AST.
      */
@@ -41,10 +76,9 @@ public class ASTRunner extends SCTBuilder {
         if (isDeclaration(astRoot)) {
             // this also could be a redeclaration, so just in case lets find the entry and update it
             double value = Operations.doOperation(sctRoot, astRoot.getChildren().get(0));
-            sctRoot.findAndUpdateEntry(astRoot.getChildren().get(1), value + "");
+            sctRoot.findAndUpdateEntry(astRoot.getChildren().get(1), value);
         } else if (isUse(astRoot)) {
-            String value = sctRoot.findEntry(astRoot);
-            sctRoot.findAndUpdateEntry(astRoot, value);
+            // a use doesn't change the value of the entry, so there's nothing to do
         } else {
             if (isPrint(astRoot))
                 handlePrint(sctRoot, astRoot);
@@ -83,11 +117,11 @@ public class ASTRunner extends SCTBuilder {
         // there's a parens1, so get the parenthesis's children
         ArrayList<Node> children = astRoot.getChildren().get(0).getChildren();
         Node nodeToPrint = children.get(1);
-        System.out.print(nodeToPrint.getValue().replaceAll("^\"|\"$", ""));
+        out.print(nodeToPrint.getValue().replaceAll("^\"|\"$", ""));
 
         // there may be some arguments to handle, where we'll need to search the scope tree for the declaration....
         printArgs(sctNode, nodeToPrint);
-        System.out.println(""); // print out the next line
+        out.println(""); // print out the next line
     }
 
     /**
@@ -103,9 +137,9 @@ public class ASTRunner extends SCTBuilder {
 
         Node nodeToOperate = children.get(0).getChildren().get(0);
         if (nodeToOperate.getKeyword().equals("string"))
-            System.out.print(nodeToOperate.getValue().replaceAll("^\"|\"$", ""));
+            out.print(nodeToOperate.getValue().replaceAll("^\"|\"$", ""));
         else
-            System.out.print(Operations.doOperation(sctNode, nodeToOperate));
+            out.print(Operations.doOperation(sctNode, nodeToOperate));
 
         // there might be more arguments, so we'll print those
         printArgs(sctNode, nodeToOperate);
@@ -146,12 +180,10 @@ public class ASTRunner extends SCTBuilder {
      */
     private boolean evaluate(SCTNode sctNode, Node astNode) {
         // there's going to be a parenthesis, so actually grab the child we want to operate on
-        String left = sctNode.findEntry(astNode.getChildren().get(1));
         Node condition = astNode.getChildren().get(1).getChildren().get(0);
-        String right = sctNode.findEntry(condition.getChildren().get(0));
 
-        double leftArg = Double.parseDouble(left); // get the numbers
-        double rightArg = Double.parseDouble(right);
+        double leftArg = sctNode.findNumber(astNode.getChildren().get(1)); // get the numbers
+        double rightArg = sctNode.findNumber(condition.getChildren().get(0));
 
         String operator = condition.getKeyword();
         switch(operator) {
@@ -192,7 +224,7 @@ public class ASTRunner extends SCTBuilder {
             return;
 
         String tabbing = getSpacing(level);
-        System.out.println(tabbing + "(" + root + ")");
+        out.println(tabbing + "(" + root + ")");
 
         level++;
         ArrayList<SCTNode> children = root.getChildren();
@@ -0,0 +1,93 @@
+package runner;
+
+import parser.pst.Node;
+import runner.handle.HandleCompiler;
+import runner.jvm.BytecodeCompiler;
+import runner.jvm.ClassTooLargeException;
+import runner.jvm.CompiledProgram;
+import runner.node.NodeBuilder;
+import runner.vm.Compiler;
+import runner.vm.RegisterCompiler;
+import runner.vm.RegisterVM;
+import runner.vm.VM;
+
+import java.io.PrintStream;
+
+/**         Engine.java
+ *  The ways a program can be run. Every engine prints the same thing for the same program; they only differ in
+ *  how fast they get there.
+ */
+public enum Engine {
+
+    /** ASTRunner, walking the AST */
+    TREE {
+        @Override
+        public void run(Node astRoot, PrintStream out) {
+            new ASTRunner(astRoot, out).run();
+        }
+    },
+
+    /** runner.vm: compiled to instructions for a stack VM */
+    VM {
+        @Override
+        public void run(Node astRoot, PrintStream out) {
+            new VM(Compiler.compile(astRoot), out).run();
+        }
+    },
+
+    /** runner.vm: compiled to three-address instructions for a register VM */
+    REGISTER {
+        @Override
+        public void run(Node astRoot, PrintStream out) {
+            new RegisterVM(RegisterCompiler.compile(astRoot), out).run();
+        }
+    },
+
+    /** runner.node: a tree of nodes that specialize themselves to ints or doubles as they run */
+    NODE {
+        @Override
+        public void run(Node astRoot, PrintStream out) {
+            NodeBuilder.build(astRoot).execute(out);
+        }
+    },
+
+    /** runner.jvm: compiled to a hidden JVM class; programs too large for one run the tree walker instead */
+    JVM {
+        @Override
+        public void run(Node astRoot, PrintStream out) {
+            CompiledProgram program;
+            try {
+                program = BytecodeCompiler.compile(astRoot);
+            } catch (ClassTooLargeException e) {
+                TREE.run(astRoot, out);
+                return;
+            }
+            program.run(out);
+        }
+    },
+
+    /** runner.handle: compiled to a tree of method handles */
+    HANDLE {
+        @Override
+        public void run(Node astRoot, PrintStream out) {
+            HandleCompiler.compile(astRoot).run(out);
+        }
+    };
+
+    /**
+     * Runs a program.
+     * @param astRoot   root of the program's AST
+     * @param out       stream to print to
+     */
+    public abstract void run(Node astRoot, PrintStream out);
+
+    /**
+     * Finds an engine by its name, in any case.
+     * @param name  name of the engine
+     * @return the engine
+     * @throws IllegalArgumentException if there is no such engine
+     */
+    public static Engine of(String name) {
+        return valueOf(name.toUpperCase());
+    }
+}
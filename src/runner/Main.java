@@ -1,14 +1,83 @@
 package runner;
 
+import lexer.Source;
+import parser.ASTCache;
+import parser.ParseError;
 import parser.Parser;
+import parser.SyntaxErrorException;
 import parser.pst.Node;
+import parser.pst.NodeArena;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 import static java.lang.Thread.sleep;
 
 public class Main {
 
+    /** Directory of the AST cache used with -cache */
+    private static final String CACHE_DIRECTORY = ".astcache";
+    /** Size cap of the AST cache used with -cache */
+    private static final long CACHE_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Options, in any order:
+     *   -units         run every prog unit of program.txt on its own
+     *   -cache         take the AST from the AST cache
+     *   -arena         pack the AST into a NodeArena and run it from there
+     *   -engine NAME   run the program with another Engine (tree, vm, register, node, jvm, handle)
+     */
     public static void main(String args[]) {
-        Node astRoot = Parser.getASTRoot(true);
+        boolean units = false;
+        boolean cache = false;
+        boolean arena = false;
+        Engine engine = Engine.TREE;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-units")) {
+                units = true;
+            } else if (args[i].equals("-cache")) {
+                cache = true;
+            } else if (args[i].equals("-arena")) {
+                arena = true;
+            } else if (args[i].equals("-engine")) {
+                if (i + 1 == args.length) {
+                    System.out.println("UNKNOWN ENGINE");
+                    return;
+                }
+                try {
+                    engine = Engine.of(args[++i]);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("UNKNOWN ENGINE " + args[i]);
+                    return;
+                }
+            }
+        }
+
+        if (units) {
+            runUnits(engine);
+            return;
+        }
+
+        Node astRoot;
+        if (cache) {
+            // the AST comes out of the cache if program.txt has been run before, so there is no PST to print
+            try {
+                astRoot = new ASTCache(Paths.get(CACHE_DIRECTORY), CACHE_BYTES).getASTRoot(Paths.get("program.txt"));
+            } catch (IOException e) {
+                System.out.println("FILE NOT FOUND");
+                return;
+            } catch (SyntaxErrorException e) {
+                for (ParseError error : e.getErrors())
+                    System.out.println(error);
+                return;
+            }
+        } else {
+            astRoot = Parser.getASTRoot(true);
+        }
+        if (arena) {
+            // the Node tree is dropped, so only the arena's columns are left on the heap
+            astRoot = NodeArena.of(astRoot).getRoot();
+        }
         System.out.println("\n\n");
         Parser.printTree(astRoot, 0);
 
@@ -22,6 +91,27 @@ public class Main {
         ASTRunner runner = new ASTRunner(astRoot);
         runner.printScopeTree();
         System.out.println("\n\n");
-        runner.run();
+        if (engine == Engine.TREE)
+            runner.run();
+        else
+            engine.run(astRoot, System.out);
+    }
+
+    /**
+     * Runs every prog unit of program.txt (like modified.txt) on its own, in parallel, and prints what each one
+     * printed in source order.
+     * @param engine engine to run the units with
+     */
+    private static void runUnits(Engine engine) {
+        Source source;
+        try {
+            source = Source.map(Paths.get("program.txt"));
+        } catch (IOException e) {
+            System.out.println("FILE NOT FOUND");
+            return;
+        }
+
+        for (String output : new UnitRunner(engine).run(source))
+            System.out.print(output);
     }
 }
@@ -2,6 +2,7 @@ package runner;
 
 import parser.pst.Node;
 import runner.sct.SCTNode;
+import runner.sct.TableEntry;
 
 import java.util.ArrayList;
 
@@ -57,15 +58,15 @@ public class Operations {
 	    if (sctNode == null || astNode == null)
 	        return 0;
 
-	    // Return the number if the astNode is one.
+	    // Return the number if the astNode is one. The lexer already decoded it.
 	    if (isNumber(astNode))
-	        return Double.parseDouble(astNode.getValue());
+	        return astNode.getNumber();
 
 	    // Return the value from the identifier.
         if (isIdentifier(astNode)) {
-            String value = sctNode.findEntry(astNode);
-            if (!value.isEmpty())
-                return Double.parseDouble(value);
+            TableEntry entry = sctNode.findTableEntry(astNode);
+            if (entry != null && entry.hasValue())
+                return entry.getNumber();
 
         }
 
@@ -0,0 +1,148 @@
+package runner;
+
+import lexer.DFATokenizer;
+import lexer.Source;
+import lexer.TokenBuffer;
+import parser.ParseError;
+import parser.ParseResult;
+import parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**         UnitRunner.java
+ *  Runs sources made of many independent prog { ... } units one after the other, like modified.txt. The source is
+ *  lexed once and its tokens are split at every kprog (Parser.splitUnits). Each unit is then parsed and run as a
+ *  task on a fork-join pool. A unit has its own Parser, runner (see Engine) and scope tree, and prints into its own
+ *  buffer, so units share nothing. The outputs come back in source order.
+ *
+ *  A unit with syntax errors isn't run; its output is the list of errors. A unit that fails at run time, or nests
+ *  too deep for the stack of the thread running it, ends its output with the error. The other units aren't affected.
+ */
+public class UnitRunner {
+
+    /** Pool the units are run on */
+    private final ForkJoinPool pool;
+    /** Engine the units are run with */
+    private final Engine engine;
+
+    /**
+     * Creates a runner that runs units with the tree walker on the common fork-join pool.
+     */
+    public UnitRunner() {
+        this(Engine.TREE);
+    }
+
+    /**
+     * Creates a runner that runs units with the tree walker on the given pool.
+     * @param pool pool to run the units on
+     */
+    public UnitRunner(ForkJoinPool pool) {
+        this(pool, Engine.TREE);
+    }
+
+    /**
+     * Creates a runner that runs units with an engine on the common fork-join pool.
+     * @param engine engine to run the units with
+     */
+    public UnitRunner(Engine engine) {
+        this(ForkJoinPool.commonPool(), engine);
+    }
+
+    /**
+     * Creates a runner that runs units with an engine on the given pool.
+     * @param pool   pool to run the units on
+     * @param engine engine to run the units with
+     */
+    public UnitRunner(ForkJoinPool pool, Engine engine) {
+        this.pool = pool;
+        this.engine = engine;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Parses and runs every prog unit of a source. With a single unit, or a single core, the units are just run
+     * one by one on the calling thread.
+     * @param source source holding the units
+     * @return what each unit printed, in source order
+     */
+    public List<String> run(Source source) {
+        List<TokenBuffer> units = Parser.splitUnits(new DFATokenizer(source).tokenizePacked());
+        ArrayList<String> outputs = new ArrayList<String>(units.size());
+
+        if (units.size() < 2 || Runtime.getRuntime().availableProcessors() < 2) {
+            for (TokenBuffer unit : units)
+                outputs.add(runUnit(unit, engine));
+            return outputs;
+        }
+
+        ArrayList<Callable<String>> tasks = new ArrayList<Callable<String>>(units.size());
+        for (final TokenBuffer unit : units) {
+            tasks.add(new Callable<String>() {
+                @Override
+                public String call() {
+                    return runUnit(unit, engine);
+                }
+            });
+        }
+
+        for (Future<String> output : pool.invokeAll(tasks)) {
+            try {
+                outputs.add(output.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while running units", e);
+            } catch (ExecutionException e) {
+                // runUnit() catches what the runner throws and stack overflows, so only other Errors get here
+                throw new IllegalStateException("Unit failed", e.getCause());
+            }
+        }
+        return outputs;
+    }
+
+    /**
+     * Parses and runs one unit with the tree walker.
+     * @param unit tokens of the unit, ending with the eol token
+     * @return what the unit printed, or its syntax errors
+     */
+    public static String runUnit(TokenBuffer unit) {
+        return runUnit(unit, Engine.TREE);
+    }
+
+    /**
+     * Parses and runs one unit.
+     * @param unit   tokens of the unit, ending with the eol token
+     * @param engine engine to run the unit with
+     * @return what the unit printed, or its syntax errors
+     */
+    public static String runUnit(TokenBuffer unit, Engine engine) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes);
+
+        ParseResult result = new Parser(unit).parseRecovering();
+        if (result.hasErrors()) {
+            for (ParseError error : result.getErrors())
+                out.println(error);
+        } else {
+            try {
+                engine.run(result.getRoot(), out);
+            } catch (RuntimeException e) {
+                out.println();
+                out.println("RUNTIME ERROR: " + e);
+            } catch (StackOverflowError e) { // the engines recurse over the AST, so a deep enough program overflows
+                out.println();
+                out.println("RUNTIME ERROR: " + e);
+            }
+        }
+
+        out.flush();
+        return bytes.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package runner.handle;
+
+import runner.ir.Program;
+
+import java.io.PrintStream;
+
+/**         Frame.java
+ *  Variables of one run of a compiled program, by slot (see runner.ir.Variable), and the line being printed.
+ *  Handles read and write the slots through array element handles.
+ *
+ *  Lines are printed like the stack VM prints them (see runner.vm.VM).
+ */
+final class Frame {
+
+    final double[] slots;
+    /** [slot] -> TRUE once something was assigned, for the variables whose reads have to be checked */
+    final boolean[] assigned;
+    private final PrintStream out;
+    private final StringBuilder line = new StringBuilder();
+
+    Frame(Program program, PrintStream out) {
+        this.slots = program.initialValues();
+        this.assigned = new boolean[slots.length];
+        this.out = out;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    void print(String text) {
+        line.append(text);
+    }
+
+    /**
+     * Prints a number. The value comes first, so it can be folded into the handle (see HandleCompiler.print()).
+     */
+    static void print(double value, Frame frame) {
+        frame.line.append(value);
+    }
+
+    void println() {
+        out.println(line.toString());
+        line.setLength(0);
+    }
+
+    /**
+     * Prints the part of a line a failing program got to.
+     */
+    void flush() {
+        if (line.length() > 0)
+            out.print(line);
+    }
+}
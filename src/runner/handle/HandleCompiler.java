@@ -0,0 +1,244 @@
+package runner.handle;
+
+import parser.pst.Node;
+import runner.ir.Expr;
+import runner.ir.Lowering;
+import runner.ir.Program;
+import runner.ir.Stmt;
+import runner.ir.Variable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+
+import static java.lang.invoke.MethodHandles.arrayElementGetter;
+import static java.lang.invoke.MethodHandles.arrayElementSetter;
+import static java.lang.invoke.MethodHandles.constant;
+import static java.lang.invoke.MethodHandles.dropArguments;
+import static java.lang.invoke.MethodHandles.dropReturn;
+import static java.lang.invoke.MethodHandles.filterArguments;
+import static java.lang.invoke.MethodHandles.foldArguments;
+import static java.lang.invoke.MethodHandles.guardWithTest;
+import static java.lang.invoke.MethodHandles.insertArguments;
+import static java.lang.invoke.MethodHandles.permuteArguments;
+import static java.lang.invoke.MethodType.methodType;
+
+/**         HandleCompiler.java
+ *  Compiles a lowered program to a tree of method handles, with no bytecode of its own. Every expression becomes a
+ *  (Frame)double handle, every statement a (Frame)void one:
+ *
+ *    a number          a constant handle, dropping the Frame
+ *    a variable        an array element getter on Frame.slots; a read that can fail is a guardWithTest on
+ *                      Frame.assigned, with a handle throwing Variable.readError() as the fallback
+ *    an operator       Operator.apply() or Math.pow(), with the operands folded in, left first
+ *    statements        foldArguments() of each one into the next, so they run in order
+ *    a while           MethodHandles.whileLoop(), testing Relation.test() of the two sides
+ *
+ *  A while isn't a guardWithTest that calls itself again, since that would take a Java stack frame per round.
+ *
+ *  Once the handles have run enough times the JIT customizes them, and can then inline the whole tree into one
+ *  compiled method.
+ */
+public class HandleCompiler {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** (Frame)double[] */
+    private static final MethodHandle SLOTS = getter("slots", double[].class);
+    /** (Frame)boolean[] */
+    private static final MethodHandle ASSIGNED = getter("assigned", boolean[].class);
+    /** (Frame, String)void */
+    private static final MethodHandle PRINT_TEXT = find(Frame.class, "print", methodType(void.class, String.class),
+            false);
+    /** (double, Frame)void */
+    private static final MethodHandle PRINT_NUMBER = find(Frame.class, "print",
+            methodType(void.class, double.class, Frame.class), true);
+    /** (Frame)void */
+    private static final MethodHandle PRINTLN = find(Frame.class, "println", methodType(void.class), false);
+    /** (Operator, double, double)double */
+    private static final MethodHandle APPLY = find(Expr.Operator.class, "apply",
+            methodType(double.class, double.class, double.class), false);
+    /** (Relation, double, double)boolean */
+    private static final MethodHandle TEST = find(Stmt.Relation.class, "test",
+            methodType(boolean.class, double.class, double.class), false);
+    /** (double, double)double */
+    private static final MethodHandle POW = find(Math.class, "pow",
+            methodType(double.class, double.class, double.class), true);
+    /** (Variable)double */
+    private static final MethodHandle READ_ERROR = find(HandleCompiler.class, "readError",
+            methodType(double.class, Variable.class), true);
+
+    private static final MethodType STATEMENT = methodType(void.class, Frame.class);
+
+    private HandleCompiler() {
+    }
+
+    /**
+     * Lowers an AST and compiles it.
+     * @param astRoot   root of the AST
+     * @return the compiled program
+     */
+    public static HandleProgram compile(Node astRoot) {
+        return compile(Lowering.lower(astRoot));
+    }
+
+    /**
+     * Compiles a lowered program.
+     * @param program   lowered program
+     * @return the compiled program
+     */
+    public static HandleProgram compile(Program program) {
+        return new HandleProgram(program, block(program.getBody()));
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    private static MethodHandle block(Stmt[] statements) {
+        ArrayList<MethodHandle> handles = new ArrayList<MethodHandle>(statements.length);
+        for (Stmt statement : statements)
+            handles.add(statement(statement));
+        return sequence(handles);
+    }
+
+    private static MethodHandle statement(Stmt statement) {
+        if (statement instanceof Stmt.Assign)
+            return assign((Stmt.Assign) statement);
+        if (statement instanceof Stmt.Print)
+            return print((Stmt.Print) statement);
+
+        Stmt.While loop = (Stmt.While) statement;
+        MethodHandle condition = binary(insertArguments(TEST, 0, loop.getRelation()), expression(loop.getLeft()),
+                expression(loop.getRight()));
+        return MethodHandles.whileLoop(null, condition, block(loop.getBody()));
+    }
+
+    private static MethodHandle assign(Stmt.Assign assign) {
+        MethodHandle value = expression(assign.getValue());
+        Variable variable = assign.getVariable();
+        if (variable == null)
+            return dropReturn(value);
+
+        // (Frame, double)void, turned around so the value can be folded in
+        MethodHandle store = filterArguments(insertArguments(arrayElementSetter(double[].class), 1,
+                variable.getIndex()), 0, SLOTS);
+        store = permuteArguments(store, methodType(void.class, double.class, Frame.class), 1, 0);
+        MethodHandle statement = foldArguments(store, value);
+        if (!variable.needsCheck())
+            return statement;
+
+        MethodHandle mark = filterArguments(insertArguments(arrayElementSetter(boolean[].class), 1,
+                variable.getIndex(), true), 0, ASSIGNED);
+        return foldArguments(mark, statement);
+    }
+
+    private static MethodHandle print(Stmt.Print print) {
+        ArrayList<MethodHandle> items = new ArrayList<MethodHandle>(print.size() + 1);
+        for (int i = 0; i < print.size(); i++) {
+            if (print.getText(i) != null)
+                items.add(insertArguments(PRINT_TEXT, 1, print.getText(i)));
+            else
+                items.add(foldArguments(PRINT_NUMBER, expression(print.getValue(i))));
+        }
+        items.add(PRINTLN);
+        return sequence(items);
+    }
+
+    private static MethodHandle expression(Expr expr) {
+        if (expr instanceof Expr.Const)
+            return dropArguments(constant(double.class, ((Expr.Const) expr).getValue()), 0, Frame.class);
+
+        if (expr instanceof Expr.Load) {
+            Expr.Load load = (Expr.Load) expr;
+            int slot = load.getVariable().getIndex();
+            MethodHandle read = filterArguments(insertArguments(arrayElementGetter(double[].class), 1, slot), 0,
+                    SLOTS);
+            if (!load.isChecked())
+                return read;
+
+            MethodHandle assigned = filterArguments(insertArguments(arrayElementGetter(boolean[].class), 1, slot), 0,
+                    ASSIGNED);
+            MethodHandle fail = dropArguments(insertArguments(READ_ERROR, 0, load.getVariable()), 0, Frame.class);
+            return guardWithTest(assigned, read, fail);
+        }
+
+        if (expr instanceof Expr.Pow)
+            return binary(POW, expression(((Expr.Pow) expr).getBase()),
+                    expression(((Expr.Pow) expr).getExponent()));
+
+        if (expr instanceof Expr.Fail) {
+            MethodHandle fail = insertArguments(MethodHandles.throwException(double.class, RuntimeException.class), 0,
+                    ((Expr.Fail) expr).getError());
+            return dropArguments(fail, 0, Frame.class);
+        }
+
+        Expr.Fold fold = (Expr.Fold) expr;
+        Expr[] operands = fold.getOperands();
+        MethodHandle apply = insertArguments(APPLY, 0, fold.getOperator());
+        MethodHandle seed = dropArguments(constant(double.class, fold.getOperator().getSeed()), 0, Frame.class);
+        if (operands.length == 0)
+            return seed;
+
+        // the seed only changes anything for a PLUS (see Expr.Fold.needsSeed())
+        MethodHandle result = seed;
+        int first = 0;
+        if (!fold.needsSeed()) {
+            result = expression(operands[0]);
+            first = 1;
+        }
+        for (int i = first; i < operands.length; i++)
+            result = binary(apply, result, expression(operands[i]));
+        return result;
+    }
+
+    /**
+     * Combines two (Frame)double handles with an operation: (Frame)R giving operation(left(frame), right(frame)).
+     * left is evaluated first.
+     * @param operation (double, double)R handle
+     * @param left      (Frame)double handle
+     * @param right     (Frame)double handle
+     * @return the combined handle
+     */
+    private static MethodHandle binary(MethodHandle operation, MethodHandle left, MethodHandle right) {
+        // (double right, double left, Frame)R, so each value can be folded in at the front, left last
+        MethodHandle target = permuteArguments(dropArguments(operation, 2, Frame.class),
+                methodType(operation.type().returnType(), double.class, double.class, Frame.class), 1, 0, 2);
+        return foldArguments(foldArguments(target, dropArguments(right, 0, double.class)), left);
+    }
+
+    /**
+     * Chains (Frame)void handles into one that runs them in order.
+     * @param handles   handles to run
+     * @return the chained handle
+     */
+    private static MethodHandle sequence(ArrayList<MethodHandle> handles) {
+        if (handles.isEmpty())
+            return MethodHandles.empty(STATEMENT);
+
+        MethodHandle result = handles.get(handles.size() - 1);
+        for (int i = handles.size() - 2; i >= 0; i--)
+            result = foldArguments(result, handles.get(i));
+        return result;
+    }
+
+    @SuppressWarnings("unused") // through READ_ERROR
+    private static double readError(Variable variable) {
+        throw variable.readError();
+    }
+
+    private static MethodHandle getter(String name, Class<?> type) {
+        try {
+            return LOOKUP.findGetter(Frame.class, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle find(Class<?> owner, String name, MethodType type, boolean isStatic) {
+        try {
+            return isStatic ? LOOKUP.findStatic(owner, name, type) : LOOKUP.findVirtual(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package runner.handle;
+
+import runner.ir.Program;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+
+/**         HandleProgram.java
+ *  A program HandleCompiler compiled: one (Frame)void handle for the whole program. It can be run any number of
+ *  times; every run gets a new Frame.
+ */
+public class HandleProgram {
+
+    private final Program program;
+    private final MethodHandle body;
+
+    HandleProgram(Program program, MethodHandle body) {
+        this.program = program;
+        this.body = body;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Runs the program.
+     * @param out   stream to print to
+     */
+    public void run(PrintStream out) {
+        Frame frame = new Frame(program, out);
+        try {
+            body.invokeExact(frame);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) { // no handle throws a checked exception
+            throw new IllegalStateException(e);
+        } finally {
+            frame.flush();
+        }
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Program getProgram() {
+        return program;
+    }
+}
@@ -0,0 +1,220 @@
+package runner.ir;
+
+/**         Expr.java
+ *  Expression of a lowered program. Every expression gives a double, like Operations.doOperation().
+ *
+ *  The kinds are nested classes: Const, Load, Fold (plus, minus, aster and slash, which fold over any number of
+ *  operands), Pow (caret) and Fail. Operands are evaluated in order, first to last, the same order the tree walker
+ *  evaluates the AST children in, so the first read that fails is the same one too.
+ */
+public abstract class Expr {
+
+    private Expr() {
+    }
+
+    /**
+     * Is a number -0.0?
+     * @param value number to test
+     * @return TRUE if it's -0.0
+     */
+    public static boolean isNegativeZero(double value) {
+        return Double.doubleToRawLongBits(value) == Long.MIN_VALUE;
+    }
+
+    /**
+     * A number.
+     */
+    public static final class Const extends Expr {
+
+        private final double value;
+
+        public Const(double value) {
+            this.value = value;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+
+    /**
+     * The value of a variable.
+     */
+    public static final class Load extends Expr {
+
+        private final Variable variable;
+        /** TRUE if read like a while condition reads it (see Variable.isChecked()) */
+        private final boolean strict;
+
+        public Load(Variable variable, boolean strict) {
+            this.variable = variable;
+            this.strict = strict;
+        }
+
+        public Variable getVariable() {
+            return variable;
+        }
+
+        public boolean isStrict() {
+            return strict;
+        }
+
+        /**
+         * Does this read have to be checked before anything is assigned?
+         * @return TRUE if the read can fail
+         */
+        public boolean isChecked() {
+            return variable.isChecked(strict);
+        }
+
+        @Override
+        public String toString() {
+            return variable.toString();
+        }
+    }
+
+    /**
+     * An operator folded over its operands the way Operations.doOperation() does it: the result starts at the
+     * operator's seed and every operand is combined into it in turn (result = operator.apply(result, operand)).
+     */
+    public static final class Fold extends Expr {
+
+        private final Operator operator;
+        private final Expr[] operands;
+
+        public Fold(Operator operator, Expr[] operands) {
+            this.operator = operator;
+            this.operands = operands;
+        }
+
+        public Operator getOperator() {
+            return operator;
+        }
+
+        public Expr[] getOperands() {
+            return operands;
+        }
+
+        /**
+         * Does the result have to start at the seed, or can it start at the first operand? Only a PLUS needs it,
+         * since 0 + -0.0 is 0.0 and not -0.0, and even then only if every operand could be -0.0: a sum without the
+         * seed only differs when they all are.
+         * @return TRUE if the seed can't be left out
+         */
+        public boolean needsSeed() {
+            if (operator != Operator.PLUS)
+                return false;
+
+            for (Expr operand : operands)
+                if (operand instanceof Const && !isNegativeZero(((Const) operand).getValue()))
+                    return false;
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder(operator.name()).append('(');
+            for (int i = 0; i < operands.length; i++)
+                str.append(i > 0 ? ", " : "").append(operands[i]);
+            return str.append(')').toString();
+        }
+    }
+
+    /**
+     * A power. The base is evaluated first.
+     */
+    public static final class Pow extends Expr {
+
+        private final Expr base;
+        private final Expr exponent;
+
+        public Pow(Expr base, Expr exponent) {
+            this.base = base;
+            this.exponent = exponent;
+        }
+
+        public Expr getBase() {
+            return base;
+        }
+
+        public Expr getExponent() {
+            return exponent;
+        }
+
+        @Override
+        public String toString() {
+            return "POW(" + base + ", " + exponent + ")";
+        }
+    }
+
+    /**
+     * An expression the tree walker can't evaluate: it throws when it gets there (a caret with a single operand,
+     * a while condition without an operator, a condition on an undeclared variable...).
+     */
+    public static final class Fail extends Expr {
+
+        private final RuntimeException error;
+
+        public Fail(RuntimeException error) {
+            this.error = error;
+        }
+
+        public RuntimeException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "FAIL(" + error + ")";
+        }
+    }
+
+    /**
+     * Operators of a Fold.
+     */
+    public enum Operator {
+        /** result += operand */
+        PLUS(0),
+        /** result = operand - result */
+        MINUS(0),
+        /** result *= operand */
+        TIMES(1),
+        /** result = operand / result */
+        DIVIDE(1);
+
+        /** Value the result starts at */
+        private final double seed;
+
+        Operator(double seed) {
+            this.seed = seed;
+        }
+
+        public double getSeed() {
+            return seed;
+        }
+
+        /**
+         * Combines one more operand into the result.
+         * @param result  result so far
+         * @param operand value of the next operand
+         * @return new result
+         */
+        public double apply(double result, double operand) {
+            switch (this) {
+                case PLUS:
+                    return result + operand;
+                case MINUS:
+                    return operand - result;
+                case TIMES:
+                    return result * operand;
+                default:
+                    return operand / result;
+            }
+        }
+    }
+}
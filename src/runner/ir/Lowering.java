@@ -0,0 +1,307 @@
+package runner.ir;
+
+import parser.pst.Node;
+import runner.Operations;
+import runner.sct.SCTBuilder;
+import runner.sct.SCTNode;
+import runner.sct.TableEntry;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**         Lowering.java
+ *  Turns an AST into a Program the execution engines other than the tree walker compile from. It builds the scope
+ *  tree and walks the AST exactly the way ASTRunner.run() does, but instead of running each node it writes down what
+ *  running it would do:
+ *
+ *  - every variable use is resolved to its TableEntry once, here, instead of on every run
+ *  - the quirks of the tree walker are made explicit (a parenthesis around a single value gives 0, only the first
+ *    argument chain of a print is printed, an unknown id reads as 0 in an expression...)
+ *  - whatever the tree walker would throw on is turned into an Expr.Fail at the point it would throw
+ *
+ *  so every engine gets the same output as ASTRunner without having to know about any of this.
+ */
+public class Lowering extends SCTBuilder {
+
+    /** Variable of every entry of the scope tree */
+    private final IdentityHashMap<TableEntry, Variable> variables = new IdentityHashMap<TableEntry, Variable>();
+    /** The same variables, by slot */
+    private final ArrayList<Variable> slots = new ArrayList<Variable>();
+
+    private Lowering() {
+    }
+
+    /**
+     * Builds the scope tree of an AST and lowers it. Every run of the lowered program starts from the values the
+     * scope tree was built with.
+     * @param astRoot   root of the AST
+     * @return the lowered program
+     */
+    public static Program lower(Node astRoot) {
+        Lowering lowering = new Lowering();
+        SCTNode sctRoot = lowering.buildScopeTree(astRoot);
+        lowering.addVariables(sctRoot);
+
+        ArrayList<Stmt> body = new ArrayList<Stmt>();
+        if (astRoot != null)
+            lowering.lowerNode(sctRoot, astRoot, body);
+
+        return new Program(body.toArray(new Stmt[0]), lowering.slots);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Gives every entry of a scope and the scopes under it a slot, so the variables of a scope have neighbouring
+     * slots.
+     * @param scope scope tree node
+     */
+    private void addVariables(SCTNode scope) {
+        for (TableEntry entry : scope.getSymbolTable()) {
+            Variable variable = new Variable(slots.size(), entry);
+            variables.put(entry, variable);
+            slots.add(variable);
+        }
+
+        for (SCTNode child : scope.getChildren())
+            addVariables(child);
+    }
+
+    /**
+     * Lowers an AST node like ASTRunner.run() runs it.
+     * @param scope scope the node is in
+     * @param node  AST node
+     * @param into  list to add the statements to
+     */
+    private void lowerNode(SCTNode scope, Node node, ArrayList<Stmt> into) {
+        if (isBlock(node))
+            scope = node.getSctNode();
+
+        try {
+            if (isDeclaration(node)) {
+                Expr value = lowerValue(scope, node.getChildren().get(0));
+                into.add(new Stmt.Assign(variable(scope.findTableEntry(node.getChildren().get(1))), value));
+                // the tree walker goes on into the expression, where there's nothing to run
+                return;
+            } else if (isUse(node)) {
+                return;
+            } else if (node.getKeyword().equals("kprint")) {
+                into.add(lowerPrint(scope, node));
+            } else if (node.getKeyword().equals("kwhile")) {
+                into.add(lowerWhile(scope, node));
+                return;
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // a node without a child the tree walker expects, which it throws on before running anything of it
+            into.add(new Stmt.Assign(null, new Expr.Fail(e)));
+            return;
+        }
+
+        ArrayList<Node> children = node.getChildren();
+        for (int i = children.size() - 1; i >= 0; --i)
+            lowerNode(scope, children.get(i), into);
+    }
+
+    /**
+     * Lowers a value like Operations.doOperation() evaluates it.
+     * @param scope scope the value is in
+     * @param node  AST node of the value
+     * @return expression giving the value
+     */
+    private Expr lowerValue(SCTNode scope, Node node) {
+        if (scope == null || node == null)
+            return new Expr.Const(0);
+
+        String keyword = node.getKeyword();
+        if (keyword.equals("int") || keyword.equals("float"))
+            return new Expr.Const(node.getNumber());
+
+        if (keyword.equals("id")) {
+            // an entry without a value reads as 0, and so does the variable until something is assigned to it
+            TableEntry entry = scope.findTableEntry(node);
+            if (entry != null)
+                return new Expr.Load(variable(entry), false);
+        }
+
+        if (keyword.equals("parens1")) {
+            if (node.getChildren().size() < 2)
+                return fail(node.getChildren(), 1);
+            node = node.getChildren().get(1);
+        }
+
+        if (!Operations.isOperation(node))
+            return new Expr.Const(0);
+
+        ArrayList<Node> children = node.getChildren();
+        if (node.getKeyword().equals("caret")) {
+            if (children.size() < 2)
+                return fail(children, 1);
+
+            return fold(new Expr.Pow(lowerValue(scope, children.get(1)), lowerValue(scope, children.get(0))));
+        }
+
+        Expr[] operands = new Expr[children.size()];
+        for (int i = 0; i < operands.length; i++)
+            operands[i] = lowerValue(scope, children.get(i));
+
+        switch (node.getKeyword()) {
+            case "plus":
+                return fold(new Expr.Fold(Expr.Operator.PLUS, operands));
+            case "minus":
+                return fold(new Expr.Fold(Expr.Operator.MINUS, operands));
+            case "aster":
+                return fold(new Expr.Fold(Expr.Operator.TIMES, operands));
+            default:
+                return fold(new Expr.Fold(Expr.Operator.DIVIDE, operands));
+        }
+    }
+
+    /**
+     * Lowers a number read like SCTNode.findNumber() reads it, as the sides of a while condition are.
+     * @param scope scope the number is in
+     * @param node  AST node of the number
+     * @return expression giving the number
+     */
+    private Expr lowerNumber(SCTNode scope, Node node) {
+        if (node.getKeyword().equals("int") || node.getKeyword().equals("float"))
+            return new Expr.Const(node.getNumber());
+
+        TableEntry entry = scope.findTableEntry(node);
+        if (entry == null)
+            return new Expr.Fail(new NumberFormatException("empty String"));
+
+        return new Expr.Load(variable(entry), true);
+    }
+
+    /**
+     * Lowers a print like ASTRunner.handlePrint() and printArgs() run it: the value of the first argument's node as
+     * text, then the chain of comma arguments hanging off it.
+     * @param scope scope the print is in
+     * @param node  kprint AST node
+     * @return print statement
+     */
+    private Stmt lowerPrint(SCTNode scope, Node node) {
+        ArrayList<String> texts = new ArrayList<String>();
+        ArrayList<Expr> values = new ArrayList<Expr>();
+
+        Node argument = node.getChildren().get(0).getChildren().get(1);
+        texts.add(unquote(argument.getValue()));
+        values.add(null);
+
+        ArrayList<Node> children = argument.getChildren();
+        while (!children.isEmpty() && children.get(0).getKeyword().equals("comma")) {
+            ArrayList<Node> comma = children.get(0).getChildren();
+            if (comma.isEmpty()) {
+                texts.add(null);
+                values.add(fail(comma, 0));
+                break;
+            }
+
+            argument = comma.get(0);
+            if (argument.getKeyword().equals("string")) {
+                texts.add(unquote(argument.getValue()));
+                values.add(null);
+            } else {
+                texts.add(null);
+                values.add(lowerValue(scope, argument));
+            }
+            children = argument.getChildren();
+        }
+
+        // texts in a row are printed as one
+        for (int i = texts.size() - 1; i > 0; i--) {
+            if (texts.get(i) != null && texts.get(i - 1) != null) {
+                texts.set(i - 1, texts.get(i - 1) + texts.remove(i));
+                values.remove(i);
+            }
+        }
+
+        return new Stmt.Print(texts.toArray(new String[0]), values.toArray(new Expr[0]));
+    }
+
+    /**
+     * Lowers a while like ASTRunner.handleWhile() and evaluate() run it. The condition is read in the scope the
+     * while is in, the body in its own block's scope.
+     * @param scope scope the while is in
+     * @param node  kwhile AST node
+     * @return while statement
+     */
+    private Stmt lowerWhile(SCTNode scope, Node node) {
+        Node condition = node.getChildren().get(1);
+        Node body = node.getChildren().get(0);
+
+        ArrayList<Stmt> statements = new ArrayList<Stmt>();
+        lowerNode(scope, body, statements);
+        Stmt[] loopBody = statements.toArray(new Stmt[0]);
+
+        Node left = condition.getChildren().get(1);
+        ArrayList<Node> leftChildren = left.getChildren();
+        if (leftChildren.isEmpty())
+            return new Stmt.While(Stmt.Relation.NONE, fail(leftChildren, 0), new Expr.Const(0), loopBody);
+
+        Node operator = leftChildren.get(0);
+        Expr leftValue = lowerNumber(scope, left);
+        ArrayList<Node> operatorChildren = operator.getChildren();
+        Expr rightValue = operatorChildren.isEmpty() ? fail(operatorChildren, 0) :
+                lowerNumber(scope, operatorChildren.get(0));
+
+        return new Stmt.While(Stmt.Relation.of(operator.getKeyword()), leftValue, rightValue, loopBody);
+    }
+
+    /**
+     * Finds the variable of a table entry.
+     * @param entry entry, may be null
+     * @return its variable, or null if there's no entry
+     */
+    private Variable variable(TableEntry entry) {
+        return entry == null ? null : variables.get(entry);
+    }
+
+    /**
+     * Folds an operation on numbers only into a number.
+     * @param expr  Fold or Pow expression
+     * @return a Const if all the operands are Consts, otherwise expr
+     */
+    private static Expr fold(Expr expr) {
+        if (expr instanceof Expr.Pow) {
+            Expr.Pow pow = (Expr.Pow) expr;
+            if (pow.getBase() instanceof Expr.Const && pow.getExponent() instanceof Expr.Const)
+                return new Expr.Const(Math.pow(((Expr.Const) pow.getBase()).getValue(),
+                        ((Expr.Const) pow.getExponent()).getValue()));
+            return expr;
+        }
+
+        Expr.Fold fold = (Expr.Fold) expr;
+        double result = fold.getOperator().getSeed();
+        for (Expr operand : fold.getOperands()) {
+            if (!(operand instanceof Expr.Const))
+                return expr;
+            result = fold.getOperator().apply(result, ((Expr.Const) operand).getValue());
+        }
+        return new Expr.Const(result);
+    }
+
+    /**
+     * Makes the expression for reading a child the tree walker expects but the node doesn't have.
+     * @param children  children of the node
+     * @param index     index of the missing child
+     * @return expression throwing what the tree walker throws
+     */
+    private static Expr fail(ArrayList<Node> children, int index) {
+        try {
+            children.get(index);
+        } catch (IndexOutOfBoundsException e) {
+            return new Expr.Fail(e);
+        }
+        throw new IllegalArgumentException("child " + index + " exists");
+    }
+
+    /**
+     * Strips the quotes around a string like the tree walker does when printing it.
+     * @param value value of a node
+     * @return value without a leading or trailing quote
+     */
+    private static String unquote(String value) {
+        return value.replaceAll("^\"|\"$", "");
+    }
+}
@@ -0,0 +1,40 @@
+package runner.ir;
+
+import java.util.List;
+
+/**         Program.java
+ *  A lowered program: its statements, in the order they run, and its variables, by slot.
+ */
+public class Program {
+
+    private final Stmt[] body;
+    private final Variable[] variables;
+
+    Program(Stmt[] body, List<Variable> variables) {
+        this.body = body;
+        this.variables = variables.toArray(new Variable[0]);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Makes the values the variables start with.
+     * @return array holding the initial value of every variable at its slot
+     */
+    public double[] initialValues() {
+        double[] values = new double[variables.length];
+        for (Variable variable : variables)
+            values[variable.getIndex()] = variable.getInitialValue();
+        return values;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Stmt[] getBody() {
+        return body;
+    }
+
+    public Variable[] getVariables() {
+        return variables;
+    }
+}
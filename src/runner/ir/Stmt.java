@@ -0,0 +1,165 @@
+package runner.ir;
+
+/**         Stmt.java
+ *  Statement of a lowered program. The kinds are nested classes: Assign, Print and While. Blocks don't need a
+ *  statement of their own, since every variable was already resolved to the scope it belongs to.
+ */
+public abstract class Stmt {
+
+    private Stmt() {
+    }
+
+    /**
+     * Assigns the value of an expression to a variable. The variable is null if the tree walker wouldn't find a
+     * declaration to update: the expression is still evaluated, but nothing is stored.
+     */
+    public static final class Assign extends Stmt {
+
+        private final Variable variable;
+        private final Expr value;
+
+        public Assign(Variable variable, Expr value) {
+            this.variable = variable;
+            this.value = value;
+        }
+
+        public Variable getVariable() {
+            return variable;
+        }
+
+        public Expr getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return variable + " = " + value;
+        }
+    }
+
+    /**
+     * Prints a line. Item i is texts[i] if that isn't null, otherwise the number values[i] gives.
+     */
+    public static final class Print extends Stmt {
+
+        private final String[] texts;
+        private final Expr[] values;
+
+        public Print(String[] texts, Expr[] values) {
+            this.texts = texts;
+            this.values = values;
+        }
+
+        public int size() {
+            return texts.length;
+        }
+
+        public String getText(int item) {
+            return texts[item];
+        }
+
+        public Expr getValue(int item) {
+            return values[item];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder("print(");
+            for (int i = 0; i < texts.length; i++)
+                str.append(i > 0 ? ", " : "").append(texts[i] != null ? '"' + texts[i] + '"' : values[i]);
+            return str.append(')').toString();
+        }
+    }
+
+    /**
+     * Runs its body while left (relation) right holds. Both sides are evaluated every time, left first, even if
+     * the relation is NONE.
+     */
+    public static final class While extends Stmt {
+
+        private final Relation relation;
+        private final Expr left;
+        private final Expr right;
+        private final Stmt[] body;
+
+        public While(Relation relation, Expr left, Expr right, Stmt[] body) {
+            this.relation = relation;
+            this.left = left;
+            this.right = right;
+            this.body = body;
+        }
+
+        public Relation getRelation() {
+            return relation;
+        }
+
+        public Expr getLeft() {
+            return left;
+        }
+
+        public Expr getRight() {
+            return right;
+        }
+
+        public Stmt[] getBody() {
+            return body;
+        }
+
+        @Override
+        public String toString() {
+            return "while (" + left + " " + relation + " " + right + ") [" + body.length + " statements]";
+        }
+    }
+
+    /**
+     * Relations of a while condition.
+     */
+    public enum Relation {
+        EQ, NE, LT, LE, GT, GE,
+        /** anything the tree walker doesn't know as a relation, which is never true */
+        NONE;
+
+        /**
+         * Finds the relation of an AST operator node.
+         * @param keyword keyword of the node
+         * @return the relation, NONE if the keyword isn't one
+         */
+        public static Relation of(String keyword) {
+            switch (keyword) {
+                case "opeq":
+                    return EQ;
+                case "opne":
+                    return NE;
+                case "angle1":
+                    return LT;
+                case "ople":
+                    return LE;
+                case "angle2":
+                    return GT;
+                case "opge":
+                    return GE;
+                default:
+                    return NONE;
+            }
+        }
+
+        public boolean test(double left, double right) {
+            switch (this) {
+                case EQ:
+                    return left == right;
+                case NE:
+                    return left != right;
+                case LT:
+                    return left < right;
+                case LE:
+                    return left <= right;
+                case GT:
+                    return left > right;
+                case GE:
+                    return left >= right;
+                default:
+                    return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package runner.ir;
+
+import runner.sct.TableEntry;
+
+/**         Variable.java
+ *  A variable of a lowered program: one TableEntry of the scope tree, given a slot number. Every use that the
+ *  tree walker would resolve to the same entry (through findTableEntry(), from whatever scope it's in) uses the
+ *  same Variable, so an engine can keep all the variables in one array.
+ *
+ *  An entry doesn't always hold a number when the program starts. It can hold a String literal, which the tree
+ *  walker fails to parse on every read until something is assigned, or nothing at all (declared from an unknown
+ *  id), which reads as 0 in an expression but fails in a while condition. Engines only need to check reads of
+ *  the variables where isChecked() says so.
+ */
+public class Variable {
+
+    /** Slot of the variable, from 0 */
+    private final int index;
+    /** Name of the variable */
+    private final String name;
+    /** Value before anything is assigned (0 if the entry isn't a number) */
+    private final double initialValue;
+    /** Message of the NumberFormatException reading the entry throws before anything is assigned, or null */
+    private final String initialError;
+    /** TRUE if the entry has no value at all */
+    private final boolean empty;
+
+    Variable(int index, TableEntry entry) {
+        this.index = index;
+        this.name = entry.getId();
+
+        double value = 0;
+        String error = null;
+        if (!entry.hasValue()) {
+            error = "empty String"; // what Double.parseDouble("") says
+        } else {
+            try {
+                value = entry.getNumber();
+            } catch (NumberFormatException e) {
+                error = e.getMessage();
+            }
+        }
+
+        this.initialValue = value;
+        this.initialError = error;
+        this.empty = !entry.hasValue();
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Can a read of this variable fail? Only until the first assignment, which the engine has to keep track of.
+     * @param strict TRUE for a read in a while condition (SCTNode.findNumber()), FALSE for one in an expression
+     *               (Operations.doOperation())
+     * @return TRUE if the read has to be checked
+     */
+    public boolean isChecked(boolean strict) {
+        return initialError != null && (strict || !empty);
+    }
+
+    /**
+     * Makes the exception a checked read throws before anything was assigned to the variable.
+     * @return exception to throw
+     */
+    public NumberFormatException readError() {
+        return new NumberFormatException(initialError);
+    }
+
+    @Override
+    public String toString() {
+        return name + "#" + index;
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getInitialValue() {
+        return initialValue;
+    }
+
+    /**
+     * Returns if any read of the variable can fail, so assignments have to be tracked.
+     * @return TRUE if isChecked(true)
+     */
+    public boolean needsCheck() {
+        return initialError != null;
+    }
+}
@@ -0,0 +1,436 @@
+package runner.jvm;
+
+import parser.pst.Node;
+import runner.ir.Expr;
+import runner.ir.Lowering;
+import runner.ir.Program;
+import runner.ir.Stmt;
+import runner.ir.Variable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**         BytecodeCompiler.java
+ *  Compiles a lowered program to a JVM class with a single method, static void run(JvmRuntime), and loads it as a
+ *  hidden class. Every variable is a double local of the method (and an int local telling if it was assigned, for
+ *  the ones whose reads have to be checked), so once HotSpot compiles the method the program's loops run as
+ *  machine code. Everything else goes through JvmRuntime.
+ *
+ *  The operand stack is empty between statements, and all the locals are set before the first one, so every
+ *  branch target has the same stack map frame. A while is rotated like in runner.vm.Compiler: goto test; body;
+ *  test: if (condition) goto body.
+ *
+ *  What the class file format can't hold throws a ClassTooLargeException: more locals or code than a method can
+ *  have, or a jump too far for a 16 bit offset. The caller runs such a program with an interpreter instead.
+ */
+public class BytecodeCompiler {
+
+    private static final String CLASS_NAME = "runner/jvm/CompiledCode";
+    private static final String RUNTIME = "runner/jvm/JvmRuntime";
+    private static final String METHOD_DESCRIPTOR = "(L" + RUNTIME + ";)V";
+
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC = 0x12;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ILOAD = 0x15;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ISTORE = 0x36;
+    private static final int DSTORE = 0x39;
+    private static final int POP2 = 0x58;
+    private static final int DUP2_X2 = 0x5e;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int DCMPL = 0x97;
+    private static final int DCMPG = 0x98;
+    private static final int IFEQ = 0x99;
+    private static final int IFNE = 0x9a;
+    private static final int IFLT = 0x9b;
+    private static final int IFGE = 0x9c;
+    private static final int IFGT = 0x9d;
+    private static final int IFLE = 0x9e;
+    private static final int GOTO = 0xa7;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int WIDE = 0xc4;
+
+    /** Stack map verification types */
+    private static final int ITEM_INTEGER = 1;
+    private static final int ITEM_DOUBLE = 3;
+    private static final int ITEM_OBJECT = 7;
+
+    private final Program program;
+    private final ClassWriter writer = new ClassWriter(CLASS_NAME);
+    private byte[] code = new byte[256];
+    private int size;
+    private final ArrayList<RuntimeException> failures = new ArrayList<RuntimeException>();
+    /** Offsets jumped to, which need a stack map frame */
+    private final TreeSet<Integer> targets = new TreeSet<Integer>();
+    /** [slot] -> local of the int telling if the variable was assigned, or -1 if it doesn't need one */
+    private final int[] assignedLocals;
+    private final int maxLocals;
+    /** Operand stack depth, in slots (a double takes two) */
+    private int stack;
+    private int maxStack;
+
+    private BytecodeCompiler(Program program) throws ClassTooLargeException {
+        this.program = program;
+        Variable[] variables = program.getVariables();
+        assignedLocals = new int[variables.length];
+        int local = 1 + 2 * variables.length; // local 0 is the JvmRuntime
+        for (Variable variable : variables)
+            assignedLocals[variable.getIndex()] = variable.needsCheck() ? local++ : -1;
+        maxLocals = local;
+        if (maxLocals > 0xFFFF)
+            throw new ClassTooLargeException("too many variables for one method");
+    }
+
+    /**
+     * Lowers an AST, compiles it and loads the class.
+     * @param astRoot   root of the AST
+     * @return the compiled program
+     * @throws ClassTooLargeException if the program doesn't fit in a class
+     */
+    public static CompiledProgram compile(Node astRoot) throws ClassTooLargeException {
+        return compile(Lowering.lower(astRoot));
+    }
+
+    /**
+     * Compiles a lowered program and loads the class.
+     * @param program   lowered program
+     * @return the compiled program
+     * @throws ClassTooLargeException if the program doesn't fit in a class
+     */
+    public static CompiledProgram compile(Program program) throws ClassTooLargeException {
+        BytecodeCompiler compiler = new BytecodeCompiler(program);
+        byte[] bytes = compiler.toClassFile();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            MethodHandle method = lookup.findStatic(lookup.lookupClass(), "run",
+                    MethodType.methodType(void.class, JvmRuntime.class));
+            return new CompiledProgram(program, method, compiler.failures.toArray(new RuntimeException[0]),
+                    bytes.length);
+        } catch (LinkageError e) { // the class didn't verify or link, which is a bug in the compiler
+            throw new IllegalStateException("can't load the compiled class", e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compiles the program to a class file.
+     * @return the class file
+     */
+    private byte[] toClassFile() throws ClassTooLargeException {
+        for (Variable variable : program.getVariables()) {
+            pushDouble(variable.getInitialValue());
+            local(DSTORE, 1 + 2 * variable.getIndex(), -2);
+            if (assignedLocals[variable.getIndex()] >= 0) {
+                op(ICONST_0, 1);
+                local(ISTORE, assignedLocals[variable.getIndex()], -1);
+            }
+        }
+        statements(program.getBody());
+        op(RETURN, 0);
+
+        if (size > 0xFFFF)
+            throw new ClassTooLargeException("program too large for one method");
+        if (maxStack > 0xFFFF)
+            throw new ClassTooLargeException("expression too deep for one method");
+        return writer.toByteArray("run", METHOD_DESCRIPTOR, Arrays.copyOf(code, size), maxStack, maxLocals,
+                targets.isEmpty() ? null : frames(), targets.size());
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    private void statements(Stmt[] statements) throws ClassTooLargeException {
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.Assign)
+                assign((Stmt.Assign) statement);
+            else if (statement instanceof Stmt.Print)
+                print((Stmt.Print) statement);
+            else
+                loop((Stmt.While) statement);
+        }
+    }
+
+    private void assign(Stmt.Assign assign) throws ClassTooLargeException {
+        expression(assign.getValue());
+        Variable variable = assign.getVariable();
+        if (variable == null) {
+            op(POP2, -2);
+            return;
+        }
+
+        local(DSTORE, 1 + 2 * variable.getIndex(), -2);
+        if (variable.needsCheck()) {
+            op(ICONST_1, 1);
+            local(ISTORE, assignedLocals[variable.getIndex()], -1);
+        }
+    }
+
+    private void print(Stmt.Print print) throws ClassTooLargeException {
+        for (int i = 0; i < print.size(); i++) {
+            op(ALOAD_0, 1);
+            if (print.getText(i) != null) {
+                int index = writer.string(print.getText(i));
+                if (index <= 0xFF) {
+                    op(LDC, 1);
+                    u1(index);
+                } else {
+                    op(LDC_W, 1);
+                    u2(index);
+                }
+                invoke(INVOKEVIRTUAL, RUNTIME, "print", "(Ljava/lang/String;)V", -2);
+            } else {
+                expression(print.getValue(i));
+                invoke(INVOKEVIRTUAL, RUNTIME, "print", "(D)V", -3);
+            }
+        }
+        op(ALOAD_0, 1);
+        invoke(INVOKEVIRTUAL, RUNTIME, "println", "()V", -1);
+    }
+
+    private void loop(Stmt.While loop) throws ClassTooLargeException {
+        int jump = size;
+        op(GOTO, 0);
+        u2(0);
+        int body = size;
+        targets.add(body);
+        statements(loop.getBody());
+
+        int test = size;
+        targets.add(test);
+        patch(jump, test);
+        expression(loop.getLeft());
+        expression(loop.getRight());
+        switch (loop.getRelation()) {
+            // dcmpg gives 1 if either is NaN and dcmpl -1, so a comparison with NaN never jumps, except for NE
+            case EQ:
+                branch(DCMPL, IFEQ, body);
+                break;
+            case NE:
+                branch(DCMPL, IFNE, body);
+                break;
+            case LT:
+                branch(DCMPG, IFLT, body);
+                break;
+            case LE:
+                branch(DCMPG, IFLE, body);
+                break;
+            case GT:
+                branch(DCMPL, IFGT, body);
+                break;
+            case GE:
+                branch(DCMPL, IFGE, body);
+                break;
+            default:
+                op(POP2, -2);
+                op(POP2, -2);
+        }
+    }
+
+    /**
+     * Compiles an expression, which leaves its value on the stack.
+     * @param expr  expression
+     */
+    private void expression(Expr expr) throws ClassTooLargeException {
+        if (expr instanceof Expr.Const) {
+            pushDouble(((Expr.Const) expr).getValue());
+
+        } else if (expr instanceof Expr.Load) {
+            Expr.Load load = (Expr.Load) expr;
+            int slot = load.getVariable().getIndex();
+            if (load.isChecked()) {
+                op(ALOAD_0, 1);
+                local(ILOAD, assignedLocals[slot], 1);
+                pushInt(slot);
+                invoke(INVOKEVIRTUAL, RUNTIME, "check", "(II)V", -3);
+            }
+            local(DLOAD, 1 + 2 * slot, 2);
+
+        } else if (expr instanceof Expr.Pow) {
+            expression(((Expr.Pow) expr).getBase());
+            expression(((Expr.Pow) expr).getExponent());
+            invoke(INVOKESTATIC, "java/lang/Math", "pow", "(DD)D", -2);
+
+        } else if (expr instanceof Expr.Fail) {
+            failures.add(((Expr.Fail) expr).getError());
+            op(ALOAD_0, 1);
+            pushInt(failures.size() - 1);
+            invoke(INVOKEVIRTUAL, RUNTIME, "fail", "(I)D", 0);
+
+        } else {
+            Expr.Fold fold = (Expr.Fold) expr;
+            Expr[] operands = fold.getOperands();
+            if (operands.length == 0) {
+                pushDouble(fold.getOperator().getSeed());
+                return;
+            }
+
+            // the seed only changes anything for a PLUS (see Expr.Fold.needsSeed())
+            int first = 1;
+            if (fold.needsSeed()) {
+                pushDouble(fold.getOperator().getSeed());
+                first = 0;
+            } else {
+                expression(operands[0]);
+            }
+            for (int i = first; i < operands.length; i++) {
+                expression(operands[i]);
+                switch (fold.getOperator()) {
+                    case PLUS:
+                        op(DADD, -2);
+                        break;
+                    case MINUS:
+                        swap();
+                        op(DSUB, -2);
+                        break;
+                    case TIMES:
+                        op(DMUL, -2);
+                        break;
+                    default:
+                        swap();
+                        op(DDIV, -2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Swaps the two doubles on top of the stack, so MINUS and DIVIDE get the operand before the result so far.
+     */
+    private void swap() {
+        op(DUP2_X2, 2);
+        op(POP2, -2);
+    }
+
+    private void pushDouble(double value) throws ClassTooLargeException {
+        if (Double.doubleToRawLongBits(value) == 0) {
+            op(DCONST_0, 2);
+        } else if (value == 1) {
+            op(DCONST_1, 2);
+        } else {
+            op(LDC2_W, 2);
+            u2(writer.doubleConstant(value));
+        }
+    }
+
+    private void pushInt(int value) throws ClassTooLargeException {
+        if (value > Short.MAX_VALUE)
+            throw new ClassTooLargeException("too many variables or failures for sipush");
+        if (value <= Byte.MAX_VALUE) {
+            op(BIPUSH, 1);
+            u1(value);
+        } else {
+            op(SIPUSH, 1);
+            u2(value);
+        }
+    }
+
+    /**
+     * Emits a load or store of a local, with the wide prefix if the index needs it.
+     */
+    private void local(int opcode, int index, int stackChange) {
+        if (index > 0xFF) {
+            op(WIDE, 0);
+            op(opcode, stackChange);
+            u2(index);
+        } else {
+            op(opcode, stackChange);
+            u1(index);
+        }
+    }
+
+    private void invoke(int opcode, String owner, String name, String descriptor, int stackChange)
+            throws ClassTooLargeException {
+        op(opcode, stackChange);
+        u2(writer.methodRef(owner, name, descriptor));
+    }
+
+    /**
+     * Emits a comparison of the two doubles on the stack, and a jump back to target if it holds.
+     */
+    private void branch(int compare, int jump, int target) throws ClassTooLargeException {
+        op(compare, -3);
+        int at = size;
+        op(jump, -1);
+        u2(0);
+        patch(at, target);
+    }
+
+    /**
+     * Sets the offset of the jump at an offset.
+     */
+    private void patch(int at, int target) throws ClassTooLargeException {
+        int offset = target - at;
+        if (offset != (short) offset)
+            throw new ClassTooLargeException("loop too large for a 16 bit jump");
+        code[at + 1] = (byte) (offset >> 8);
+        code[at + 2] = (byte) offset;
+    }
+
+    private void op(int opcode, int stackChange) {
+        u1(opcode);
+        stack += stackChange;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void u2(int value) {
+        u1(value >> 8);
+        u1(value);
+    }
+
+    private void u1(int value) {
+        if (size == code.length)
+            code = Arrays.copyOf(code, size * 2);
+        code[size++] = (byte) value;
+    }
+
+    /**
+     * Makes the StackMapTable: a full frame at every target, with every local set and nothing on the stack.
+     * @return its entries
+     */
+    private byte[] frames() throws ClassTooLargeException {
+        Variable[] variables = program.getVariables();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int runtime = writer.classRef(RUNTIME);
+        int assigned = maxLocals - 1 - 2 * variables.length;
+        try {
+            int previous = -1;
+            for (int target : targets) {
+                out.writeByte(255); // full_frame
+                out.writeShort(target - previous - 1);
+                previous = target;
+                out.writeShort(1 + variables.length + assigned);
+                out.writeByte(ITEM_OBJECT);
+                out.writeShort(runtime);
+                for (int i = 0; i < variables.length; i++)
+                    out.writeByte(ITEM_DOUBLE);
+                for (int i = 0; i < assigned; i++)
+                    out.writeByte(ITEM_INTEGER);
+                out.writeShort(0);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
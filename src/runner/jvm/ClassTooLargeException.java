@@ -0,0 +1,27 @@
+package runner.jvm;
+
+/**         ClassTooLargeException.java
+ *  Thrown when a program doesn't fit in what a class file can hold: more locals, code or constants than a method or
+ *  class can have, or a jump too far for a 16 bit offset. Such a program has to be run some other way.
+ */
+public class ClassTooLargeException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates the exception.
+     * @param message   which limit the program went over
+     */
+    public ClassTooLargeException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates the exception.
+     * @param message   which limit the program went over
+     * @param cause     what the limit was found by
+     */
+    public ClassTooLargeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
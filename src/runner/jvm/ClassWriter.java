@@ -0,0 +1,196 @@
+package runner.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**         ClassWriter.java
+ *  Writes a class file holding a single public static method, which is all BytecodeCompiler needs: the constant
+ *  pool, the method and its Code attribute, with a StackMapTable if the code branches.
+ *
+ *  Anything the class file format can't hold (a pool over 65535 entries, a text too long for a Utf8 entry) throws
+ *  a ClassTooLargeException.
+ */
+final class ClassWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    /** Java 8 class files, the first version that has to have stack maps */
+    private static final int MAJOR_VERSION = 52;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private int poolCount = 1;
+    /** Key of an entry (its tag and content) -> its index, so no entry is written twice */
+    private final HashMap<String, Integer> entries = new HashMap<String, Integer>();
+    private final int thisClass;
+    private final int superClass;
+
+    /**
+     * Starts a class.
+     * @param name  internal name of the class (runner/jvm/Name)
+     */
+    ClassWriter(String name) throws ClassTooLargeException {
+        thisClass = classRef(name);
+        superClass = classRef("java/lang/Object");
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    int utf8(String value) throws ClassTooLargeException {
+        Integer index = entries.get("U" + value);
+        if (index != null)
+            return index;
+        try {
+            poolOut.writeByte(1);
+            poolOut.writeUTF(value);
+        } catch (IOException e) { // writeUTF() throws UTFDataFormatException if it's too long
+            throw new ClassTooLargeException("text too long for the constant pool", e);
+        }
+        return add("U" + value, 1);
+    }
+
+    int classRef(String internalName) throws ClassTooLargeException {
+        Integer index = entries.get("C" + internalName);
+        if (index != null)
+            return index;
+        int name = utf8(internalName);
+        write(7, name);
+        return add("C" + internalName, 1);
+    }
+
+    int string(String value) throws ClassTooLargeException {
+        Integer index = entries.get("S" + value);
+        if (index != null)
+            return index;
+        int utf8 = utf8(value);
+        write(8, utf8);
+        return add("S" + value, 1);
+    }
+
+    /**
+     * Adds a double (bit for bit, so -0.0 and 0.0 are two entries).
+     * @param value number
+     * @return index of its entry, which takes two
+     */
+    int doubleConstant(double value) {
+        String key = "D" + Double.doubleToRawLongBits(value);
+        Integer index = entries.get(key);
+        if (index != null)
+            return index;
+        try {
+            poolOut.writeByte(6);
+            poolOut.writeLong(Double.doubleToRawLongBits(value));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return add(key, 2);
+    }
+
+    int methodRef(String owner, String name, String descriptor) throws ClassTooLargeException {
+        String key = "M" + owner + '.' + name + descriptor;
+        Integer index = entries.get(key);
+        if (index != null)
+            return index;
+        int ownerClass = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        write(10, ownerClass, nameAndType);
+        return add(key, 1);
+    }
+
+    private int nameAndType(String name, String descriptor) throws ClassTooLargeException {
+        Integer index = entries.get("N" + name + descriptor);
+        if (index != null)
+            return index;
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        write(12, nameIndex, descriptorIndex);
+        return add("N" + name + descriptor, 1);
+    }
+
+    /**
+     * Writes the class file.
+     * @param methodName    name of the method
+     * @param descriptor    descriptor of the method
+     * @param code          code of the method
+     * @param maxStack      deepest its operand stack gets, in slots
+     * @param maxLocals     number of local variable slots, parameters included
+     * @param frames        StackMapTable entries, or null if the code doesn't branch
+     * @param frameCount    number of entries in frames
+     * @return the class file
+     * @throws ClassTooLargeException if the constant pool has too many entries
+     */
+    byte[] toByteArray(String methodName, String descriptor, byte[] code, int maxStack, int maxLocals,
+                       byte[] frames, int frameCount) throws ClassTooLargeException {
+        int nameIndex = utf8(methodName);
+        int descriptorIndex = utf8(descriptor);
+        int codeIndex = utf8("Code");
+        int stackMapIndex = frames != null ? utf8("StackMapTable") : 0;
+        if (poolCount > 0xFFFF)
+            throw new ClassTooLargeException("constant pool too large");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+
+            out.writeShort(1); // methods
+            out.writeShort(ACC_PUBLIC | ACC_STATIC);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(1); // attributes: Code
+            out.writeShort(codeIndex);
+            int stackMapLength = frames != null ? 6 + 2 + frames.length : 0;
+            out.writeInt(2 + 2 + 4 + code.length + 2 + 2 + stackMapLength);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // exception table
+            if (frames != null) {
+                out.writeShort(1);
+                out.writeShort(stackMapIndex);
+                out.writeInt(2 + frames.length);
+                out.writeShort(frameCount);
+                out.write(frames);
+            } else {
+                out.writeShort(0);
+            }
+
+            out.writeShort(0); // class attributes
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void write(int tag, int... indexes) {
+        try {
+            poolOut.writeByte(tag);
+            for (int index : indexes)
+                poolOut.writeShort(index);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int add(String key, int size) {
+        int index = poolCount;
+        poolCount += size;
+        entries.put(key, index);
+        return index;
+    }
+}
@@ -0,0 +1,60 @@
+package runner.jvm;
+
+import runner.ir.Program;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+
+/**         CompiledProgram.java
+ *  A program BytecodeCompiler compiled and loaded: the static method of its hidden class, and what the method needs
+ *  from the JvmRuntime. It can be run any number of times.
+ */
+public class CompiledProgram {
+
+    private final Program program;
+    /** static void run(JvmRuntime) of the hidden class */
+    private final MethodHandle method;
+    private final RuntimeException[] failures;
+    /** Size of the class file */
+    private final int classSize;
+
+    CompiledProgram(Program program, MethodHandle method, RuntimeException[] failures, int classSize) {
+        this.program = program;
+        this.method = method;
+        this.failures = failures;
+        this.classSize = classSize;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Runs the program.
+     * @param out   stream to print to
+     */
+    public void run(PrintStream out) {
+        JvmRuntime runtime = new JvmRuntime(program.getVariables(), failures, out);
+        try {
+            method.invokeExact(runtime);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) { // the method declares nothing, so this can't happen
+            throw new IllegalStateException(e);
+        } finally {
+            runtime.flush();
+        }
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * Returns the size of the class the program was compiled to.
+     * @return size of the class file, in bytes
+     */
+    public int getClassSize() {
+        return classSize;
+    }
+}
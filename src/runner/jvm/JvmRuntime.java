@@ -0,0 +1,67 @@
+package runner.jvm;
+
+import runner.ir.Variable;
+
+import java.io.PrintStream;
+
+/**         JvmRuntime.java
+ *  What a compiled program calls for what it can't do with bytecode alone: printing, failing the way the tree
+ *  walker fails, and checking reads of variables that can fail (see Variable.isChecked()). One per run.
+ *
+ *  Lines are printed like the stack VM prints them (see runner.vm.VM).
+ */
+final class JvmRuntime {
+
+    private final Variable[] variables;
+    private final RuntimeException[] failures;
+    private final PrintStream out;
+    private final StringBuilder line = new StringBuilder();
+
+    JvmRuntime(Variable[] variables, RuntimeException[] failures, PrintStream out) {
+        this.variables = variables;
+        this.failures = failures;
+        this.out = out;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    public void print(String text) {
+        line.append(text);
+    }
+
+    public void print(double value) {
+        line.append(value);
+    }
+
+    public void println() {
+        out.println(line.toString());
+        line.setLength(0);
+    }
+
+    /**
+     * Throws the exception of an Expr.Fail. Returns a double so the call can stand where the value would be.
+     * @param failure   index of the exception
+     * @return nothing, it always throws
+     */
+    public double fail(int failure) {
+        throw failures[failure];
+    }
+
+    /**
+     * Checks a read of a variable.
+     * @param assigned  1 if something was assigned to it, 0 if not
+     * @param slot      slot of the variable
+     */
+    public void check(int assigned, int slot) {
+        if (assigned == 0)
+            throw variables[slot].readError();
+    }
+
+    /**
+     * Prints the part of a line a failing program got to.
+     */
+    void flush() {
+        if (line.length() > 0)
+            out.print(line);
+    }
+}
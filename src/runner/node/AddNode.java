@@ -0,0 +1,30 @@
+package runner.node;
+
+/**         AddNode.java
+ *  plus: left + right.
+ */
+public final class AddNode extends BinaryNode {
+
+    AddNode(ExprNode left, ExprNode right) {
+        super(left, right);
+    }
+
+    public static AddNode create(ExprNode left, ExprNode right) {
+        return new AddNode(left, right);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    double apply(double a, double b) {
+        return a + b;
+    }
+
+    @Override
+    int applyInt(int a, int b) throws UnexpectedResultException {
+        int result = a + b;
+        if (((a ^ result) & (b ^ result)) < 0)
+            return generalize(a, b);
+        return result;
+    }
+}
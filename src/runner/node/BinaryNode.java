@@ -0,0 +1,129 @@
+package runner.node;
+
+/**         BinaryNode.java
+ *  Node of an operator with two operands, left and right. left is evaluated first.
+ *
+ *  The node specializes itself on its first run: to ints if both operands and the result were ints, to doubles if
+ *  not. Specialized to ints, it asks its operands for ints and goes over to doubles for good as soon as one of them,
+ *  or the int result, isn't. An operator only gives the double operation (apply()) and the int one with its
+ *  overflow/exactness check (applyInt()); one without an int form starts out on doubles.
+ */
+public abstract class BinaryNode extends ExprNode {
+
+    /** States of the node */
+    private static final int UNINITIALIZED = 0;
+    private static final int INTS = 1;
+    private static final int DOUBLES = 2;
+
+    ExprNode left;
+    ExprNode right;
+    /** UNINITIALIZED, INTS or DOUBLES */
+    private int state;
+
+    BinaryNode(ExprNode left, ExprNode right) {
+        this(left, right, true);
+    }
+
+    /**
+     * Constructor
+     * @param left      left operand
+     * @param right     right operand
+     * @param hasInts   FALSE if the operator has no int form, so the node starts out on doubles
+     */
+    BinaryNode(ExprNode left, ExprNode right, boolean hasInts) {
+        this.left = adopt(left);
+        this.right = adopt(right);
+        this.state = hasInts ? UNINITIALIZED : DOUBLES;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * The operator on doubles.
+     * @param a value of left
+     * @param b value of right
+     * @return the result
+     */
+    abstract double apply(double a, double b);
+
+    /**
+     * The operator on ints. It returns generalize(a, b) if the result isn't the int apply() gives.
+     * @param a value of left
+     * @param b value of right
+     * @return the result
+     * @throws UnexpectedResultException from generalize()
+     */
+    int applyInt(int a, int b) throws UnexpectedResultException {
+        return generalize(a, b);
+    }
+
+    @Override
+    public double executeDouble(Frame frame) {
+        if (state == INTS) {
+            try {
+                return executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return e.getResult();
+            }
+        }
+
+        double a = left.executeDouble(frame);
+        double b = right.executeDouble(frame);
+        double result = apply(a, b);
+        if (state == UNINITIALIZED)
+            state = isInt(a) && isInt(b) && isInt(result) ? INTS : DOUBLES;
+        return result;
+    }
+
+    @Override
+    public int executeInt(Frame frame) throws UnexpectedResultException {
+        if (state != INTS)
+            return asInt(executeDouble(frame));
+
+        int a;
+        try {
+            a = left.executeInt(frame);
+        } catch (UnexpectedResultException e) {
+            return generalize(e.getResult(), right.executeDouble(frame));
+        }
+        int b;
+        try {
+            b = right.executeInt(frame);
+        } catch (UnexpectedResultException e) {
+            return generalize(a, e.getResult());
+        }
+        return applyInt(a, b);
+    }
+
+    /**
+     * Goes over to doubles for good and finishes the operation on them.
+     * @param a value of left
+     * @param b value of right
+     * @return the result, if it is an int
+     * @throws UnexpectedResultException if it isn't, holding the result
+     */
+    final int generalize(double a, double b) throws UnexpectedResultException {
+        state = DOUBLES;
+        return asInt(apply(a, b));
+    }
+
+    @Override
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == left)
+            left = (ExprNode) replacement;
+        else if (child == right)
+            right = (ExprNode) replacement;
+        else
+            super.replaceChild(child, replacement);
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public ExprNode getLeft() {
+        return left;
+    }
+
+    public ExprNode getRight() {
+        return right;
+    }
+}
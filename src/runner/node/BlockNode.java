@@ -0,0 +1,32 @@
+package runner.node;
+
+/**         BlockNode.java
+ *  Statements run in order.
+ */
+public class BlockNode extends StmtNode {
+
+    private final StmtNode[] statements;
+
+    public BlockNode(StmtNode[] statements) {
+        this.statements = statements;
+        for (StmtNode statement : statements)
+            adopt(statement);
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        for (StmtNode statement : statements)
+            statement.execute(frame);
+    }
+
+    @Override
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        for (int i = 0; i < statements.length; i++) {
+            if (statements[i] == child) {
+                statements[i] = (StmtNode) replacement;
+                return;
+            }
+        }
+        super.replaceChild(child, replacement);
+    }
+}
@@ -0,0 +1,104 @@
+package runner.node;
+
+import runner.ir.Stmt.Relation;
+
+/**         CompareNode.java
+ *  Condition of a while: left (relation) right. Both sides are evaluated, left first, even if the relation is NONE.
+ *  Specializes to ints or doubles like a BinaryNode, but by replacing itself: Ints compares ints as long as both
+ *  sides are, Doubles compares doubles.
+ */
+public abstract class CompareNode extends ExecNode {
+
+    final Relation relation;
+    ExprNode left;
+    ExprNode right;
+
+    CompareNode(Relation relation, ExprNode left, ExprNode right) {
+        this.relation = relation;
+        this.left = adopt(left);
+        this.right = adopt(right);
+    }
+
+    public static CompareNode create(Relation relation, ExprNode left, ExprNode right) {
+        return new Uninitialized(relation, left, right);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Evaluates the condition.
+     * @param frame variables of the run
+     * @return TRUE if it holds
+     */
+    public abstract boolean executeBoolean(Frame frame);
+
+    @Override
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == left)
+            left = (ExprNode) replacement;
+        else if (child == right)
+            right = (ExprNode) replacement;
+        else
+            super.replaceChild(child, replacement);
+    }
+
+    static final class Uninitialized extends CompareNode {
+
+        Uninitialized(Relation relation, ExprNode left, ExprNode right) {
+            super(relation, left, right);
+        }
+
+        @Override
+        public boolean executeBoolean(Frame frame) {
+            double a = left.executeDouble(frame);
+            double b = right.executeDouble(frame);
+            if (ExprNode.isInt(a) && ExprNode.isInt(b))
+                replace(new Ints(relation, left, right));
+            else
+                replace(new Doubles(relation, left, right));
+            return relation.test(a, b);
+        }
+    }
+
+    static final class Ints extends CompareNode {
+
+        Ints(Relation relation, ExprNode left, ExprNode right) {
+            super(relation, left, right);
+        }
+
+        @Override
+        public boolean executeBoolean(Frame frame) {
+            int a;
+            try {
+                a = left.executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return generalize(e.getResult(), right.executeDouble(frame));
+            }
+            int b;
+            try {
+                b = right.executeInt(frame);
+            } catch (UnexpectedResultException e) {
+                return generalize(a, e.getResult());
+            }
+            return relation.test(a, b);
+        }
+
+        private boolean generalize(double a, double b) {
+            replace(new Doubles(relation, left, right));
+            return relation.test(a, b);
+        }
+    }
+
+    static final class Doubles extends CompareNode {
+
+        Doubles(Relation relation, ExprNode left, ExprNode right) {
+            super(relation, left, right);
+        }
+
+        @Override
+        public boolean executeBoolean(Frame frame) {
+            double a = left.executeDouble(frame);
+            return relation.test(a, right.executeDouble(frame));
+        }
+    }
+}
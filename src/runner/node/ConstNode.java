@@ -0,0 +1,47 @@
+package runner.node;
+
+/**         ConstNode.java
+ *  A number. Whether it's an int is known when the tree is built, so there is nothing to specialize.
+ */
+public abstract class ConstNode extends ExprNode {
+
+    ConstNode() {
+    }
+
+    public static ConstNode create(double value) {
+        return isInt(value) ? new Ints((int) value) : new Doubles(value);
+    }
+
+    static final class Ints extends ConstNode {
+
+        private final int value;
+
+        Ints(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int executeInt(Frame frame) {
+            return value;
+        }
+
+        @Override
+        public double executeDouble(Frame frame) {
+            return value;
+        }
+    }
+
+    static final class Doubles extends ConstNode {
+
+        private final double value;
+
+        Doubles(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public double executeDouble(Frame frame) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package runner.node;
+
+/**         DivNode.java
+ *  slash: right / left, like Operations.doOperation(), which divides the next operand by the result so far.
+ */
+public final class DivNode extends BinaryNode {
+
+    DivNode(ExprNode left, ExprNode right) {
+        super(left, right);
+    }
+
+    public static DivNode create(ExprNode left, ExprNode right) {
+        return new DivNode(left, right);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    double apply(double a, double b) {
+        return b / a;
+    }
+
+    @Override
+    int applyInt(int a, int b) throws UnexpectedResultException {
+        // only if the quotient is an int too, and not -0.0
+        if (a == 0 || b % a != 0 || b == 0 && a < 0 || b == Integer.MIN_VALUE && a == -1)
+            return generalize(a, b);
+        return b / a;
+    }
+}
@@ -0,0 +1,27 @@
+package runner.node;
+
+/**         EvalNode.java
+ *  Evaluates an expression and drops the value: an assignment the tree walker finds no declaration for (see
+ *  Stmt.Assign).
+ */
+public class EvalNode extends StmtNode {
+
+    private ExprNode value;
+
+    public EvalNode(ExprNode value) {
+        this.value = adopt(value);
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        value.executeDouble(frame);
+    }
+
+    @Override
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == value)
+            value = (ExprNode) replacement;
+        else
+            super.replaceChild(child, replacement);
+    }
+}
@@ -0,0 +1,49 @@
+package runner.node;
+
+/**         ExecNode.java
+ *  Node of an executable tree (see NodeBuilder). Every kind of node runs itself, and a node that has seen what its
+ *  operands hold can replace itself with one that only handles that (see replace()): after the first run the tree
+ *  is made of the specializations it needs, and every call to a child goes to one class.
+ */
+public abstract class ExecNode {
+
+    private ExecNode parent;
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Makes this node the parent of a child. Every node adopts its children when it's made.
+     * @param child child node
+     * @return the child
+     */
+    protected final <T extends ExecNode> T adopt(T child) {
+        ((ExecNode) child).parent = this;
+        return child;
+    }
+
+    /**
+     * Replaces this node in its parent. The replacement has to have adopted this node's children already.
+     * @param replacement node to take its place
+     * @return the replacement
+     */
+    protected final <T extends ExecNode> T replace(T replacement) {
+        parent.replaceChild(this, replacement);
+        ((ExecNode) replacement).parent = parent;
+        return replacement;
+    }
+
+    /**
+     * Replaces a child with another node. Nodes whose children can replace themselves override this.
+     * @param child         child to replace
+     * @param replacement   node to take its place
+     */
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        throw new IllegalStateException(getClass().getSimpleName() + " can't replace " + child);
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public ExecNode getParent() {
+        return parent;
+    }
+}
@@ -0,0 +1,52 @@
+package runner.node;
+
+/**         ExprNode.java
+ *  Node of an expression. Every value is a double, as in Operations.doOperation(), but most of the values a
+ *  program computes are whole numbers: a node specialized for ints asks its operands for ints (executeInt()), and
+ *  only falls back to doubles when one isn't. Int results are always the exact double result, so both give the
+ *  same output.
+ *
+ *  Operands are evaluated left first, the order Expr evaluates them in.
+ */
+public abstract class ExprNode extends ExecNode {
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Evaluates the expression.
+     * @param frame variables of the run
+     * @return the value
+     */
+    public abstract double executeDouble(Frame frame);
+
+    /**
+     * Evaluates the expression, expecting an int.
+     * @param frame variables of the run
+     * @return the value
+     * @throws UnexpectedResultException if the value isn't an int, holding the value
+     */
+    public int executeInt(Frame frame) throws UnexpectedResultException {
+        return asInt(executeDouble(frame));
+    }
+
+    /**
+     * Is a double an int? -0.0 isn't, since the int 0 would lose its sign.
+     * @param value value to test
+     * @return TRUE if an int holds exactly the same value
+     */
+    static boolean isInt(double value) {
+        return (int) value == value && Double.doubleToRawLongBits(value) != Long.MIN_VALUE;
+    }
+
+    /**
+     * Turns a double into the int it is.
+     * @param value value
+     * @return the value as an int
+     * @throws UnexpectedResultException if it isn't one (see isInt())
+     */
+    static int asInt(double value) throws UnexpectedResultException {
+        if (!isInt(value))
+            throw new UnexpectedResultException(value);
+        return (int) value;
+    }
+}
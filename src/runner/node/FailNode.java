@@ -0,0 +1,18 @@
+package runner.node;
+
+/**         FailNode.java
+ *  An expression the tree walker can't evaluate (see Expr.Fail): it throws.
+ */
+public class FailNode extends ExprNode {
+
+    private final RuntimeException error;
+
+    public FailNode(RuntimeException error) {
+        this.error = error;
+    }
+
+    @Override
+    public double executeDouble(Frame frame) {
+        throw error;
+    }
+}
@@ -0,0 +1,65 @@
+package runner.node;
+
+import runner.ir.Program;
+import runner.ir.Variable;
+
+import java.io.PrintStream;
+
+/**         Frame.java
+ *  Variables of one run of a program, by slot (see Variable), and where it prints to. A variable holds an int or a
+ *  double, and its tag says which, so int nodes can read and write ints without converting.
+ *
+ *  A variable that can fail to be read (Variable.needsCheck()) starts out UNASSIGNED: its double is the value an
+ *  unchecked read gives, and a checked read throws.
+ */
+public class Frame {
+
+    static final byte INT = 0;
+    static final byte DOUBLE = 1;
+    static final byte UNASSIGNED = 2;
+
+    final int[] ints;
+    final double[] doubles;
+    final byte[] tags;
+    final Variable[] variables;
+    /** Where the program's prints go */
+    final PrintStream out;
+
+    /**
+     * Creates a frame holding the values the program starts with.
+     * @param program   program to run
+     * @param out       stream to print to
+     */
+    public Frame(Program program, PrintStream out) {
+        this.variables = program.getVariables();
+        this.ints = new int[variables.length];
+        this.doubles = new double[variables.length];
+        this.tags = new byte[variables.length];
+        this.out = out;
+
+        for (Variable variable : variables) {
+            int slot = variable.getIndex();
+            double value = variable.getInitialValue();
+            if (variable.needsCheck()) {
+                doubles[slot] = value;
+                tags[slot] = UNASSIGNED;
+            } else if (ExprNode.isInt(value)) {
+                setInt(slot, (int) value);
+            } else {
+                setDouble(slot, value);
+            }
+        }
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    void setInt(int slot, int value) {
+        ints[slot] = value;
+        tags[slot] = INT;
+    }
+
+    void setDouble(int slot, double value) {
+        doubles[slot] = value;
+        tags[slot] = DOUBLE;
+    }
+}
@@ -0,0 +1,31 @@
+package runner.node;
+
+/**         MulNode.java
+ *  aster: left * right.
+ */
+public final class MulNode extends BinaryNode {
+
+    MulNode(ExprNode left, ExprNode right) {
+        super(left, right);
+    }
+
+    public static MulNode create(ExprNode left, ExprNode right) {
+        return new MulNode(left, right);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    double apply(double a, double b) {
+        return a * b;
+    }
+
+    @Override
+    int applyInt(int a, int b) throws UnexpectedResultException {
+        long result = (long) a * b;
+        // 0 times a negative int is -0.0
+        if ((int) result != result || result == 0 && (a < 0 || b < 0))
+            return generalize(a, b);
+        return (int) result;
+    }
+}
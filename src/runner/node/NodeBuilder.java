@@ -0,0 +1,119 @@
+package runner.node;
+
+import parser.pst.Node;
+import runner.ir.Expr;
+import runner.ir.Lowering;
+import runner.ir.Program;
+import runner.ir.Stmt;
+
+/**         NodeBuilder.java
+ *  Builds the executable tree of a lowered program: every statement and expression gets a node of its own kind,
+ *  which starts out uninitialized (see BinaryNode). A Fold becomes a chain of BinaryNodes, each with the result so
+ *  far on the left and the next operand on the right.
+ */
+public class NodeBuilder {
+
+    private NodeBuilder() {
+    }
+
+    /**
+     * Lowers an AST and builds its executable tree.
+     * @param astRoot   root of the AST
+     * @return root of the executable tree
+     */
+    public static ProgramNode build(Node astRoot) {
+        return build(Lowering.lower(astRoot));
+    }
+
+    /**
+     * Builds the executable tree of a lowered program.
+     * @param program   lowered program
+     * @return root of the executable tree
+     */
+    public static ProgramNode build(Program program) {
+        return new ProgramNode(program, block(program.getBody()));
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    private static BlockNode block(Stmt[] statements) {
+        StmtNode[] nodes = new StmtNode[statements.length];
+        for (int i = 0; i < statements.length; i++)
+            nodes[i] = statement(statements[i]);
+        return new BlockNode(nodes);
+    }
+
+    private static StmtNode statement(Stmt statement) {
+        if (statement instanceof Stmt.Assign) {
+            Stmt.Assign assign = (Stmt.Assign) statement;
+            if (assign.getVariable() == null)
+                return new EvalNode(expression(assign.getValue()));
+            return WriteNode.create(assign.getVariable(), expression(assign.getValue()));
+        }
+
+        if (statement instanceof Stmt.Print) {
+            Stmt.Print print = (Stmt.Print) statement;
+            String[] texts = new String[print.size()];
+            ExprNode[] values = new ExprNode[print.size()];
+            for (int i = 0; i < print.size(); i++) {
+                texts[i] = print.getText(i);
+                if (texts[i] == null)
+                    values[i] = expression(print.getValue(i));
+            }
+            return new PrintNode(texts, values);
+        }
+
+        Stmt.While loop = (Stmt.While) statement;
+        return new WhileNode(CompareNode.create(loop.getRelation(), expression(loop.getLeft()),
+                expression(loop.getRight())), block(loop.getBody()));
+    }
+
+    private static ExprNode expression(Expr expr) {
+        if (expr instanceof Expr.Const)
+            return ConstNode.create(((Expr.Const) expr).getValue());
+
+        if (expr instanceof Expr.Load) {
+            Expr.Load load = (Expr.Load) expr;
+            return VarReadNode.create(load.getVariable(), load.isChecked());
+        }
+
+        if (expr instanceof Expr.Pow)
+            return PowNode.create(expression(((Expr.Pow) expr).getBase()),
+                    expression(((Expr.Pow) expr).getExponent()));
+
+        if (expr instanceof Expr.Fail)
+            return new FailNode(((Expr.Fail) expr).getError());
+
+        Expr.Fold fold = (Expr.Fold) expr;
+        Expr[] operands = fold.getOperands();
+        if (operands.length == 0)
+            return ConstNode.create(fold.getOperator().getSeed());
+
+        // the seed only changes anything for a PLUS (see Expr.Fold.needsSeed()), where it's the left of the first one
+        ExprNode result;
+        int first;
+        if (fold.needsSeed()) {
+            result = ConstNode.create(fold.getOperator().getSeed());
+            first = 0;
+        } else {
+            result = expression(operands[0]);
+            first = 1;
+        }
+        for (int i = first; i < operands.length; i++)
+            result = binary(fold.getOperator(), result, expression(operands[i]));
+        return result;
+    }
+
+    private static ExprNode binary(Expr.Operator operator, ExprNode left, ExprNode right) {
+        switch (operator) {
+            case PLUS:
+                return AddNode.create(left, right);
+            case MINUS:
+                return SubNode.create(left, right);
+            case TIMES:
+                return MulNode.create(left, right);
+            default:
+                return DivNode.create(left, right);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package runner.node;
+
+/**         PowNode.java
+ *  caret: left ^ right. It has no int form: Math.pow() works on doubles anyway.
+ */
+public final class PowNode extends BinaryNode {
+
+    PowNode(ExprNode left, ExprNode right) {
+        super(left, right, false);
+    }
+
+    public static PowNode create(ExprNode left, ExprNode right) {
+        return new PowNode(left, right);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    double apply(double a, double b) {
+        return Math.pow(a, b);
+    }
+}
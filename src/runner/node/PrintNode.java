@@ -0,0 +1,47 @@
+package runner.node;
+
+/**         PrintNode.java
+ *  Prints a line. Item i is texts[i] if that isn't null, otherwise the number values[i] gives. If an item throws,
+ *  the items before it are still printed, like the tree walker prints them.
+ */
+public class PrintNode extends StmtNode {
+
+    private final String[] texts;
+    private final ExprNode[] values;
+
+    public PrintNode(String[] texts, ExprNode[] values) {
+        this.texts = texts;
+        this.values = values;
+        for (ExprNode value : values)
+            if (value != null)
+                adopt(value);
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        StringBuilder line = new StringBuilder();
+        try {
+            for (int i = 0; i < texts.length; i++) {
+                if (texts[i] != null)
+                    line.append(texts[i]);
+                else
+                    line.append(values[i].executeDouble(frame));
+            }
+        } catch (RuntimeException e) {
+            frame.out.print(line);
+            throw e;
+        }
+        frame.out.println(line.toString());
+    }
+
+    @Override
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == child) {
+                values[i] = (ExprNode) replacement;
+                return;
+            }
+        }
+        super.replaceChild(child, replacement);
+    }
+}
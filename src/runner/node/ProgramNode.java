@@ -0,0 +1,33 @@
+package runner.node;
+
+import runner.ir.Program;
+
+import java.io.PrintStream;
+
+/**         ProgramNode.java
+ *  Root of an executable tree. Each run gets a new Frame, but the nodes keep the specializations earlier runs left.
+ */
+public class ProgramNode extends ExecNode {
+
+    private final Program program;
+    private final BlockNode body;
+
+    public ProgramNode(Program program, BlockNode body) {
+        this.program = program;
+        this.body = adopt(body);
+    }
+
+    /**
+     * Runs the program.
+     * @param out   stream to print to
+     */
+    public void execute(PrintStream out) {
+        body.execute(new Frame(program, out));
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Program getProgram() {
+        return program;
+    }
+}
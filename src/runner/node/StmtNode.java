@@ -0,0 +1,13 @@
+package runner.node;
+
+/**         StmtNode.java
+ *  Node of a statement.
+ */
+public abstract class StmtNode extends ExecNode {
+
+    /**
+     * Runs the statement.
+     * @param frame variables of the run
+     */
+    public abstract void execute(Frame frame);
+}
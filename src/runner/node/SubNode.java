@@ -0,0 +1,30 @@
+package runner.node;
+
+/**         SubNode.java
+ *  minus: right - left, like Operations.doOperation(), which takes the result so far from the next operand.
+ */
+public final class SubNode extends BinaryNode {
+
+    SubNode(ExprNode left, ExprNode right) {
+        super(left, right);
+    }
+
+    public static SubNode create(ExprNode left, ExprNode right) {
+        return new SubNode(left, right);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    double apply(double a, double b) {
+        return b - a;
+    }
+
+    @Override
+    int applyInt(int a, int b) throws UnexpectedResultException {
+        int result = b - a;
+        if (((b ^ a) & (b ^ result)) < 0)
+            return generalize(a, b);
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package runner.node;
+
+/**         UnexpectedResultException.java
+ *  Thrown by ExprNode.executeInt() when the value isn't an int after all. It carries the value, so nothing has to
+ *  be evaluated again.
+ */
+public class UnexpectedResultException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final double result;
+
+    public UnexpectedResultException(double result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    public double getResult() {
+        return result;
+    }
+}
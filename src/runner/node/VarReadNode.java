@@ -0,0 +1,91 @@
+package runner.node;
+
+import runner.ir.Variable;
+
+/**         VarReadNode.java
+ *  The value of a variable. Ints reads a variable that has only held ints so far; Doubles reads whatever it holds.
+ */
+public abstract class VarReadNode extends ExprNode {
+
+    final Variable variable;
+    final int slot;
+    /** TRUE if the read fails while the variable is UNASSIGNED (see Variable.isChecked()) */
+    final boolean checked;
+
+    VarReadNode(Variable variable, boolean checked) {
+        this.variable = variable;
+        this.slot = variable.getIndex();
+        this.checked = checked;
+    }
+
+    public static VarReadNode create(Variable variable, boolean checked) {
+        return new Uninitialized(variable, checked);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Reads the variable, whatever it holds.
+     * @param frame variables of the run
+     * @return its value
+     */
+    final double read(Frame frame) {
+        byte tag = frame.tags[slot];
+        if (tag == Frame.INT)
+            return frame.ints[slot];
+        if (tag == Frame.UNASSIGNED && checked)
+            throw variable.readError();
+        return frame.doubles[slot];
+    }
+
+    static final class Uninitialized extends VarReadNode {
+
+        Uninitialized(Variable variable, boolean checked) {
+            super(variable, checked);
+        }
+
+        @Override
+        public double executeDouble(Frame frame) {
+            if (frame.tags[slot] == Frame.INT)
+                replace(new Ints(variable, checked));
+            else
+                replace(new Doubles(variable, checked));
+            return read(frame);
+        }
+    }
+
+    static final class Ints extends VarReadNode {
+
+        Ints(Variable variable, boolean checked) {
+            super(variable, checked);
+        }
+
+        @Override
+        public int executeInt(Frame frame) throws UnexpectedResultException {
+            if (frame.tags[slot] == Frame.INT)
+                return frame.ints[slot];
+            replace(new Doubles(variable, checked));
+            return asInt(read(frame));
+        }
+
+        @Override
+        public double executeDouble(Frame frame) {
+            if (frame.tags[slot] == Frame.INT)
+                return frame.ints[slot];
+            replace(new Doubles(variable, checked));
+            return read(frame);
+        }
+    }
+
+    static final class Doubles extends VarReadNode {
+
+        Doubles(Variable variable, boolean checked) {
+            super(variable, checked);
+        }
+
+        @Override
+        public double executeDouble(Frame frame) {
+            return read(frame);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package runner.node;
+
+/**         WhileNode.java
+ *  Runs its body while its condition holds.
+ */
+public class WhileNode extends StmtNode {
+
+    private CompareNode condition;
+    private final BlockNode body;
+
+    public WhileNode(CompareNode condition, BlockNode body) {
+        this.condition = adopt(condition);
+        this.body = adopt(body);
+    }
+
+    @Override
+    public void execute(Frame frame) {
+        while (condition.executeBoolean(frame))
+            body.execute(frame);
+    }
+
+    @Override
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == condition)
+            condition = (CompareNode) replacement;
+        else
+            super.replaceChild(child, replacement);
+    }
+}
@@ -0,0 +1,81 @@
+package runner.node;
+
+import runner.ir.Variable;
+
+/**         WriteNode.java
+ *  Assigns a value to a variable. Ints stores ints as long as the value is one; Doubles stores doubles.
+ */
+public abstract class WriteNode extends StmtNode {
+
+    final Variable variable;
+    final int slot;
+    ExprNode value;
+
+    WriteNode(Variable variable, ExprNode value) {
+        this.variable = variable;
+        this.slot = variable.getIndex();
+        this.value = adopt(value);
+    }
+
+    public static WriteNode create(Variable variable, ExprNode value) {
+        return new Uninitialized(variable, value);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    @Override
+    protected void replaceChild(ExecNode child, ExecNode replacement) {
+        if (child == value)
+            value = (ExprNode) replacement;
+        else
+            super.replaceChild(child, replacement);
+    }
+
+    static final class Uninitialized extends WriteNode {
+
+        Uninitialized(Variable variable, ExprNode value) {
+            super(variable, value);
+        }
+
+        @Override
+        public void execute(Frame frame) {
+            double result = value.executeDouble(frame);
+            if (ExprNode.isInt(result)) {
+                replace(new Ints(variable, value));
+                frame.setInt(slot, (int) result);
+            } else {
+                replace(new Doubles(variable, value));
+                frame.setDouble(slot, result);
+            }
+        }
+    }
+
+    static final class Ints extends WriteNode {
+
+        Ints(Variable variable, ExprNode value) {
+            super(variable, value);
+        }
+
+        @Override
+        public void execute(Frame frame) {
+            try {
+                frame.setInt(slot, value.executeInt(frame));
+            } catch (UnexpectedResultException e) {
+                replace(new Doubles(variable, value));
+                frame.setDouble(slot, e.getResult());
+            }
+        }
+    }
+
+    static final class Doubles extends WriteNode {
+
+        Doubles(Variable variable, ExprNode value) {
+            super(variable, value);
+        }
+
+        @Override
+        public void execute(Frame frame) {
+            frame.setDouble(slot, value.executeDouble(frame));
+        }
+    }
+}
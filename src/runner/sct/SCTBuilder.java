@@ -3,6 +3,7 @@ package runner.sct;
 import parser.pst.Node;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 public class SCTBuilder {
 
@@ -20,6 +21,51 @@ public class SCTBuilder {
         return buildHelper(sctNode, astRoot);
     }
 
+    /**
+     * Builds the scope tree of one block again, after the block (or something in it) was reparsed. The new scope
+     * takes the place of the block's old one among its parent's children; scopes outside the block are kept.
+     *
+     * The tree is built in source order, so when the block was first built its outer scopes only held what was
+     * declared before it. Whatever they declare after it (by token position) is hidden while it's rebuilt, so the
+     * block comes out the same as in a full build.
+     * @param astBlock  block AST node (brace1)
+     * @param oldScope  scope the block had before
+     * @return  the new scope of the block
+     */
+    public SCTNode rebuildBlock(Node astBlock, SCTNode oldScope) {
+        SCTNode parent = oldScope.getParent();
+
+        ArrayList<HashSet<TableEntry>> outerTables = new ArrayList<HashSet<TableEntry>>();
+        for (SCTNode scope = parent; scope != null; scope = scope.getParent()) {
+            HashSet<TableEntry> declaredBefore = new HashSet<TableEntry>();
+            for (TableEntry entry : scope.getSymbolTable()) {
+                int start = entry.getAstNode().getTokenStart();
+                if (start < 0 || astBlock.getTokenStart() < 0 || start < astBlock.getTokenStart())
+                    declaredBefore.add(entry);
+            }
+            outerTables.add(scope.getSymbolTable());
+            scope.setSymbolTable(declaredBefore);
+        }
+
+        SCTNode sctKid = handleBlock(parent, astBlock);
+
+        int outer = 0;
+        for (SCTNode scope = parent; scope != null; scope = scope.getParent())
+            scope.setSymbolTable(outerTables.get(outer++));
+
+        // handleBlock() added the new scope last, so move it to where the old one was
+        ArrayList<SCTNode> siblings = parent.getChildren();
+        siblings.remove(siblings.size() - 1);
+        for (int i = 0; i < siblings.size(); i++) {
+            if (siblings.get(i) == oldScope) {
+                siblings.set(i, sctKid);
+                break;
+            }
+        }
+
+        return sctKid;
+    }
+
     /**
      * Recursive helper function to walk the tree and add declarations / create new sctNodes
      * @param sctNode   Scope tree currently being processed
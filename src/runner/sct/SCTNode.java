@@ -70,7 +70,7 @@ public class SCTNode {
         Node nodeToTest = tableEntry.getAstNode().getChildren().get(0);
         if ((Operations.isOperation(nodeToTest) || nodeToTest.getKeyword().equals("id"))
                 && findEntry(tableEntry.getAstNode().getChildren().get(1)).equals("")) {
-            tableEntry.setValue(Operations.doOperation(tableEntry.getSctNode(), nodeToTest) + "");
+            tableEntry.setNumber(Operations.doOperation(tableEntry.getSctNode(), nodeToTest));
             tableEntry.setType("float");
             symbolTable.add(tableEntry);
         }
@@ -83,21 +83,48 @@ public class SCTNode {
      * @return  TRUE on success, FALSE on failure (like when there is no declared value)
      */
     public boolean findAndUpdateEntry(Node astNode, String value) {
-        if (astNode == null)
+        TableEntry entry = findTableEntry(astNode);
+        if (entry == null)
+            return false;
+
+        entry.setValue(value);
+        return true;
+    }
+
+    /**
+     * Finds and  updates a currently existing table entry in this SCTNode or a parent with a number, without
+     * turning it into a String.
+     * @param astNode   AST Node to update
+     * @param value     Value to update the node with
+     * @return  TRUE on success, FALSE on failure (like when there is no declared value)
+     */
+    public boolean findAndUpdateEntry(Node astNode, double value) {
+        TableEntry entry = findTableEntry(astNode);
+        if (entry == null)
             return false;
 
-        for (TableEntry entry : symbolTable) {
-            // Find the matching value
-            if (entry.getId().equals(astNode.getValue())) {
-                entry.setValue(value);
-                return true;
+        entry.setNumber(value);
+        return true;
+    }
+
+    /**
+     * Finds the table entry of the declaration of the given node in this SCTNode or a parent.
+     * @param astNode   Node representing the declaration
+     * @return  matching TableEntry, or null if there is none
+     */
+    public TableEntry findTableEntry(Node astNode) {
+        if (astNode == null)
+            return null;
+
+        for (SCTNode scope = this; scope != null; scope = scope.parent) {
+            for (TableEntry entry : scope.symbolTable) {
+                // Find the matching value
+                if (entry.getId().equals(astNode.getValue()))
+                    return entry;
             }
         }
 
-        if (this.parent != null)
-            return this.parent.findAndUpdateEntry(astNode, value);
-        else
-            return false;
+        return null;
     }
 
     /**
@@ -113,18 +140,26 @@ public class SCTNode {
         if (astNode.getKeyword().equals("int") || astNode.getKeyword().equals("float"))
             return astNode.getValue();
 
-        for (TableEntry entry : symbolTable) {
-            // Find the matching value
-            if (entry.getId().equals(astNode.getValue())) {
-                return entry.getValue();
-            }
-        }
+        TableEntry entry = findTableEntry(astNode);
+        return entry != null ? entry.getValue() : "";
+    }
 
-        // if we can't find it here, try to find it in the parent
-        if (parent != null)
-            return this.parent.findEntry(astNode);
-        else
-            return "";
+    /**
+     * Finds the value that belongs to that declaration as a number. Numbers and entries that were stored as
+     * numbers are returned without parsing anything.
+     * @param astNode   Node representing the declaration
+     * @return  Value that the ASTNode should have
+     * @throws NumberFormatException if the value isn't a number (or there is no declaration)
+     */
+    public double findNumber(Node astNode) {
+        if (astNode != null && (astNode.getKeyword().equals("int") || astNode.getKeyword().equals("float")))
+            return astNode.getNumber();
+
+        TableEntry entry = findTableEntry(astNode);
+        if (entry == null)
+            throw new NumberFormatException("empty String"); // same as parsing the "" findEntry() gives back
+
+        return entry.getNumber();
     }
 
     @Override
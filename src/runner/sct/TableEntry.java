@@ -14,8 +14,12 @@ public class TableEntry {
     private String id;
     /** Type of variable */
     private String type;
-    /** Value of variable */
+    /** Value of variable (null while it's only held as a number) */
     private String value;
+    /** Value of variable as a number */
+    private double number;
+    /** TRUE if number holds the value */
+    private boolean hasNumber;
 
     public TableEntry(SCTNode sctNode, Node astNode) {
         this.sctNode = sctNode;
@@ -28,6 +32,10 @@ public class TableEntry {
             this.value = sctNode.findEntry(astNode);
         } else {
             this.value = children.get(0).getValue();
+            if (children.get(0).hasNumber()) {
+                this.number = children.get(0).getNumber();
+                this.hasNumber = true;
+            }
         }
 
         this.id = children.get(1).getValue();
@@ -66,11 +74,47 @@ public class TableEntry {
     }
 
     public String getValue() {
+        if (value == null)
+            value = number + "";
+
         return value;
     }
 
     public void setValue(String value) {
         this.value = value;
+        this.hasNumber = false;
+    }
+
+    /**
+     * Returns if this entry has a value at all (values of entries declared from an unknown id are empty).
+     * @return TRUE if the value is a number or a non-empty String
+     */
+    public boolean hasValue() {
+        return hasNumber || !value.isEmpty();
+    }
+
+    /**
+     * Returns the value as a number. A value that was set as a String is only parsed the first time.
+     * @return value of the variable
+     * @throws NumberFormatException if the value isn't a number
+     */
+    public double getNumber() {
+        if (!hasNumber) {
+            number = Double.parseDouble(value);
+            hasNumber = true;
+        }
+
+        return number;
+    }
+
+    /**
+     * Sets the value to a number. The String form is only made if someone asks for it.
+     * @param number new value of the variable
+     */
+    public void setNumber(double number) {
+        this.number = number;
+        this.hasNumber = true;
+        this.value = null;
     }
 
 
@@ -79,7 +123,7 @@ public class TableEntry {
         return "TableEntry{" +
                 "id='" + id + '\'' +
                 ", type='" + type + '\'' +
-                ", value='" + value + '\'' +
+                ", value='" + getValue() + '\'' +
                 '}';
     }
 
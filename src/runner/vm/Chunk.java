@@ -0,0 +1,101 @@
+package runner.vm;
+
+import runner.ir.Program;
+import runner.ir.Variable;
+
+/**         Chunk.java
+ *  Compiled code of a program for the stack VM: the instructions (see Opcode) and the tables their operands point
+ *  into.
+ */
+public class Chunk {
+
+    /** Instructions, each an opcode followed by its operands */
+    final int[] code;
+    /** Numbers used by CONST and the _CONST instructions */
+    final double[] constants;
+    /** Texts used by PRINT_TEXT */
+    final String[] texts;
+    /** Exceptions used by FAIL */
+    final RuntimeException[] failures;
+    /** Deepest the stack gets */
+    final int maxStack;
+    /** Program the chunk was compiled from */
+    final Program program;
+
+    Chunk(int[] code, double[] constants, String[] texts, RuntimeException[] failures, int maxStack,
+          Program program) {
+        this.code = code;
+        this.constants = constants;
+        this.texts = texts;
+        this.failures = failures;
+        this.maxStack = maxStack;
+        this.program = program;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Lists the instructions, one per line, with their operands.
+     * @return listing of the code
+     */
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        Variable[] variables = program.getVariables();
+        for (int pc = 0; pc < code.length; pc += 1 + Opcode.OPERANDS[code[pc]]) {
+            int opcode = code[pc];
+            str.append(String.format("%5d  %-14s", pc, Opcode.NAMES[opcode]));
+            switch (opcode) {
+                case Opcode.CONST:
+                case Opcode.ADD_K:
+                case Opcode.RSUB_K:
+                case Opcode.MUL_K:
+                case Opcode.RDIV_K:
+                    str.append(constants[code[pc + 1]]);
+                    break;
+                case Opcode.LOAD:
+                case Opcode.LOAD_CHECKED:
+                case Opcode.STORE:
+                case Opcode.STORE_CHECKED:
+                case Opcode.ADD_LOAD:
+                case Opcode.RSUB_LOAD:
+                case Opcode.MUL_LOAD:
+                case Opcode.RDIV_LOAD:
+                    str.append(variables[code[pc + 1]]);
+                    break;
+                case Opcode.ADD_CONST:
+                    str.append(variables[code[pc + 1]]).append(' ').append(constants[code[pc + 2]]);
+                    break;
+                case Opcode.IF_LT_CONST:
+                    str.append(variables[code[pc + 1]]).append(' ').append(constants[code[pc + 2]]).append(' ')
+                            .append(code[pc + 3]);
+                    break;
+                case Opcode.PRINT_TEXT:
+                    str.append('"').append(texts[code[pc + 1]]).append('"');
+                    break;
+                case Opcode.FAIL:
+                    str.append(failures[code[pc + 1]]);
+                    break;
+                default:
+                    if (Opcode.OPERANDS[opcode] > 0)
+                        str.append(code[pc + 1]);
+            }
+            str.append('\n');
+        }
+        return str.toString();
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * Returns the length of the code.
+     * @return number of ints in the code
+     */
+    public int size() {
+        return code.length;
+    }
+}
@@ -0,0 +1,267 @@
+package runner.vm;
+
+import parser.pst.Node;
+import runner.ir.Expr;
+import runner.ir.Lowering;
+import runner.ir.Program;
+import runner.ir.Stmt;
+import runner.ir.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**         Compiler.java
+ *  Compiles a lowered program into a Chunk for the stack VM.
+ *
+ *  A while is laid out with its test after the body (jump to the test, body, test jumping back to the body while it
+ *  holds), so a loop round only takes one jump. Two patterns loops are full of get instructions of their own:
+ *  adding a number to a variable (i = i + 1) and testing a variable against a number (i < 10). Arithmetic whose
+ *  second operand is a variable or a number reads it itself instead of having it pushed first.
+ */
+public class Compiler {
+
+    private int[] code = new int[64];
+    private int size;
+    private final ArrayList<Double> constants = new ArrayList<Double>();
+    private final HashMap<Long, Integer> constantIndexes = new HashMap<Long, Integer>();
+    private final ArrayList<String> texts = new ArrayList<String>();
+    private final ArrayList<RuntimeException> failures = new ArrayList<RuntimeException>();
+    /** Depth of the stack after the code so far, and the deepest it got */
+    private int depth;
+    private int maxStack;
+
+    private Compiler() {
+    }
+
+    /**
+     * Lowers an AST and compiles it.
+     * @param astRoot   root of the AST
+     * @return compiled code
+     */
+    public static Chunk compile(Node astRoot) {
+        return compile(Lowering.lower(astRoot));
+    }
+
+    /**
+     * Compiles a lowered program.
+     * @param program   lowered program
+     * @return compiled code
+     */
+    public static Chunk compile(Program program) {
+        Compiler compiler = new Compiler();
+        compiler.statements(program.getBody());
+        compiler.emit(Opcode.HALT);
+
+        double[] constants = new double[compiler.constants.size()];
+        for (int i = 0; i < constants.length; i++)
+            constants[i] = compiler.constants.get(i);
+
+        return new Chunk(Arrays.copyOf(compiler.code, compiler.size), constants,
+                compiler.texts.toArray(new String[0]), compiler.failures.toArray(new RuntimeException[0]),
+                compiler.maxStack, program);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    private void statements(Stmt[] statements) {
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.Assign)
+                assign((Stmt.Assign) statement);
+            else if (statement instanceof Stmt.Print)
+                print((Stmt.Print) statement);
+            else
+                loop((Stmt.While) statement);
+        }
+    }
+
+    private void assign(Stmt.Assign assign) {
+        Variable variable = assign.getVariable();
+        if (variable != null && !variable.needsCheck()) {
+            double increment = increment(variable, assign.getValue());
+            if (!Double.isNaN(increment)) {
+                emit(Opcode.ADD_CONST, variable.getIndex(), constant(increment));
+                return;
+            }
+        }
+
+        expression(assign.getValue());
+        if (variable == null)
+            emit(Opcode.POP);
+        else
+            emit(variable.needsCheck() ? Opcode.STORE_CHECKED : Opcode.STORE, variable.getIndex());
+        depth--;
+    }
+
+    /**
+     * Finds what's added to a variable if an expression is just the variable plus a number. Either order gives the
+     * same sum as the fold with its seed, as long as the number isn't -0.0.
+     * @param variable  variable assigned to
+     * @param value     expression assigned
+     * @return the number added, or NaN if the expression isn't like that
+     */
+    private static double increment(Variable variable, Expr value) {
+        if (!(value instanceof Expr.Fold))
+            return Double.NaN;
+
+        Expr.Fold fold = (Expr.Fold) value;
+        Expr[] operands = fold.getOperands();
+        if (fold.getOperator() != Expr.Operator.PLUS || operands.length != 2)
+            return Double.NaN;
+
+        for (int i = 0; i < 2; i++) {
+            Expr load = operands[i];
+            Expr number = operands[1 - i];
+            if (load instanceof Expr.Load && ((Expr.Load) load).getVariable() == variable &&
+                    number instanceof Expr.Const && !Expr.isNegativeZero(((Expr.Const) number).getValue()))
+                return ((Expr.Const) number).getValue();
+        }
+        return Double.NaN;
+    }
+
+    private void print(Stmt.Print print) {
+        for (int i = 0; i < print.size(); i++) {
+            if (print.getText(i) != null) {
+                texts.add(print.getText(i));
+                emit(Opcode.PRINT_TEXT, texts.size() - 1);
+            } else {
+                expression(print.getValue(i));
+                emit(Opcode.PRINT_NUMBER);
+                depth--;
+            }
+        }
+        emit(Opcode.PRINTLN);
+    }
+
+    private void loop(Stmt.While loop) {
+        emit(Opcode.JUMP, 0);
+        int jump = size - 1;
+        int body = size;
+        statements(loop.getBody());
+        code[jump] = size;
+
+        Stmt.Relation relation = loop.getRelation();
+        Expr left = loop.getLeft();
+        Expr right = loop.getRight();
+        if (relation == Stmt.Relation.LT && left instanceof Expr.Load && !((Expr.Load) left).isChecked() &&
+                right instanceof Expr.Const) {
+            emit(Opcode.IF_LT_CONST, ((Expr.Load) left).getVariable().getIndex(),
+                    constant(((Expr.Const) right).getValue()), body);
+            return;
+        }
+
+        expression(left);
+        expression(right);
+        depth -= 2;
+        switch (relation) {
+            case EQ:
+                emit(Opcode.IF_EQ, body);
+                break;
+            case NE:
+                emit(Opcode.IF_NE, body);
+                break;
+            case LT:
+                emit(Opcode.IF_LT, body);
+                break;
+            case LE:
+                emit(Opcode.IF_LE, body);
+                break;
+            case GT:
+                emit(Opcode.IF_GT, body);
+                break;
+            case GE:
+                emit(Opcode.IF_GE, body);
+                break;
+            default:
+                // never true, but both sides were still evaluated
+                emit(Opcode.POP);
+                emit(Opcode.POP);
+        }
+    }
+
+    /**
+     * Compiles an expression, leaving its value on the stack.
+     * @param expr  expression
+     */
+    private void expression(Expr expr) {
+        if (expr instanceof Expr.Const) {
+            emit(Opcode.CONST, constant(((Expr.Const) expr).getValue()));
+            push();
+        } else if (expr instanceof Expr.Load) {
+            Expr.Load load = (Expr.Load) expr;
+            emit(load.isChecked() ? Opcode.LOAD_CHECKED : Opcode.LOAD, load.getVariable().getIndex());
+            push();
+        } else if (expr instanceof Expr.Fold) {
+            Expr.Fold fold = (Expr.Fold) expr;
+            Expr[] operands = fold.getOperands();
+            if (operands.length == 0) {
+                emit(Opcode.CONST, constant(fold.getOperator().getSeed()));
+                push();
+                return;
+            }
+
+            int opcode = fold.getOperator() == Expr.Operator.PLUS ? Opcode.ADD :
+                    fold.getOperator() == Expr.Operator.MINUS ? Opcode.RSUB :
+                    fold.getOperator() == Expr.Operator.TIMES ? Opcode.MUL : Opcode.RDIV;
+            expression(operands[0]);
+            for (int i = 1; i < operands.length; i++)
+                operand(opcode, operands[i]);
+
+            // without the seed the sum is -0.0 only if every operand is, and adding 0.0 makes that 0.0 as well
+            if (fold.needsSeed())
+                emit(Opcode.ADD_K, constant(0));
+        } else if (expr instanceof Expr.Pow) {
+            expression(((Expr.Pow) expr).getBase());
+            expression(((Expr.Pow) expr).getExponent());
+            emit(Opcode.POW);
+            depth--;
+        } else {
+            failures.add(((Expr.Fail) expr).getError());
+            emit(Opcode.FAIL, failures.size() - 1);
+            // never gets pushed, but the code after it is compiled as if it did
+            push();
+        }
+    }
+
+    /**
+     * Compiles the second operand of an arithmetic instruction and the instruction. A variable or a number is read
+     * by the instruction itself.
+     * @param opcode    ADD, RSUB, MUL or RDIV
+     * @param operand   second operand
+     */
+    private void operand(int opcode, Expr operand) {
+        // the _LOAD and _K instructions come in the same order as the plain ones
+        if (operand instanceof Expr.Load && !((Expr.Load) operand).isChecked()) {
+            emit(opcode - Opcode.ADD + Opcode.ADD_LOAD, ((Expr.Load) operand).getVariable().getIndex());
+        } else if (operand instanceof Expr.Const) {
+            emit(opcode - Opcode.ADD + Opcode.ADD_K, constant(((Expr.Const) operand).getValue()));
+        } else {
+            expression(operand);
+            emit(opcode);
+            depth--;
+        }
+    }
+
+    private int constant(double value) {
+        Long bits = Double.doubleToRawLongBits(value);
+        Integer index = constantIndexes.get(bits);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndexes.put(bits, index);
+        }
+        return index;
+    }
+
+    private void push() {
+        if (++depth > maxStack)
+            maxStack = depth;
+    }
+
+    private void emit(int... words) {
+        if (size + words.length > code.length)
+            code = Arrays.copyOf(code, Math.max(code.length * 2, size + words.length));
+        for (int word : words)
+            code[size++] = word;
+    }
+}
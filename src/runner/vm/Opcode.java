@@ -0,0 +1,83 @@
+package runner.vm;
+
+/**         Opcode.java
+ *  Instructions of the stack VM. An instruction is its opcode followed by its operands, all ints in one array.
+ *  The comment of each gives its operands and what it does to the stack (... a b -> ... c).
+ */
+final class Opcode {
+
+    /** k: push constants[k] */
+    static final int CONST = 0;
+    /** s: push slots[s] */
+    static final int LOAD = 1;
+    /** s: push slots[s], throwing if nothing was assigned to it yet (Variable.isChecked()) */
+    static final int LOAD_CHECKED = 2;
+    /** s: pop into slots[s] */
+    static final int STORE = 3;
+    /** s: pop into slots[s], and remember it was assigned */
+    static final int STORE_CHECKED = 4;
+    /** a -> */
+    static final int POP = 5;
+    /** a b -> a + b */
+    static final int ADD = 6;
+    /** a b -> b - a */
+    static final int RSUB = 7;
+    /** a b -> a * b */
+    static final int MUL = 8;
+    /** a b -> b / a */
+    static final int RDIV = 9;
+    /** base exponent -> base ^ exponent */
+    static final int POW = 10;
+    /** t: jump to t */
+    static final int JUMP = 11;
+    /** t: a b -> , jumping to t if a == b (and so on for the other IF_ ones) */
+    static final int IF_EQ = 12;
+    static final int IF_NE = 13;
+    static final int IF_LT = 14;
+    static final int IF_LE = 15;
+    static final int IF_GT = 16;
+    static final int IF_GE = 17;
+    /** k: print strings[k] */
+    static final int PRINT_TEXT = 18;
+    /** a -> , printing a */
+    static final int PRINT_NUMBER = 19;
+    /** end the line being printed */
+    static final int PRINTLN = 20;
+    /** k: throw failures[k] */
+    static final int FAIL = 21;
+    /** stop */
+    static final int HALT = 22;
+    /** s k: slots[s] += constants[k] */
+    static final int ADD_CONST = 23;
+    /** s k t: jump to t if slots[s] < constants[k] */
+    static final int IF_LT_CONST = 24;
+    /** s: a -> a + slots[s] (and so on: the arithmetic with its second operand a slot or a constant) */
+    static final int ADD_LOAD = 25;
+    static final int RSUB_LOAD = 26;
+    static final int MUL_LOAD = 27;
+    static final int RDIV_LOAD = 28;
+    /** k: a -> a + constants[k] */
+    static final int ADD_K = 29;
+    static final int RSUB_K = 30;
+    static final int MUL_K = 31;
+    static final int RDIV_K = 32;
+
+    /** Names, by opcode */
+    static final String[] NAMES = {
+            "CONST", "LOAD", "LOAD_CHECKED", "STORE", "STORE_CHECKED", "POP", "ADD", "RSUB", "MUL", "RDIV", "POW",
+            "JUMP", "IF_EQ", "IF_NE", "IF_LT", "IF_LE", "IF_GT", "IF_GE", "PRINT_TEXT", "PRINT_NUMBER", "PRINTLN",
+            "FAIL", "HALT", "ADD_CONST", "IF_LT_CONST", "ADD_LOAD", "RSUB_LOAD", "MUL_LOAD", "RDIV_LOAD", "ADD_K",
+            "RSUB_K", "MUL_K", "RDIV_K"
+    };
+
+    /** Number of operands, by opcode */
+    static final int[] OPERANDS = {
+            1, 1, 1, 1, 1, 0, 0, 0, 0, 0, 0,
+            1, 1, 1, 1, 1, 1, 1, 1, 0, 0,
+            1, 0, 2, 3, 1, 1, 1, 1, 1,
+            1, 1, 1
+    };
+
+    private Opcode() {
+    }
+}
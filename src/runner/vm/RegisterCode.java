@@ -0,0 +1,133 @@
+package runner.vm;
+
+import runner.ir.Program;
+import runner.ir.Variable;
+
+/**         RegisterCode.java
+ *  Compiled code of a program for the register VM: the instructions (see RegisterOpcode) and the layout of the
+ *  register file. The registers are, in order, one for every variable (so the variables of a scope are next to each
+ *  other), one for every number the program uses, and the temporaries expressions need.
+ */
+public class RegisterCode {
+
+    /** Instructions, RegisterOpcode.WIDTH ints each */
+    final int[] code;
+    /** Numbers, held by the registers after the variables' */
+    final double[] constants;
+    /** Texts used by PRINT_TEXT */
+    final String[] texts;
+    /** Exceptions used by FAIL */
+    final RuntimeException[] failures;
+    /** Size of the register file */
+    final int registers;
+    /** Program the code was compiled from */
+    final Program program;
+
+    RegisterCode(int[] code, double[] constants, String[] texts, RuntimeException[] failures, int registers,
+                 Program program) {
+        this.code = code;
+        this.constants = constants;
+        this.texts = texts;
+        this.failures = failures;
+        this.registers = registers;
+        this.program = program;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Makes a register file holding what a run starts with: the initial values of the variables and the numbers.
+     * @return new register file
+     */
+    double[] newRegisters() {
+        double[] file = new double[registers];
+        double[] values = program.initialValues();
+        System.arraycopy(values, 0, file, 0, values.length);
+        System.arraycopy(constants, 0, file, values.length, constants.length);
+        return file;
+    }
+
+    /**
+     * Lists the instructions, one per line, with their operands.
+     * @return listing of the code
+     */
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        for (int pc = 0; pc < code.length; pc += RegisterOpcode.WIDTH) {
+            int opcode = code[pc];
+            str.append(String.format("%5d  %-13s", pc, RegisterOpcode.NAMES[opcode]));
+            switch (opcode) {
+                case RegisterOpcode.MOVE:
+                    str.append(register(code[pc + 1])).append(", ").append(register(code[pc + 2]));
+                    break;
+                case RegisterOpcode.ADD:
+                case RegisterOpcode.SUB:
+                case RegisterOpcode.MUL:
+                case RegisterOpcode.DIV:
+                case RegisterOpcode.POW:
+                    str.append(register(code[pc + 1])).append(", ").append(register(code[pc + 2])).append(", ")
+                            .append(register(code[pc + 3]));
+                    break;
+                case RegisterOpcode.CHECK:
+                case RegisterOpcode.MARK:
+                case RegisterOpcode.PRINT_NUMBER:
+                    str.append(register(code[pc + 1]));
+                    break;
+                case RegisterOpcode.JUMP:
+                    str.append(code[pc + 1]);
+                    break;
+                case RegisterOpcode.PRINT_TEXT:
+                    str.append('"').append(texts[code[pc + 1]]).append('"');
+                    break;
+                case RegisterOpcode.FAIL:
+                    str.append(failures[code[pc + 1]]);
+                    break;
+                case RegisterOpcode.PRINTLN:
+                case RegisterOpcode.HALT:
+                    break;
+                default:
+                    str.append(register(code[pc + 1])).append(", ").append(register(code[pc + 2])).append(", ")
+                            .append(code[pc + 3]);
+            }
+            str.append('\n');
+        }
+        return str.toString();
+    }
+
+    /**
+     * Names a register: the variable, the number or the temporary it holds.
+     * @param register  register
+     * @return its name
+     */
+    private String register(int register) {
+        Variable[] variables = program.getVariables();
+        if (register < variables.length)
+            return variables[register].toString();
+        if (register < variables.length + constants.length)
+            return String.valueOf(constants[register - variables.length]);
+        return "t" + (register - variables.length - constants.length);
+    }
+
+    // --------------------------------------------GETTERS/SETTERS ----------------------------------------------------
+
+    public Program getProgram() {
+        return program;
+    }
+
+    /**
+     * Returns the number of instructions.
+     * @return number of instructions in the code
+     */
+    public int size() {
+        return code.length / RegisterOpcode.WIDTH;
+    }
+
+    /**
+     * Returns the size of the register file.
+     * @return number of registers
+     */
+    public int getRegisters() {
+        return registers;
+    }
+}
@@ -0,0 +1,299 @@
+package runner.vm;
+
+import parser.pst.Node;
+import runner.ir.Expr;
+import runner.ir.Lowering;
+import runner.ir.Program;
+import runner.ir.Stmt;
+import runner.ir.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**         RegisterCompiler.java
+ *  Compiles a lowered program into RegisterCode for the register VM.
+ *
+ *  Variables and numbers already sit in registers of their own, so reading them takes no instruction: an operator
+ *  node becomes a single three-address instruction over the registers of its operands, and only the results in
+ *  between need temporaries. The last instruction of an assignment writes straight into the variable. So i = i + 1
+ *  is one ADD, and i < 10 in a while is one IF_LT.
+ *
+ *  Temporaries are handed out like a stack: an expression gets the ones above those in use, and gives back all but
+ *  the one holding its result when it's done.
+ */
+public class RegisterCompiler {
+
+    /** Registers are numbered from these while compiling, since the number of temporaries isn't known yet */
+    private static final int TEMPORARY = 1 << 28;
+    private static final int CONSTANT = 1 << 29;
+
+    private int[] code = new int[64];
+    private int size;
+    private final ArrayList<Double> constants = new ArrayList<Double>();
+    private final HashMap<Long, Integer> constantIndexes = new HashMap<Long, Integer>();
+    private final ArrayList<String> texts = new ArrayList<String>();
+    private final ArrayList<RuntimeException> failures = new ArrayList<RuntimeException>();
+    /** Temporaries in use, and the most in use at once */
+    private int temporaries;
+    private int maxTemporaries;
+
+    private RegisterCompiler() {
+    }
+
+    /**
+     * Lowers an AST and compiles it.
+     * @param astRoot   root of the AST
+     * @return compiled code
+     */
+    public static RegisterCode compile(Node astRoot) {
+        return compile(Lowering.lower(astRoot));
+    }
+
+    /**
+     * Compiles a lowered program.
+     * @param program   lowered program
+     * @return compiled code
+     */
+    public static RegisterCode compile(Program program) {
+        RegisterCompiler compiler = new RegisterCompiler();
+        compiler.statements(program.getBody());
+        compiler.emit(RegisterOpcode.HALT, 0, 0, 0);
+
+        int variables = program.getVariables().length;
+        int[] code = Arrays.copyOf(compiler.code, compiler.size);
+        for (int pc = 0; pc < code.length; pc += RegisterOpcode.WIDTH) {
+            for (int operand = 1; operand <= registerOperands(code[pc]); operand++) {
+                int register = code[pc + operand];
+                if (register >= CONSTANT)
+                    code[pc + operand] = variables + register - CONSTANT;
+                else if (register >= TEMPORARY)
+                    code[pc + operand] = variables + compiler.constants.size() + register - TEMPORARY;
+            }
+        }
+
+        double[] constants = new double[compiler.constants.size()];
+        for (int i = 0; i < constants.length; i++)
+            constants[i] = compiler.constants.get(i);
+
+        return new RegisterCode(code, constants, compiler.texts.toArray(new String[0]),
+                compiler.failures.toArray(new RuntimeException[0]),
+                variables + constants.length + compiler.maxTemporaries, program);
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    private void statements(Stmt[] statements) {
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.Assign)
+                assign((Stmt.Assign) statement);
+            else if (statement instanceof Stmt.Print)
+                print((Stmt.Print) statement);
+            else
+                loop((Stmt.While) statement);
+        }
+    }
+
+    private void assign(Stmt.Assign assign) {
+        Variable variable = assign.getVariable();
+        int used = temporaries;
+        if (variable == null) {
+            expression(assign.getValue(), -1);
+        } else {
+            int value = expression(assign.getValue(), variable.getIndex());
+            if (value != variable.getIndex())
+                emit(RegisterOpcode.MOVE, variable.getIndex(), value, 0);
+            if (variable.needsCheck())
+                emit(RegisterOpcode.MARK, variable.getIndex(), 0, 0);
+        }
+        temporaries = used;
+    }
+
+    private void print(Stmt.Print print) {
+        for (int i = 0; i < print.size(); i++) {
+            if (print.getText(i) != null) {
+                texts.add(print.getText(i));
+                emit(RegisterOpcode.PRINT_TEXT, texts.size() - 1, 0, 0);
+            } else {
+                int used = temporaries;
+                emit(RegisterOpcode.PRINT_NUMBER, expression(print.getValue(i), -1), 0, 0);
+                temporaries = used;
+            }
+        }
+        emit(RegisterOpcode.PRINTLN, 0, 0, 0);
+    }
+
+    private void loop(Stmt.While loop) {
+        emit(RegisterOpcode.JUMP, 0, 0, 0);
+        int jump = size - 3;
+        int body = size;
+        statements(loop.getBody());
+        code[jump] = size;
+
+        int used = temporaries;
+        int left = expression(loop.getLeft(), -1);
+        int right = expression(loop.getRight(), -1);
+        temporaries = used;
+        switch (loop.getRelation()) {
+            case EQ:
+                emit(RegisterOpcode.IF_EQ, left, right, body);
+                break;
+            case NE:
+                emit(RegisterOpcode.IF_NE, left, right, body);
+                break;
+            case LT:
+                emit(RegisterOpcode.IF_LT, left, right, body);
+                break;
+            case LE:
+                emit(RegisterOpcode.IF_LE, left, right, body);
+                break;
+            case GT:
+                emit(RegisterOpcode.IF_GT, left, right, body);
+                break;
+            case GE:
+                emit(RegisterOpcode.IF_GE, left, right, body);
+                break;
+            default:
+                // never true; evaluating both sides was all there was to do
+        }
+    }
+
+    /**
+     * Compiles an expression.
+     * @param expr      expression
+     * @param target    register the value should end up in, or -1 for any. Only the last instruction writes to it,
+     *                  so it can be a variable the expression reads.
+     * @return register holding the value: the target if an instruction computed it, otherwise the register of the
+     *         variable or number the expression is
+     */
+    private int expression(Expr expr, int target) {
+        if (expr instanceof Expr.Const)
+            return constant(((Expr.Const) expr).getValue());
+
+        if (expr instanceof Expr.Load) {
+            Expr.Load load = (Expr.Load) expr;
+            if (load.isChecked())
+                emit(RegisterOpcode.CHECK, load.getVariable().getIndex(), 0, 0);
+            return load.getVariable().getIndex();
+        }
+
+        if (expr instanceof Expr.Pow) {
+            int used = temporaries;
+            int base = expression(((Expr.Pow) expr).getBase(), -1);
+            int exponent = expression(((Expr.Pow) expr).getExponent(), -1);
+            temporaries = used;
+            int result = target >= 0 ? target : temporary();
+            emit(RegisterOpcode.POW, result, base, exponent);
+            return result;
+        }
+
+        if (expr instanceof Expr.Fail) {
+            failures.add(((Expr.Fail) expr).getError());
+            emit(RegisterOpcode.FAIL, failures.size() - 1, 0, 0);
+            return constant(0);
+        }
+
+        Expr.Fold fold = (Expr.Fold) expr;
+        Expr[] operands = fold.getOperands();
+        if (operands.length == 0)
+            return constant(fold.getOperator().getSeed());
+
+        int used = temporaries;
+        int result = expression(operands[0], -1);
+        boolean seed = fold.needsSeed();
+        for (int i = 1; i < operands.length; i++) {
+            int operand = expression(operands[i], -1);
+            int into;
+            if (i == operands.length - 1 && !seed && target >= 0) {
+                into = target;
+            } else if (isTemporary(result)) {
+                into = result;
+            } else {
+                // may be the operand's temporary, which the instruction reads before writing
+                temporaries = used;
+                into = temporary();
+            }
+            switch (fold.getOperator()) {
+                case PLUS:
+                    emit(RegisterOpcode.ADD, into, result, operand);
+                    break;
+                case MINUS:
+                    emit(RegisterOpcode.SUB, into, operand, result);
+                    break;
+                case TIMES:
+                    emit(RegisterOpcode.MUL, into, result, operand);
+                    break;
+                default:
+                    emit(RegisterOpcode.DIV, into, operand, result);
+            }
+            result = into;
+            temporaries = isTemporary(result) ? result - TEMPORARY + 1 : used;
+        }
+
+        if (seed) {
+            // without the seed the sum is -0.0 only if every operand is, and adding 0.0 makes that 0.0 as well
+            int into = target >= 0 ? target : isTemporary(result) ? result : temporary();
+            emit(RegisterOpcode.ADD, into, result, constant(0));
+            result = into;
+        }
+        return result;
+    }
+
+    private static boolean isTemporary(int register) {
+        return register >= TEMPORARY && register < CONSTANT;
+    }
+
+    private int temporary() {
+        if (++temporaries > maxTemporaries)
+            maxTemporaries = temporaries;
+        return TEMPORARY + temporaries - 1;
+    }
+
+    private int constant(double value) {
+        Long bits = Double.doubleToRawLongBits(value);
+        Integer index = constantIndexes.get(bits);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndexes.put(bits, index);
+        }
+        return CONSTANT + index;
+    }
+
+    /**
+     * Returns how many of the operands of an instruction are registers (they come first).
+     * @param opcode    opcode of the instruction
+     * @return number of register operands
+     */
+    private static int registerOperands(int opcode) {
+        switch (opcode) {
+            case RegisterOpcode.MOVE:
+            case RegisterOpcode.IF_EQ:
+            case RegisterOpcode.IF_NE:
+            case RegisterOpcode.IF_LT:
+            case RegisterOpcode.IF_LE:
+            case RegisterOpcode.IF_GT:
+            case RegisterOpcode.IF_GE:
+                return 2;
+            case RegisterOpcode.ADD:
+            case RegisterOpcode.SUB:
+            case RegisterOpcode.MUL:
+            case RegisterOpcode.DIV:
+            case RegisterOpcode.POW:
+                return 3;
+            case RegisterOpcode.PRINT_NUMBER:
+                return 1;
+            default:
+                return 0;
+        }
+    }
+
+    private void emit(int opcode, int a, int b, int c) {
+        if (size + RegisterOpcode.WIDTH > code.length)
+            code = Arrays.copyOf(code, code.length * 2);
+        code[size++] = opcode;
+        code[size++] = a;
+        code[size++] = b;
+        code[size++] = c;
+    }
+}
@@ -0,0 +1,56 @@
+package runner.vm;
+
+/**         RegisterOpcode.java
+ *  Instructions of the register VM. Every instruction takes four ints: its opcode and three operands, most of them
+ *  registers (r[...]). Unused operands are 0.
+ */
+final class RegisterOpcode {
+
+    /** d a: r[d] = r[a] */
+    static final int MOVE = 0;
+    /** d a b: r[d] = r[a] + r[b] */
+    static final int ADD = 1;
+    /** d a b: r[d] = r[a] - r[b] */
+    static final int SUB = 2;
+    /** d a b: r[d] = r[a] * r[b] */
+    static final int MUL = 3;
+    /** d a b: r[d] = r[a] / r[b] */
+    static final int DIV = 4;
+    /** d a b: r[d] = r[a] ^ r[b] */
+    static final int POW = 5;
+    /** s: throw if nothing was assigned to variable s yet (Variable.isChecked()) */
+    static final int CHECK = 6;
+    /** s: remember something was assigned to variable s */
+    static final int MARK = 7;
+    /** t: jump to t */
+    static final int JUMP = 8;
+    /** a b t: jump to t if r[a] == r[b] (and so on for the other IF_ ones) */
+    static final int IF_EQ = 9;
+    static final int IF_NE = 10;
+    static final int IF_LT = 11;
+    static final int IF_LE = 12;
+    static final int IF_GT = 13;
+    static final int IF_GE = 14;
+    /** k: print texts[k] */
+    static final int PRINT_TEXT = 15;
+    /** a: print r[a] */
+    static final int PRINT_NUMBER = 16;
+    /** end the line being printed */
+    static final int PRINTLN = 17;
+    /** k: throw failures[k] */
+    static final int FAIL = 18;
+    /** stop */
+    static final int HALT = 19;
+
+    /** Names, by opcode */
+    static final String[] NAMES = {
+            "MOVE", "ADD", "SUB", "MUL", "DIV", "POW", "CHECK", "MARK", "JUMP", "IF_EQ", "IF_NE", "IF_LT", "IF_LE",
+            "IF_GT", "IF_GE", "PRINT_TEXT", "PRINT_NUMBER", "PRINTLN", "FAIL", "HALT"
+    };
+
+    /** Ints taken by every instruction */
+    static final int WIDTH = 4;
+
+    private RegisterOpcode() {
+    }
+}
@@ -0,0 +1,136 @@
+package runner.vm;
+
+import runner.ir.Variable;
+
+import java.io.PrintStream;
+
+/**         RegisterVM.java
+ *  Runs RegisterCode: a loop over the instructions and one double register file, holding the variables, the
+ *  numbers and the temporaries. Each run starts from the values the scope tree was built with.
+ *
+ *  Lines are printed like the stack VM prints them (see VM).
+ */
+public class RegisterVM {
+
+    private final RegisterCode registerCode;
+    /** Where the program's prints go */
+    private final PrintStream out;
+
+    /**
+     * Creates a VM to run compiled code.
+     * @param registerCode  code to run
+     * @param out           stream to print to
+     */
+    public RegisterVM(RegisterCode registerCode, PrintStream out) {
+        this.registerCode = registerCode;
+        this.out = out;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Runs the code.
+     */
+    public void run() {
+        final int[] code = registerCode.code;
+        final double[] r = registerCode.newRegisters();
+        final boolean[] assigned = new boolean[registerCode.program.getVariables().length];
+        StringBuilder line = new StringBuilder();
+        int pc = 0;
+
+        try {
+            while (true) {
+                switch (code[pc]) {
+                    case RegisterOpcode.MOVE:
+                        r[code[pc + 1]] = r[code[pc + 2]];
+                        break;
+                    case RegisterOpcode.ADD:
+                        r[code[pc + 1]] = r[code[pc + 2]] + r[code[pc + 3]];
+                        break;
+                    case RegisterOpcode.SUB:
+                        r[code[pc + 1]] = r[code[pc + 2]] - r[code[pc + 3]];
+                        break;
+                    case RegisterOpcode.MUL:
+                        r[code[pc + 1]] = r[code[pc + 2]] * r[code[pc + 3]];
+                        break;
+                    case RegisterOpcode.DIV:
+                        r[code[pc + 1]] = r[code[pc + 2]] / r[code[pc + 3]];
+                        break;
+                    case RegisterOpcode.POW:
+                        r[code[pc + 1]] = Math.pow(r[code[pc + 2]], r[code[pc + 3]]);
+                        break;
+                    case RegisterOpcode.CHECK:
+                        if (!assigned[code[pc + 1]])
+                            throw variable(code[pc + 1]).readError();
+                        break;
+                    case RegisterOpcode.MARK:
+                        assigned[code[pc + 1]] = true;
+                        break;
+                    case RegisterOpcode.JUMP:
+                        pc = code[pc + 1];
+                        continue;
+                    case RegisterOpcode.IF_EQ:
+                        if (r[code[pc + 1]] == r[code[pc + 2]]) {
+                            pc = code[pc + 3];
+                            continue;
+                        }
+                        break;
+                    case RegisterOpcode.IF_NE:
+                        if (r[code[pc + 1]] != r[code[pc + 2]]) {
+                            pc = code[pc + 3];
+                            continue;
+                        }
+                        break;
+                    case RegisterOpcode.IF_LT:
+                        if (r[code[pc + 1]] < r[code[pc + 2]]) {
+                            pc = code[pc + 3];
+                            continue;
+                        }
+                        break;
+                    case RegisterOpcode.IF_LE:
+                        if (r[code[pc + 1]] <= r[code[pc + 2]]) {
+                            pc = code[pc + 3];
+                            continue;
+                        }
+                        break;
+                    case RegisterOpcode.IF_GT:
+                        if (r[code[pc + 1]] > r[code[pc + 2]]) {
+                            pc = code[pc + 3];
+                            continue;
+                        }
+                        break;
+                    case RegisterOpcode.IF_GE:
+                        if (r[code[pc + 1]] >= r[code[pc + 2]]) {
+                            pc = code[pc + 3];
+                            continue;
+                        }
+                        break;
+                    case RegisterOpcode.PRINT_TEXT:
+                        line.append(registerCode.texts[code[pc + 1]]);
+                        break;
+                    case RegisterOpcode.PRINT_NUMBER:
+                        line.append(r[code[pc + 1]]);
+                        break;
+                    case RegisterOpcode.PRINTLN:
+                        out.println(line.toString());
+                        line.setLength(0);
+                        break;
+                    case RegisterOpcode.FAIL:
+                        throw registerCode.failures[code[pc + 1]];
+                    case RegisterOpcode.HALT:
+                        return;
+                    default:
+                        throw new IllegalStateException("bad opcode " + code[pc] + " at " + pc);
+                }
+                pc += RegisterOpcode.WIDTH;
+            }
+        } finally {
+            if (line.length() > 0)
+                out.print(line);
+        }
+    }
+
+    private Variable variable(int register) {
+        return registerCode.program.getVariables()[register];
+    }
+}
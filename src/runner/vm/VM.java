@@ -0,0 +1,196 @@
+package runner.vm;
+
+import runner.ir.Variable;
+
+import java.io.PrintStream;
+
+/**         VM.java
+ *  Runs a Chunk: a loop over the instructions, a double stack and a double slot for every variable. Each run starts
+ *  from the values the scope tree was built with.
+ *
+ *  A line is printed in one go when it ends. If the program throws halfway through a line, the part printed so far
+ *  still comes out, like it does with the tree walker.
+ */
+public class VM {
+
+    private final Chunk chunk;
+    /** Where the program's prints go */
+    private final PrintStream out;
+
+    /**
+     * Creates a VM to run a chunk.
+     * @param chunk code to run
+     * @param out   stream to print to
+     */
+    public VM(Chunk chunk, PrintStream out) {
+        this.chunk = chunk;
+        this.out = out;
+    }
+
+    // -----------------------------------------------FUNCTIONS -------------------------------------------------------
+
+    /**
+     * Runs the chunk.
+     */
+    public void run() {
+        final int[] code = chunk.code;
+        final double[] constants = chunk.constants;
+        final double[] slots = chunk.program.initialValues();
+        final boolean[] assigned = new boolean[slots.length];
+        final double[] stack = new double[chunk.maxStack];
+        StringBuilder line = new StringBuilder();
+        int sp = 0;
+        int pc = 0;
+
+        try {
+            while (true) {
+                switch (code[pc]) {
+                    case Opcode.CONST:
+                        stack[sp++] = constants[code[pc + 1]];
+                        pc += 2;
+                        break;
+                    case Opcode.LOAD:
+                        stack[sp++] = slots[code[pc + 1]];
+                        pc += 2;
+                        break;
+                    case Opcode.LOAD_CHECKED:
+                        if (!assigned[code[pc + 1]])
+                            throw variable(code[pc + 1]).readError();
+                        stack[sp++] = slots[code[pc + 1]];
+                        pc += 2;
+                        break;
+                    case Opcode.STORE:
+                        slots[code[pc + 1]] = stack[--sp];
+                        pc += 2;
+                        break;
+                    case Opcode.STORE_CHECKED:
+                        slots[code[pc + 1]] = stack[--sp];
+                        assigned[code[pc + 1]] = true;
+                        pc += 2;
+                        break;
+                    case Opcode.POP:
+                        sp--;
+                        pc++;
+                        break;
+                    case Opcode.ADD:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] + stack[sp];
+                        pc++;
+                        break;
+                    case Opcode.RSUB:
+                        sp--;
+                        stack[sp - 1] = stack[sp] - stack[sp - 1];
+                        pc++;
+                        break;
+                    case Opcode.MUL:
+                        sp--;
+                        stack[sp - 1] = stack[sp - 1] * stack[sp];
+                        pc++;
+                        break;
+                    case Opcode.RDIV:
+                        sp--;
+                        stack[sp - 1] = stack[sp] / stack[sp - 1];
+                        pc++;
+                        break;
+                    case Opcode.POW:
+                        sp--;
+                        stack[sp - 1] = Math.pow(stack[sp - 1], stack[sp]);
+                        pc++;
+                        break;
+                    case Opcode.JUMP:
+                        pc = code[pc + 1];
+                        break;
+                    case Opcode.IF_EQ:
+                        sp -= 2;
+                        pc = stack[sp] == stack[sp + 1] ? code[pc + 1] : pc + 2;
+                        break;
+                    case Opcode.IF_NE:
+                        sp -= 2;
+                        pc = stack[sp] != stack[sp + 1] ? code[pc + 1] : pc + 2;
+                        break;
+                    case Opcode.IF_LT:
+                        sp -= 2;
+                        pc = stack[sp] < stack[sp + 1] ? code[pc + 1] : pc + 2;
+                        break;
+                    case Opcode.IF_LE:
+                        sp -= 2;
+                        pc = stack[sp] <= stack[sp + 1] ? code[pc + 1] : pc + 2;
+                        break;
+                    case Opcode.IF_GT:
+                        sp -= 2;
+                        pc = stack[sp] > stack[sp + 1] ? code[pc + 1] : pc + 2;
+                        break;
+                    case Opcode.IF_GE:
+                        sp -= 2;
+                        pc = stack[sp] >= stack[sp + 1] ? code[pc + 1] : pc + 2;
+                        break;
+                    case Opcode.PRINT_TEXT:
+                        line.append(chunk.texts[code[pc + 1]]);
+                        pc += 2;
+                        break;
+                    case Opcode.PRINT_NUMBER:
+                        line.append(stack[--sp]);
+                        pc++;
+                        break;
+                    case Opcode.PRINTLN:
+                        out.println(line.toString());
+                        line.setLength(0);
+                        pc++;
+                        break;
+                    case Opcode.FAIL:
+                        throw chunk.failures[code[pc + 1]];
+                    case Opcode.HALT:
+                        return;
+                    case Opcode.ADD_CONST:
+                        slots[code[pc + 1]] += constants[code[pc + 2]];
+                        pc += 3;
+                        break;
+                    case Opcode.IF_LT_CONST:
+                        pc = slots[code[pc + 1]] < constants[code[pc + 2]] ? code[pc + 3] : pc + 4;
+                        break;
+                    case Opcode.ADD_LOAD:
+                        stack[sp - 1] = stack[sp - 1] + slots[code[pc + 1]];
+                        pc += 2;
+                        break;
+                    case Opcode.RSUB_LOAD:
+                        stack[sp - 1] = slots[code[pc + 1]] - stack[sp - 1];
+                        pc += 2;
+                        break;
+                    case Opcode.MUL_LOAD:
+                        stack[sp - 1] = stack[sp - 1] * slots[code[pc + 1]];
+                        pc += 2;
+                        break;
+                    case Opcode.RDIV_LOAD:
+                        stack[sp - 1] = slots[code[pc + 1]] / stack[sp - 1];
+                        pc += 2;
+                        break;
+                    case Opcode.ADD_K:
+                        stack[sp - 1] = stack[sp - 1] + constants[code[pc + 1]];
+                        pc += 2;
+                        break;
+                    case Opcode.RSUB_K:
+                        stack[sp - 1] = constants[code[pc + 1]] - stack[sp - 1];
+                        pc += 2;
+                        break;
+                    case Opcode.MUL_K:
+                        stack[sp - 1] = stack[sp - 1] * constants[code[pc + 1]];
+                        pc += 2;
+                        break;
+                    case Opcode.RDIV_K:
+                        stack[sp - 1] = constants[code[pc + 1]] / stack[sp - 1];
+                        pc += 2;
+                        break;
+                    default:
+                        throw new IllegalStateException("bad opcode " + code[pc] + " at " + pc);
+                }
+            }
+        } finally {
+            if (line.length() > 0)
+                out.print(line);
+        }
+    }
+
+    private Variable variable(int slot) {
+        return chunk.program.getVariables()[slot];
+    }
+}